@@ -0,0 +1,35 @@
+#!/bin/bash
+
+# Runs the JMH benchmarks on two git revisions and prints a comparison table.
+# Usage: ./bench-compare.sh <baseline-ref> [candidate-ref] [jmh args]
+#   e.g. ./bench-compare.sh main HEAD "TradeService -prof gc"
+
+set -e
+
+BASELINE_REF=${1:?"Usage: $0 <baseline-ref> [candidate-ref] [jmh args]"}
+CANDIDATE_REF=${2:-HEAD}
+JMH_ARGS=${3:-"-prof gc"}
+OUT_DIR=target/bench-compare
+ROOT=$(pwd)
+
+mkdir -p "$OUT_DIR"
+
+run_benchmarks() {
+    local ref=$1
+    local result=$2
+    local worktree="$ROOT/$OUT_DIR/worktree-$(echo "$ref" | tr '/' '_')"
+
+    echo "=== Running benchmarks for $ref ==="
+    git worktree add --force --detach "$worktree" "$ref" > /dev/null
+    # Each revision runs its own harness; benchmarks missing from the baseline show as "new"
+    (cd "$worktree" && mvn -q -B -Pbenchmark test-compile exec:exec \
+        -Djmh.args="$JMH_ARGS -rf json -rff $result")
+    git worktree remove --force "$worktree"
+}
+
+run_benchmarks "$BASELINE_REF" "$ROOT/$OUT_DIR/baseline.json"
+run_benchmarks "$CANDIDATE_REF" "$ROOT/$OUT_DIR/candidate.json"
+
+mvn -q -B -Pbenchmark test-compile exec:exec \
+    -Djmh.main=com.example.instructions.benchmark.BenchmarkComparison \
+    -Djmh.args="$OUT_DIR/baseline.json $OUT_DIR/candidate.json"
@@ -0,0 +1,37 @@
+#!/bin/bash
+
+# Runs the same load test on two git revisions and prints a comparison of the reports.
+# Usage: ./loadtest-compare.sh <baseline-ref> [candidate-ref] [load test args]
+#   e.g. ./loadtest-compare.sh main HEAD "--target=upload --rate=20 --duration=2m"
+
+set -e
+
+BASELINE_REF=${1:?"Usage: $0 <baseline-ref> [candidate-ref] [load test args]"}
+CANDIDATE_REF=${2:-HEAD}
+LOADTEST_ARGS=${3:-"--target=single"}
+OUT_DIR=target/loadtest-compare
+ROOT=$(pwd)
+
+mkdir -p "$OUT_DIR"
+
+run_loadtest() {
+    local ref=$1
+    local name=$2
+    local worktree="$ROOT/$OUT_DIR/worktree-$(echo "$ref" | tr '/' '_')"
+
+    echo "=== Running load test for $ref ==="
+    git worktree add --force --detach "$worktree" "$ref" > /dev/null
+    # Both revisions must contain the load test harness
+    (cd "$worktree" && mvn -q -B -Ploadtest test-compile exec:exec \
+        -Dloadtest.args="$LOADTEST_ARGS --label=$ref --report-dir=$ROOT/$OUT_DIR/$name")
+    git worktree remove --force "$worktree"
+}
+
+run_loadtest "$BASELINE_REF" baseline
+run_loadtest "$CANDIDATE_REF" candidate
+
+for report in "$OUT_DIR"/candidate/*-report.json; do
+    mvn -q -B -Ploadtest test-compile exec:exec \
+        -Dloadtest.main=com.example.instructions.loadtest.LoadTestComparison \
+        -Dloadtest.args="$OUT_DIR/baseline/$(basename "$report") $report"
+done
@@ -0,0 +1,67 @@
+package com.example.instructions.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Prints a side-by-side table of two JMH JSON result files (baseline and candidate),
+ * with the relative change in score and, when recorded with {@code -prof gc}, in
+ * allocation per operation.
+ *
+ * <pre>java -cp ... BenchmarkComparison baseline.json candidate.json</pre>
+ */
+public final class BenchmarkComparison {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <candidate.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> candidate = load(new File(args[1]));
+
+        System.out.printf("%-70s %14s %14s %9s %12s %12s%n",
+            "Benchmark", "Baseline", "Candidate", "Change", "B/op base", "B/op cand");
+        for (Map.Entry<String, JsonNode> entry : candidate.entrySet()) {
+            JsonNode after = entry.getValue();
+            JsonNode before = baseline.get(entry.getKey());
+            double afterScore = after.path("primaryMetric").path("score").asDouble();
+            String unit = after.path("primaryMetric").path("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %9s %12s %12s  %s%n", entry.getKey(), "-", afterScore,
+                    "new", "-", allocation(after), unit);
+                continue;
+            }
+            double beforeScore = before.path("primaryMetric").path("score").asDouble();
+            double change = beforeScore == 0 ? 0 : (afterScore - beforeScore) / beforeScore * 100;
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%% %12s %12s  %s%n", entry.getKey(), beforeScore,
+                afterScore, change, allocation(before), allocation(after), unit);
+        }
+    }
+
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            result.path("params").fields().forEachRemaining(param ->
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static String allocation(JsonNode result) {
+        JsonNode metric = result.path("secondaryMetrics").path(ALLOCATION_METRIC);
+        return metric.isMissingNode() ? "-" : String.format("%.1f", metric.path("score").asDouble());
+    }
+}
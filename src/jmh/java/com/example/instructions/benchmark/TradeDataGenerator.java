@@ -0,0 +1,93 @@
+package com.example.instructions.benchmark;
+
+import com.example.instructions.model.CanonicalTrade;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible trade data shaped like {@code samples/sample-trades.csv}: ten-digit
+ * accounts, six-character security IDs, mixed-case Buy/Sell, whole amounts and
+ * second-resolution timestamps. The same seed always yields the same trades.
+ */
+public final class TradeDataGenerator {
+
+    public static final long DEFAULT_SEED = 20250804L;
+
+    private static final String[] TRADE_TYPES = { "Buy", "Sell", "BUY", "SELL" };
+    private static final LocalDateTime START = LocalDateTime.of(2025, 8, 4, 9, 0, 0);
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private TradeDataGenerator() {
+    }
+
+    public static List<CanonicalTrade> trades(int count, long seed) {
+        Random random = new Random(seed);
+        // A realistic book trades a limited set of securities across many accounts
+        String[] securities = new String[Math.max(1, count / 50)];
+        for (int i = 0; i < securities.length; i++) {
+            securities[i] = String.format("%c%c%c%03d", 'A' + random.nextInt(26), 'A' + random.nextInt(26),
+                'A' + random.nextInt(26), random.nextInt(1000));
+        }
+
+        List<CanonicalTrade> trades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            trades.add(new CanonicalTrade(
+                String.valueOf(1_000_000_000L + random.nextInt(1_000_000_000)),
+                securities[random.nextInt(securities.length)],
+                TRADE_TYPES[random.nextInt(TRADE_TYPES.length)],
+                BigDecimal.valueOf(1_000L * (1 + random.nextInt(1_000))),
+                START.plusSeconds(i / 8)));
+        }
+        return trades;
+    }
+
+    public static byte[] csv(List<CanonicalTrade> trades) {
+        StringBuilder csv = new StringBuilder(trades.size() * 56);
+        csv.append("account_number,security_id,trade_type,amount,timestamp\n");
+        for (CanonicalTrade trade : trades) {
+            csv.append(trade.getAccountNumber()).append(',')
+                .append(trade.getSecurityId()).append(',')
+                .append(trade.getTradeType()).append(',')
+                .append(trade.getAmount().toPlainString()).append(',')
+                .append(TIMESTAMP_FORMAT.format(trade.getTimestamp())).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] jsonArray(List<CanonicalTrade> trades) {
+        StringBuilder json = new StringBuilder(trades.size() * 128);
+        json.append('[');
+        for (int i = 0; i < trades.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendJson(json, trades.get(i));
+        }
+        json.append(']');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] ndjson(List<CanonicalTrade> trades) {
+        StringBuilder json = new StringBuilder(trades.size() * 128);
+        for (CanonicalTrade trade : trades) {
+            appendJson(json, trade);
+            json.append('\n');
+        }
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendJson(StringBuilder json, CanonicalTrade trade) {
+        json.append("{\"account_number\":\"").append(trade.getAccountNumber())
+            .append("\",\"security_id\":\"").append(trade.getSecurityId())
+            .append("\",\"trade_type\":\"").append(trade.getTradeType())
+            .append("\",\"amount\":").append(trade.getAmount().toPlainString())
+            .append(",\"timestamp\":\"").append(TIMESTAMP_FORMAT.format(trade.getTimestamp()))
+            .append("\"}");
+    }
+}
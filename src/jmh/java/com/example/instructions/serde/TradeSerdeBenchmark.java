@@ -0,0 +1,73 @@
+package com.example.instructions.serde;
+
+import com.example.instructions.benchmark.TradeDataGenerator;
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.PlatformTrade;
+import com.example.instructions.util.TradeTransformer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of decoding an inbound trade and encoding an outbound trade in each wire format.
+ * Payload sizes are printed at setup, since broker bytes are the other half of the
+ * comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TradeSerdeBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    private WireFormat format;
+
+    private TradeSerde serde;
+    private byte[] inboundPayload;
+    private PlatformTrade platformTrade;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        TradeTransformer transformer = new TradeTransformer();
+        ReflectionTestUtils.setField(transformer, "platformId", "ACCT123");
+        serde = new TradeSerde(objectMapper, format, format);
+
+        List<CanonicalTrade> trades = TradeDataGenerator.trades(1, TradeDataGenerator.DEFAULT_SEED);
+        CanonicalTrade trade = trades.get(0);
+        inboundPayload = format == WireFormat.BINARY
+            ? TradeBinaryCodec.encode(trade)
+            : objectMapper.writeValueAsBytes(trade);
+        platformTrade = transformer.toPlatformFormat(transformer.normalize(trade));
+
+        System.out.printf("%n%s: inbound %d bytes, outbound %d bytes%n", format,
+            inboundPayload.length, serde.writePlatformTrade(platformTrade).length);
+    }
+
+    @Benchmark
+    public CanonicalTrade readCanonicalTrade() throws IOException {
+        return serde.readCanonicalTrade(inboundPayload, null);
+    }
+
+    @Benchmark
+    public byte[] writePlatformTrade() throws IOException {
+        return serde.writePlatformTrade(platformTrade);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.instructions.service;
+
+import com.example.instructions.benchmark.TradeDataGenerator;
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.metrics.TradeMetrics;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.PlatformTrade;
+import com.example.instructions.model.PublishResult;
+import com.example.instructions.model.TradeResult;
+import com.example.instructions.serde.TradeSerde;
+import com.example.instructions.store.InMemoryTradeStore;
+import com.example.instructions.util.TradeTransformer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end processing cost per trade: normalize, store, transform, serialize and
+ * publish to an in-memory stub that acknowledges immediately. The store is bounded so
+ * that long runs measure steady-state eviction rather than heap growth.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TradeServiceBenchmark {
+
+    private static final int TRADE_COUNT = 4096;
+    private static final int BATCH_SIZE = 512;
+
+    private TradeService tradeService;
+    private ObjectMapper objectMapper;
+    private ObjectWriter platformTradeWriter;
+    private List<CanonicalTrade> trades;
+    private List<List<CanonicalTrade>> batches;
+    private PlatformTrade platformTrade;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new JacksonConfig().objectMapper();
+        platformTradeWriter = objectMapper.writerFor(PlatformTrade.class);
+        TradeTransformer transformer = new TradeTransformer();
+        ReflectionTestUtils.setField(transformer, "platformId", "ACCT123");
+
+        // Metrics are recorded into a real Prometheus registry so that their cost is included
+        tradeService = TradeService.builder(transformer, new StubKafkaPublisher(), new TradeSerde(objectMapper))
+            .store(new InMemoryTradeStore(100_000, Long.MAX_VALUE, null, Clock.systemUTC()))
+            .metrics(new TradeMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)))
+            .partitionKey(TradeService.PartitionKey.NONE)
+            .build();
+
+        trades = TradeDataGenerator.trades(TRADE_COUNT, TradeDataGenerator.DEFAULT_SEED);
+        batches = new ArrayList<>();
+        for (int i = 0; i < TRADE_COUNT; i += BATCH_SIZE) {
+            batches.add(trades.subList(i, i + BATCH_SIZE));
+        }
+        platformTrade = transformer.toPlatformFormat(transformer.normalize(trades.get(0)));
+    }
+
+    @Benchmark
+    public String serializePlatformTrade() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(platformTrade);
+    }
+
+    @Benchmark
+    public byte[] serializePlatformTradeToBytes() throws JsonProcessingException {
+        return platformTradeWriter.writeValueAsBytes(platformTrade);
+    }
+
+    @Benchmark
+    public String processTrade() {
+        String tradeId = tradeService.processTrade(trades.get(next));
+        next = (next + 1) % TRADE_COUNT;
+        return tradeId;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<TradeResult> processTrades() {
+        List<TradeResult> results = tradeService.processTrades(batches.get(next)).join();
+        next = (next + 1) % batches.size();
+        return results;
+    }
+
+    /**
+     * Publisher that completes every send immediately, so no broker is involved.
+     */
+    static class StubKafkaPublisher extends KafkaPublisher {
+
+        StubKafkaPublisher() {
+            super(null);
+        }
+
+        private static final PublishResult PUBLISHED = new PublishResult("instructions.outbound", 0, 0);
+
+        @Override
+        public CompletableFuture<PublishResult> publishTrade(byte[] tradeJson) {
+            return CompletableFuture.completedFuture(PUBLISHED);
+        }
+
+        @Override
+        public List<CompletableFuture<PublishResult>> publishTrades(List<byte[]> tradeJsons) {
+            List<CompletableFuture<PublishResult>> futures = new ArrayList<>(tradeJsons.size());
+            for (int i = 0; i < tradeJsons.size(); i++) {
+                futures.add(CompletableFuture.completedFuture(PUBLISHED));
+            }
+            return futures;
+        }
+    }
+}
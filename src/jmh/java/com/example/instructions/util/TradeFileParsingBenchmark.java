@@ -0,0 +1,106 @@
+package com.example.instructions.util;
+
+import com.example.instructions.benchmark.TradeDataGenerator;
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.CanonicalTrade;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a whole generated file per operation, through {@link TradeFileReader} as the
+ * upload endpoints use it and, for comparison, through the bindings the upload used before:
+ * the generic header-driven CSV binding and, for JSON, the array binding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TradeFileParsingBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int rows;
+
+    private ObjectMapper objectMapper;
+    private TradeFileReader reader;
+    private ObjectReader genericCsvReader;
+    private byte[] csv;
+    private byte[] jsonArray;
+    private byte[] ndjson;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new JacksonConfig().objectMapper();
+        reader = new TradeFileReader(objectMapper);
+        CsvMapper csvMapper = new CsvMapper();
+        csvMapper.registerModule(new JavaTimeModule());
+        genericCsvReader = csvMapper.readerFor(CanonicalTrade.class).with(CsvSchema.emptySchema().withHeader());
+
+        List<CanonicalTrade> trades = TradeDataGenerator.trades(rows, TradeDataGenerator.DEFAULT_SEED);
+        csv = TradeDataGenerator.csv(trades);
+        jsonArray = TradeDataGenerator.jsonArray(trades);
+        ndjson = TradeDataGenerator.ndjson(trades);
+    }
+
+    @Benchmark
+    public void parseCsv(Blackhole blackhole) throws IOException {
+        try (TradeIterator trades = reader.read(new ByteArrayInputStream(csv), TradeFileReader.Format.CSV)) {
+            consume(trades, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void parseCsvGeneric(Blackhole blackhole) throws IOException {
+        try (MappingIterator<CanonicalTrade> trades = genericCsvReader.readValues(new ByteArrayInputStream(csv))) {
+            consume(trades, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void parseJsonArray(Blackhole blackhole) throws IOException {
+        try (TradeIterator trades = reader.read(new ByteArrayInputStream(jsonArray), TradeFileReader.Format.JSON)) {
+            consume(trades, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void parseNdjson(Blackhole blackhole) throws IOException {
+        try (TradeIterator trades = reader.read(new ByteArrayInputStream(ndjson), TradeFileReader.Format.NDJSON)) {
+            consume(trades, blackhole);
+        }
+    }
+
+    @Benchmark
+    public CanonicalTrade[] parseJsonArrayBound() throws IOException {
+        return objectMapper.readValue(new ByteArrayInputStream(jsonArray), CanonicalTrade[].class);
+    }
+
+    private static void consume(Iterator<CanonicalTrade> trades, Blackhole blackhole) {
+        while (trades.hasNext()) {
+            blackhole.consume(trades.next());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.instructions.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of issuing a trade ID with the time-ordered generator and with
+ * {@link UUID#randomUUID()}, on one thread and with every core issuing IDs from the same
+ * shared generator, as the processing lanes and request threads do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TradeIdGeneratorBenchmark {
+
+    private final TradeIdGenerator timeOrdered = new TimeOrderedIdGenerator(1);
+    private final TradeIdGenerator random = TradeIdGenerator.random();
+
+    @Benchmark
+    public String timeOrdered() {
+        return timeOrdered.nextId();
+    }
+
+    @Benchmark
+    public String randomUuid() {
+        return random.nextId();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String timeOrderedContended() {
+        return timeOrdered.nextId();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String randomUuidContended() {
+        return random.nextId();
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        return TradeIdGenerator.toBytes(timeOrdered.nextId());
+    }
+}
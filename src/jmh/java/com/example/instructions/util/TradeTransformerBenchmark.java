@@ -0,0 +1,91 @@
+package com.example.instructions.util;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.PlatformTrade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link TradeTransformer} with the {@link LegacyTradeTransformer} baseline.
+ * Run with {@code -prof gc} to report B/op next to ns/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TradeTransformerBenchmark {
+
+    private static final int TRADE_COUNT = 1024;
+    private static final String[] TRADE_TYPES = { "Buy", "Sell", "BUY", "SELL" };
+
+    private TradeTransformer transformer;
+    private LegacyTradeTransformer legacyTransformer;
+    private CanonicalTrade[] trades;
+    private CanonicalTrade[] normalizedTrades;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        transformer = new TradeTransformer();
+        ReflectionTestUtils.setField(transformer, "platformId", "ACCT123");
+        legacyTransformer = new LegacyTradeTransformer("ACCT123");
+
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2025, 8, 4, 9, 0, 0);
+        trades = new CanonicalTrade[TRADE_COUNT];
+        normalizedTrades = new CanonicalTrade[TRADE_COUNT];
+        for (int i = 0; i < TRADE_COUNT; i++) {
+            String security = String.format("%c%c%c%03d", 'A' + random.nextInt(26), 'A' + random.nextInt(26),
+                'A' + random.nextInt(26), random.nextInt(1000));
+            trades[i] = new CanonicalTrade(
+                String.valueOf(1_000_000_000L + random.nextInt(1_000_000_000)),
+                random.nextBoolean() ? security : security.toLowerCase(),
+                TRADE_TYPES[random.nextInt(TRADE_TYPES.length)],
+                BigDecimal.valueOf(1 + random.nextInt(1_000_000)),
+                start.plusSeconds(i / 4));
+            normalizedTrades[i] = legacyTransformer.normalize(trades[i]);
+        }
+    }
+
+    @Benchmark
+    public CanonicalTrade normalize() {
+        return transformer.normalize(trades[nextIndex()]);
+    }
+
+    @Benchmark
+    public CanonicalTrade normalizeLegacy() {
+        return legacyTransformer.normalize(trades[nextIndex()]);
+    }
+
+    @Benchmark
+    public PlatformTrade toPlatformFormat() {
+        return transformer.toPlatformFormat(normalizedTrades[nextIndex()]);
+    }
+
+    @Benchmark
+    public PlatformTrade toPlatformFormatLegacy() {
+        return legacyTransformer.toPlatformFormat(normalizedTrades[nextIndex()]);
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (index + 1) & (TRADE_COUNT - 1);
+        return index;
+    }
+}
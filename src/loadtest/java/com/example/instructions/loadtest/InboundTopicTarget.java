@@ -0,0 +1,133 @@
+package com.example.instructions.loadtest;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.PlatformTrade;
+import com.example.instructions.serde.TradeBinaryCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Produces each trade to the inbound topic and completes it when the service's outbound
+ * record for it shows up, matched by the trade's sequence number. The latency covers the
+ * listener's poll, processing and the outbound publish.
+ */
+final class InboundTopicTarget implements LoadTarget {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+
+    private final String inboundTopic;
+    private final ObjectMapper objectMapper;
+    private final KafkaProducer<String, byte[]> producer;
+    private final KafkaConsumer<String, byte[]> consumer;
+    private final ConcurrentMap<Long, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+    private final Thread poller;
+    private volatile boolean running = true;
+
+    InboundTopicTarget(String bootstrapServers, String inboundTopic, String outboundTopic,
+                       ObjectMapper objectMapper) {
+        this.inboundTopic = inboundTopic;
+        this.objectMapper = objectMapper;
+        this.producer = new KafkaProducer<>(Map.of(
+            ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+            ProducerConfig.LINGER_MS_CONFIG, 5),
+            new StringSerializer(), new ByteArraySerializer());
+        this.consumer = new KafkaConsumer<>(Map.of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+            ConsumerConfig.GROUP_ID_CONFIG, "loadtest-" + UUID.randomUUID(),
+            ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false),
+            new StringDeserializer(), new ByteArrayDeserializer());
+
+        List<TopicPartition> partitions = consumer.partitionsFor(outboundTopic).stream()
+            .map(partition -> new TopicPartition(outboundTopic, partition.partition()))
+            .toList();
+        consumer.assign(partitions);
+        consumer.seekToEnd(partitions);
+        // Resolve the end offsets now, before the first trade can be published
+        partitions.forEach(consumer::position);
+
+        this.poller = new Thread(this::pollOutbound, "loadtest-outbound-poller");
+        this.poller.setDaemon(true);
+        this.poller.start();
+    }
+
+    @Override
+    public String name() {
+        return "inbound";
+    }
+
+    @Override
+    public int tradesPerRequest() {
+        return 1;
+    }
+
+    @Override
+    public CompletableFuture<?> send(long firstSequence, List<CanonicalTrade> trades) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(trades.get(0));
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Void> published = new CompletableFuture<>();
+        pending.put(firstSequence, published);
+        producer.send(new ProducerRecord<>(inboundTopic, payload), (metadata, exception) -> {
+            if (exception != null) {
+                pending.remove(firstSequence);
+                published.completeExceptionally(exception);
+            }
+        });
+        return published;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        poller.join();
+        producer.close();
+    }
+
+    private void pollOutbound() {
+        try (consumer) {
+            while (running) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                    CompletableFuture<Void> published = pending.remove(sequenceOf(record.value()));
+                    if (published != null) {
+                        published.complete(null);
+                    }
+                }
+            }
+        }
+    }
+
+    private long sequenceOf(byte[] payload) {
+        try {
+            PlatformTrade trade = payload.length > 0 && payload[0] == '{'
+                ? objectMapper.readValue(payload, PlatformTrade.class)
+                : TradeBinaryCodec.decodePlatformTrade(payload);
+            return LoadTrades.sequenceOf(trade.getTrade().getTimestamp());
+        } catch (IOException | RuntimeException e) {
+            // Not one of ours, for example left over from an earlier run against the same broker
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.instructions.loadtest;
+
+import com.example.instructions.model.CanonicalTrade;
+
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One way of getting trades into the service. {@link #send} must not wait for the service:
+ * the driver issues requests on a fixed schedule, and a target that blocked would turn the
+ * open-loop test back into a closed loop.
+ */
+interface LoadTarget extends AutoCloseable {
+
+    String name();
+
+    /** Trades carried by one request. */
+    int tradesPerRequest();
+
+    /**
+     * Starts one request. The future completes once the service has acknowledged every
+     * trade, and completes exceptionally if the request failed.
+     *
+     * @param firstSequence the sequence number of the first trade, see {@link LoadTrades}
+     */
+    CompletableFuture<?> send(long firstSequence, List<CanonicalTrade> trades);
+
+    static void requireSuccess(HttpResponse<?> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " from " + response.uri());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.instructions.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Prints the summaries of two load test reports (baseline and candidate) side by side,
+ * with the relative change of every figure.
+ *
+ * <pre>java -cp ... LoadTestComparison baseline-report.json candidate-report.json</pre>
+ */
+public final class LoadTestComparison {
+
+    private LoadTestComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: LoadTestComparison <baseline-report.json> <candidate-report.json>");
+            System.exit(2);
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode baseline = objectMapper.readTree(new File(args[0]));
+        JsonNode candidate = objectMapper.readTree(new File(args[1]));
+        if (!baseline.path("config").equals(candidate.path("config"))) {
+            System.out.println("Warning: the reports were run with different configurations");
+        }
+
+        Map<String, Double> before = flatten(baseline.path("summary"));
+        Map<String, Double> after = flatten(candidate.path("summary"));
+        System.out.printf("%-40s %14s %14s %9s%n", baseline.path("label").asText() + " vs "
+            + candidate.path("label").asText(), "Baseline", "Candidate", "Change");
+        for (Map.Entry<String, Double> entry : after.entrySet()) {
+            Double beforeValue = before.get(entry.getKey());
+            double afterValue = entry.getValue();
+            if (beforeValue == null) {
+                System.out.printf("%-40s %14s %14.3f %9s%n", entry.getKey(), "-", afterValue, "new");
+                continue;
+            }
+            double change = beforeValue == 0 ? 0 : (afterValue - beforeValue) / beforeValue * 100;
+            System.out.printf("%-40s %14.3f %14.3f %+8.1f%%%n", entry.getKey(), beforeValue, afterValue, change);
+        }
+    }
+
+    private static Map<String, Double> flatten(JsonNode summary) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        flatten("", summary, values);
+        return values;
+    }
+
+    private static void flatten(String prefix, JsonNode node, Map<String, Double> values) {
+        if (node.isNumber()) {
+            values.put(prefix, node.asDouble());
+            return;
+        }
+        node.fields().forEachRemaining(field ->
+            flatten(prefix.isEmpty() ? field.getKey() : prefix + "." + field.getKey(), field.getValue(), values));
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.instructions.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of one load test: the configuration, a summary of the measured requests and
+ * a per-interval time series of throughput, latency, heap and GC. It is written as
+ * pretty-printed JSON with a fixed key order so two builds' reports can be diffed line by
+ * line or compared with {@link LoadTestComparison}. The interval histograms also go to an
+ * HdrHistogram log for plotting and re-analysis with the HdrHistogram tools.
+ *
+ * <p>Heap and GC figures cover the whole JVM, which holds the service and the driver.
+ */
+final class LoadTestReport {
+
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 99.99 };
+    private static final long MB = 1024 * 1024;
+
+    private final Map<String, Object> report = new LinkedHashMap<>();
+    private final List<Map<String, Object>> timeSeries = new ArrayList<>();
+    private final HistogramLogWriter histogramLog;
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    private long lastSent;
+    private long lastCompleted;
+    private long lastFailed;
+    private long lastGcCount;
+    private long lastGcTime;
+    private long measuredMaxHeapUsed;
+    private long measuredGcCount;
+    private long measuredGcTime;
+
+    LoadTestReport(String label, Map<String, Object> config, File histogramLogFile) throws FileNotFoundException {
+        report.put("label", label);
+        report.put("config", config);
+        this.histogramLog = new HistogramLogWriter(histogramLogFile);
+    }
+
+    void start(long startTimeMillis) {
+        histogramLog.outputLogFormatVersion();
+        histogramLog.outputStartTime(startTimeMillis);
+        histogramLog.setBaseTime(startTimeMillis);
+        histogramLog.outputLegend();
+        lastGcCount = gcCount();
+        lastGcTime = gcTime();
+    }
+
+    void addInterval(Duration elapsed, String phase, long sent, long completed, long failed,
+                     Histogram responseTime, Histogram serviceTime) {
+        long heapUsed = memory.getHeapMemoryUsage().getUsed();
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("elapsedSeconds", round(elapsed.toMillis() / 1000.0));
+        row.put("phase", phase);
+        row.put("sent", sent - lastSent);
+        row.put("completed", completed - lastCompleted);
+        row.put("failed", failed - lastFailed);
+        row.put("responseP50Ms", millis(responseTime.getValueAtPercentile(50)));
+        row.put("responseP99Ms", millis(responseTime.getValueAtPercentile(99)));
+        row.put("responseMaxMs", millis(responseTime.getMaxValue()));
+        row.put("serviceP99Ms", millis(serviceTime.getValueAtPercentile(99)));
+        row.put("heapUsedMb", heapUsed / MB);
+        row.put("gcCount", gcCount - lastGcCount);
+        row.put("gcTimeMs", gcTime - lastGcTime);
+        timeSeries.add(row);
+
+        if (!"warmup".equals(phase)) {
+            measuredMaxHeapUsed = Math.max(measuredMaxHeapUsed, heapUsed);
+            measuredGcCount += gcCount - lastGcCount;
+            measuredGcTime += gcTime - lastGcTime;
+        }
+        lastSent = sent;
+        lastCompleted = completed;
+        lastFailed = failed;
+        lastGcCount = gcCount;
+        lastGcTime = gcTime;
+
+        responseTime.setTag("response");
+        serviceTime.setTag("service");
+        histogramLog.outputIntervalHistogram(responseTime);
+        histogramLog.outputIntervalHistogram(serviceTime);
+    }
+
+    void summarize(Histogram responseTime, Histogram serviceTime, long sent, long failed, long timedOut,
+                   Duration duration, int tradesPerRequest, long maxDispatchLagNanos) {
+        long completed = responseTime.getTotalCount();
+        double seconds = duration.toMillis() / 1000.0;
+
+        Map<String, Object> requests = new LinkedHashMap<>();
+        requests.put("sent", sent);
+        requests.put("completed", completed);
+        requests.put("failed", failed);
+        requests.put("timedOut", timedOut);
+
+        Map<String, Object> throughput = new LinkedHashMap<>();
+        throughput.put("requestsPerSecond", round(completed / seconds));
+        throughput.put("tradesPerSecond", round(completed * tradesPerRequest / seconds));
+
+        Map<String, Object> jvm = new LinkedHashMap<>();
+        jvm.put("maxHeapUsedMb", measuredMaxHeapUsed / MB);
+        jvm.put("gcCount", measuredGcCount);
+        jvm.put("gcTimeMs", measuredGcTime);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", requests);
+        summary.put("throughput", throughput);
+        summary.put("responseTimeMs", latencies(responseTime));
+        summary.put("serviceTimeMs", latencies(serviceTime));
+        // Large values mean the driver itself could not keep up with the requested rate
+        summary.put("maxDispatchLagMs", millis(TimeUnit.NANOSECONDS.toMicros(maxDispatchLagNanos)));
+        summary.put("jvm", jvm);
+        report.put("summary", summary);
+        report.put("timeSeries", timeSeries);
+    }
+
+    @SuppressWarnings("unchecked")
+    String describeSummary() {
+        Map<String, Object> summary = (Map<String, Object>) report.get("summary");
+        return "requests " + summary.get("requests") + "\n"
+            + "throughput " + summary.get("throughput") + "\n"
+            + "response time (ms, from due time) " + summary.get("responseTimeMs") + "\n"
+            + "service time (ms, from send) " + summary.get("serviceTimeMs") + "\n"
+            + "jvm " + summary.get("jvm");
+    }
+
+    void write(File file, ObjectMapper objectMapper) throws IOException {
+        histogramLog.close();
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+    }
+
+    private static Map<String, Object> latencies(Histogram histogram) {
+        Map<String, Object> latencies = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            latencies.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile)
+                : String.valueOf(percentile)), millis(histogram.getValueAtPercentile(percentile)));
+        }
+        latencies.put("max", millis(histogram.getMaxValue()));
+        latencies.put("mean", round(histogram.getMean() / 1000.0));
+        return latencies;
+    }
+
+    private long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            time += Math.max(0, collector.getCollectionTime());
+        }
+        return time;
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.instructions.loadtest;
+
+import com.example.instructions.InstructionsCaptureApplication;
+import com.example.instructions.config.JacksonConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.File;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the service in-process against an embedded Kafka broker, or an external one, and
+ * drives one target at a fixed open-loop rate, then writes
+ * {@code <report-dir>/<target>-report.json} and {@code <target>.hlog}.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--target=single --rate=500 --duration=2m"
+ * </pre>
+ *
+ * Options are {@code --name=value}; see {@link #DEFAULTS}. Any other argument, such as
+ * {@code --app.processing.lanes=4}, is passed to the service as a property.
+ */
+public final class LoadTestRunner {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        // single, upload or inbound
+        DEFAULTS.put("target", "single");
+        // Requests per second; an upload request carries batch-size trades
+        DEFAULTS.put("rate", "200");
+        DEFAULTS.put("warmup", "10s");
+        DEFAULTS.put("duration", "60s");
+        DEFAULTS.put("interval", "1s");
+        // How long to wait for outstanding requests after the last one is sent
+        DEFAULTS.put("drain-timeout", "30s");
+        DEFAULTS.put("batch-size", "500");
+        // A recorded CSV, JSON or NDJSON file to replay; generated trades when empty
+        DEFAULTS.put("trades", "");
+        DEFAULTS.put("seed", "20250804");
+        // An external broker; an embedded one is started when empty
+        DEFAULTS.put("bootstrap-servers", "");
+        DEFAULTS.put("partitions", "3");
+        DEFAULTS.put("report-dir", "target/loadtest");
+        // Identifies the build in the report, for example a commit hash
+        DEFAULTS.put("label", "local");
+    }
+
+    private static final String INBOUND_TOPIC = "instructions.inbound";
+    private static final String OUTBOUND_TOPIC = "instructions.outbound";
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        List<String> serviceArgs = new ArrayList<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String name = arg.startsWith("--") && equals > 2 ? arg.substring(2, equals) : null;
+            if (name != null && DEFAULTS.containsKey(name)) {
+                options.put(name, arg.substring(equals + 1));
+            } else {
+                serviceArgs.add(arg);
+            }
+        }
+
+        Path reportDir = Path.of(options.get("report-dir"));
+        Files.createDirectories(reportDir);
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        LoadTrades trades = options.get("trades").isEmpty()
+            ? LoadTrades.generated(Long.parseLong(options.get("seed")))
+            : LoadTrades.recorded(Path.of(options.get("trades")));
+
+        EmbeddedKafkaBroker broker = null;
+        String bootstrapServers = options.get("bootstrap-servers");
+        if (bootstrapServers.isEmpty()) {
+            broker = new EmbeddedKafkaKraftBroker(1, Integer.parseInt(options.get("partitions")),
+                INBOUND_TOPIC, OUTBOUND_TOPIC)
+                .brokerProperties(Map.of(
+                    // Lets the service run with app.kafka.listener.mode=transactional
+                    "transaction.state.log.replication.factor", "1",
+                    "transaction.state.log.min.isr", "1"));
+            broker.afterPropertiesSet();
+            bootstrapServers = broker.getBrokersAsString();
+        }
+
+        serviceArgs.add(0, "--server.port=0");
+        serviceArgs.add(1, "--spring.kafka.bootstrap-servers=" + bootstrapServers);
+        serviceArgs.add(2, "--app.kafka.publisher.spill.directory=" + reportDir.resolve("spill"));
+        serviceArgs.add(3, "--app.jobs.directory=" + reportDir.resolve("jobs"));
+        serviceArgs.add(4, "--app.store.journal.directory=" + reportDir.resolve("journal"));
+
+        ConfigurableApplicationContext service = new SpringApplicationBuilder(InstructionsCaptureApplication.class)
+            .run(serviceArgs.toArray(new String[0]));
+        String baseUrl = "http://localhost:" + service.getEnvironment().getProperty("local.server.port");
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        try (LoadTarget target = switch (options.get("target")) {
+            case "single" -> new SingleTradeTarget(client, baseUrl, objectMapper);
+            case "upload" -> new UploadTarget(client, baseUrl, Integer.parseInt(options.get("batch-size")));
+            case "inbound" -> new InboundTopicTarget(bootstrapServers, INBOUND_TOPIC, OUTBOUND_TOPIC, objectMapper);
+            default -> throw new IllegalArgumentException("Unknown target: " + options.get("target"));
+        }) {
+            Map<String, Object> config = new LinkedHashMap<>();
+            config.put("target", target.name());
+            config.put("ratePerSecond", Double.parseDouble(options.get("rate")));
+            config.put("tradesPerRequest", target.tradesPerRequest());
+            config.put("warmup", options.get("warmup"));
+            config.put("duration", options.get("duration"));
+            config.put("trades", trades.describe());
+            config.put("broker", broker != null ? "embedded" : "external");
+            config.put("serviceArgs", serviceArgs.subList(5, serviceArgs.size()));
+            config.put("java", System.getProperty("java.version"));
+            config.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+            config.put("maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+
+            LoadTestReport report = new LoadTestReport(options.get("label"), config,
+                reportDir.resolve(target.name() + ".hlog").toFile());
+            new OpenLoopDriver(target, trades, Double.parseDouble(options.get("rate")),
+                duration(options, "warmup"), duration(options, "duration"), duration(options, "interval"),
+                duration(options, "drain-timeout")).run(report);
+
+            File reportFile = reportDir.resolve(target.name() + "-report.json").toFile();
+            report.write(reportFile, objectMapper);
+            System.out.println(report.describeSummary());
+            System.out.println("Report written to " + reportFile);
+        } finally {
+            service.close();
+            if (broker != null) {
+                broker.destroy();
+            }
+        }
+    }
+
+    private static Duration duration(Map<String, String> options, String name) {
+        return DurationStyle.detectAndParse(options.get(name));
+    }
+}
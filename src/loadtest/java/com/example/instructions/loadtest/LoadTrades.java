@@ -0,0 +1,116 @@
+package com.example.instructions.loadtest;
+
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.util.TradeFileReader;
+import com.example.instructions.util.TradeIterator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The trades a load test sends, generated from a seed or replayed from a recorded CSV, JSON
+ * or NDJSON file. Trade {@code n} of a run always carries the timestamp {@link #START}
+ * plus {@code n} seconds: this keeps every send unique, so the idempotency index never
+ * suppresses a replayed trade, and lets the sequence number be recovered from the
+ * outbound record.
+ */
+final class LoadTrades {
+
+    static final LocalDateTime START = LocalDateTime.of(2025, 8, 4, 0, 0, 0);
+
+    private static final String[] TRADE_TYPES = { "Buy", "Sell", "BUY", "SELL" };
+    private static final DateTimeFormatter CSV_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    // The outbound trade's timestamp format, see TradeTransformer
+    private static final DateTimeFormatter PLATFORM_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
+
+    private final List<CanonicalTrade> recorded;
+    private final long seed;
+    private final String source;
+
+    private LoadTrades(List<CanonicalTrade> recorded, long seed, String source) {
+        this.recorded = recorded;
+        this.seed = seed;
+        this.source = source;
+    }
+
+    static LoadTrades generated(long seed) {
+        return new LoadTrades(null, seed, "generated(seed=" + seed + ")");
+    }
+
+    static LoadTrades recorded(Path file) throws IOException {
+        TradeFileReader.Format format = TradeFileReader.Format.fromFilename(file.getFileName().toString());
+        if (format == null) {
+            throw new IllegalArgumentException("Unsupported trade file: " + file);
+        }
+        List<CanonicalTrade> trades = new ArrayList<>();
+        TradeFileReader reader = new TradeFileReader(new JacksonConfig().objectMapper());
+        try (InputStream inputStream = Files.newInputStream(file);
+             TradeIterator iterator = reader.read(inputStream, format)) {
+            iterator.forEachRemaining(trades::add);
+        }
+        if (trades.isEmpty()) {
+            throw new IllegalArgumentException("No trades in " + file);
+        }
+        return new LoadTrades(trades, 0, "recorded(" + file.getFileName() + ", " + trades.size() + " trades)");
+    }
+
+    String describe() {
+        return source;
+    }
+
+    CanonicalTrade trade(long sequence) {
+        LocalDateTime timestamp = START.plusSeconds(sequence);
+        if (recorded != null) {
+            CanonicalTrade trade = recorded.get((int) (sequence % recorded.size()));
+            return new CanonicalTrade(trade.getAccountNumber(), trade.getSecurityId(), trade.getTradeType(),
+                trade.getAmount(), timestamp);
+        }
+
+        // Each trade is derived from its own sequence number, so any thread can produce any trade
+        SplittableRandom random = new SplittableRandom(seed ^ (sequence * 0x9E3779B97F4A7C15L));
+        return new CanonicalTrade(
+            String.valueOf(1_000_000_000L + random.nextInt(1_000_000_000)),
+            String.format("%c%c%c%03d", 'A' + random.nextInt(26), 'A' + random.nextInt(26),
+                'A' + random.nextInt(26), random.nextInt(20)),
+            TRADE_TYPES[random.nextInt(TRADE_TYPES.length)],
+            BigDecimal.valueOf(1_000L * (1 + random.nextInt(1_000))),
+            timestamp);
+    }
+
+    List<CanonicalTrade> trades(long firstSequence, int count) {
+        List<CanonicalTrade> trades = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            trades.add(trade(firstSequence + i));
+        }
+        return trades;
+    }
+
+    /** Recovers the sequence number from an outbound trade's timestamp. */
+    static long sequenceOf(String platformTimestamp) {
+        return Duration.between(START, LocalDateTime.parse(platformTimestamp, PLATFORM_TIMESTAMP)).getSeconds();
+    }
+
+    static byte[] csv(List<CanonicalTrade> trades) {
+        StringBuilder csv = new StringBuilder(trades.size() * 56);
+        csv.append("account_number,security_id,trade_type,amount,timestamp\n");
+        for (CanonicalTrade trade : trades) {
+            csv.append(trade.getAccountNumber()).append(',')
+                .append(trade.getSecurityId()).append(',')
+                .append(trade.getTradeType()).append(',')
+                .append(trade.getAmount().toPlainString()).append(',')
+                .append(CSV_TIMESTAMP.format(trade.getTimestamp())).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
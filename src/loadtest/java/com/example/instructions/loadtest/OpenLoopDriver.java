@@ -0,0 +1,155 @@
+package com.example.instructions.loadtest;
+
+import com.example.instructions.model.CanonicalTrade;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Issues requests at a fixed rate regardless of how quickly the service answers. Request
+ * {@code n} is due at {@code start + n / rate}, and its response time is measured from that
+ * due time rather than from when it was actually sent, so a stall in the service or in the
+ * driver is charged to every request it delayed instead of being hidden by the requests it
+ * kept from being sent (coordinated omission). The service time, measured from the actual
+ * send, is recorded alongside for comparison.
+ *
+ * <p>Requests due during the warmup are sent and shown in the time series but left out of
+ * the summary. Latencies are recorded in microseconds.
+ */
+final class OpenLoopDriver {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final LoadTarget target;
+    private final LoadTrades trades;
+    private final double rate;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration interval;
+    private final Duration drainTimeout;
+
+    // Every request, drained once per interval into the time series
+    private final Recorder intervalResponseTime = new Recorder(SIGNIFICANT_DIGITS);
+    private final Recorder intervalServiceTime = new Recorder(SIGNIFICANT_DIGITS);
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // Requests due after the warmup only
+    private final Histogram responseTime = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final Histogram serviceTime = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final AtomicLong measuredSent = new AtomicLong();
+    private final AtomicLong measuredFailed = new AtomicLong();
+    private final AtomicLong outstanding = new AtomicLong();
+    private volatile long maxDispatchLagNanos;
+
+    OpenLoopDriver(LoadTarget target, LoadTrades trades, double rate, Duration warmup, Duration duration,
+                   Duration interval, Duration drainTimeout) {
+        this.target = target;
+        this.trades = trades;
+        this.rate = rate;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.interval = interval;
+        this.drainTimeout = drainTimeout;
+    }
+
+    void run(LoadTestReport report) throws InterruptedException {
+        double nanosPerRequest = TimeUnit.SECONDS.toNanos(1) / rate;
+        int tradesPerRequest = target.tradesPerRequest();
+        long start = System.nanoTime();
+        long warmupEnd = start + warmup.toNanos();
+        long end = warmupEnd + duration.toNanos();
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        report.start(System.currentTimeMillis());
+        sampler.scheduleAtFixedRate(() -> sample(report, start, warmupEnd, end),
+            interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+
+        try {
+            for (long request = 0; ; request++) {
+                long due = start + (long) (request * nanosPerRequest);
+                if (due >= end) {
+                    break;
+                }
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                dispatch(request * tradesPerRequest, tradesPerRequest, due, due >= warmupEnd);
+            }
+
+            long drainDeadline = System.nanoTime() + drainTimeout.toNanos();
+            while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            sampler.shutdown();
+            sampler.awaitTermination(interval.toMillis() + 1000, TimeUnit.MILLISECONDS);
+        }
+        sample(report, start, warmupEnd, end);
+
+        report.summarize(responseTime, serviceTime, measuredSent.get(), measuredFailed.get(), outstanding.get(),
+            duration, tradesPerRequest, maxDispatchLagNanos);
+    }
+
+    private void dispatch(long firstSequence, int count, long due, boolean measured) {
+        long sentAt = System.nanoTime();
+        if (sentAt - due > maxDispatchLagNanos) {
+            maxDispatchLagNanos = sentAt - due;
+        }
+        sent.incrementAndGet();
+        outstanding.incrementAndGet();
+        if (measured) {
+            measuredSent.incrementAndGet();
+        }
+
+        CompletableFuture<?> response;
+        try {
+            List<CanonicalTrade> batch = trades.trades(firstSequence, count);
+            response = target.send(firstSequence, batch);
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((ignored, exception) -> {
+            long now = System.nanoTime();
+            if (exception == null) {
+                long responseMicros = TimeUnit.NANOSECONDS.toMicros(now - due);
+                long serviceMicros = TimeUnit.NANOSECONDS.toMicros(now - sentAt);
+                intervalResponseTime.recordValue(responseMicros);
+                intervalServiceTime.recordValue(serviceMicros);
+                if (measured) {
+                    responseTime.recordValue(responseMicros);
+                    serviceTime.recordValue(serviceMicros);
+                }
+                completed.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+                if (measured) {
+                    measuredFailed.incrementAndGet();
+                }
+            }
+            outstanding.decrementAndGet();
+        });
+    }
+
+    private void sample(LoadTestReport report, long start, long warmupEnd, long end) {
+        long now = System.nanoTime();
+        String phase = now <= warmupEnd ? "warmup" : now <= end ? "measure" : "drain";
+        report.addInterval(Duration.ofNanos(now - start), phase, sent.get(), completed.get(), failed.get(),
+            intervalResponseTime.getIntervalHistogram(), intervalServiceTime.getIntervalHistogram());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.instructions.loadtest;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@code POST /api/trades/single}, one trade per request. The service answers once the
+ * broker has acknowledged the trade, so the latency is end to end.
+ */
+final class SingleTradeTarget implements LoadTarget {
+
+    private final HttpClient client;
+    private final URI uri;
+    private final ObjectMapper objectMapper;
+
+    SingleTradeTarget(HttpClient client, String baseUrl, ObjectMapper objectMapper) {
+        this.client = client;
+        this.uri = URI.create(baseUrl + "/api/trades/single");
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return "single";
+    }
+
+    @Override
+    public int tradesPerRequest() {
+        return 1;
+    }
+
+    @Override
+    public CompletableFuture<?> send(long firstSequence, List<CanonicalTrade> trades) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(trades.get(0));
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .thenAccept(LoadTarget::requireSuccess);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.instructions.loadtest;
+
+import com.example.instructions.model.CanonicalTrade;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@code POST /api/trades/upload}, a CSV file of {@code batch-size} trades per request.
+ * The service answers once every trade in the file has been published.
+ */
+final class UploadTarget implements LoadTarget {
+
+    private static final String BOUNDARY = "loadtest-boundary-7f3a";
+
+    private final HttpClient client;
+    private final URI uri;
+    private final int batchSize;
+
+    UploadTarget(HttpClient client, String baseUrl, int batchSize) {
+        this.client = client;
+        this.uri = URI.create(baseUrl + "/api/trades/upload");
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public String name() {
+        return "upload";
+    }
+
+    @Override
+    public int tradesPerRequest() {
+        return batchSize;
+    }
+
+    @Override
+    public CompletableFuture<?> send(long firstSequence, List<CanonicalTrade> trades) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + BOUNDARY + "\r\n"
+            + "Content-Disposition: form-data; name=\"file\"; filename=\"loadtest-" + firstSequence + ".csv\"\r\n"
+            + "Content-Type: text/csv\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(LoadTrades.csv(trades));
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+            .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .thenAccept(LoadTarget::requireSuccess);
+    }
+
+    @Override
+    public void close() {
+    }
+}
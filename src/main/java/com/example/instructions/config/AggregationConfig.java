@@ -0,0 +1,39 @@
+package com.example.instructions.config;
+
+import com.example.instructions.store.TradeAggregator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Positions and volumes of published trades, served by the aggregate endpoints.
+ */
+@Configuration
+public class AggregationConfig {
+
+    /**
+     * Positions and volumes of published trades. Volumes are bucketed by trade timestamp.
+     */
+    @Bean
+    public TradeAggregator tradeAggregator(@Value("${app.aggregation.bucket-size:1m}") Duration bucketSize,
+                                           @Value("${app.aggregation.retention:24h}") Duration retention) {
+        return new TradeAggregator(bucketSize, retention);
+    }
+
+    @Bean
+    public MeterBinder tradeAggregationMetrics(TradeAggregator tradeAggregator) {
+        return registry -> {
+            FunctionCounter.builder("trade.aggregation.outside.retention", tradeAggregator,
+                    TradeAggregator::getOutsideRetentionCount)
+                .description("Published trades too old for the volume buckets")
+                .register(registry);
+            FunctionCounter.builder("trade.aggregation.skipped", tradeAggregator, TradeAggregator::getSkippedCount)
+                .description("Published trades left out of the aggregates because they could not be summed")
+                .register(registry);
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.instructions.config;
+
+import com.example.instructions.util.ConcurrencyLimiter;
+import com.example.instructions.util.ShardedExecutor;
+import com.example.instructions.util.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threads used by the trade pipeline. When {@code spring.threads.virtual.enabled} is set
+ * and the runtime is Java 21 or later, Spring Boot runs the servlet container and Kafka
+ * listeners on virtual threads, and the thread factories below switch to virtual threads too.
+ * They are exposed as thread factories rather than executors so that Boot still creates
+ * its own application task executor for async MVC requests.
+ */
+@Configuration
+public class ExecutionConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionConfig.class);
+
+    private final boolean virtualThreads;
+
+    public ExecutionConfig(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreadsRequested) {
+        if (virtualThreadsRequested && !VirtualThreads.isSupported()) {
+            logger.warn("Virtual threads requested but not supported by Java {}; using platform threads",
+                       Runtime.version().feature());
+        }
+        this.virtualThreads = virtualThreadsRequested && VirtualThreads.isSupported();
+    }
+
+    /**
+     * Threads that run Kafka publish completion callbacks off the producer's network thread.
+     */
+    @Bean
+    public ThreadFactory publishCallbackThreadFactory() {
+        if (virtualThreads) {
+            return VirtualThreads.threadFactory("publish-callback-");
+        }
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("publish-callback-");
+        factory.setDaemon(true);
+        return factory;
+    }
+
+    /**
+     * Threads that run asynchronous upload jobs. A job thread only parses and waits on the
+     * processing lanes, so virtual threads suit it as well.
+     */
+    @Bean
+    public ThreadFactory uploadJobThreadFactory() {
+        if (virtualThreads) {
+            return VirtualThreads.threadFactory("upload-job-");
+        }
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("upload-job-");
+        factory.setDaemon(true);
+        return factory;
+    }
+
+    /**
+     * Single-writer lanes that {@link com.example.instructions.service.TradeService} processes
+     * trades on, one lane per record key hash.
+     */
+    @Bean(destroyMethod = "close")
+    public ShardedExecutor tradeProcessingLanes(@Value("${app.processing.lanes:0}") int lanes,
+                                                @Value("${app.processing.queue-capacity:1024}") int queueCapacity) {
+        ThreadFactory threadFactory;
+        if (virtualThreads) {
+            threadFactory = VirtualThreads.threadFactory("trade-lane-");
+        } else {
+            CustomizableThreadFactory factory = new CustomizableThreadFactory("trade-lane-");
+            factory.setDaemon(true);
+            threadFactory = factory;
+        }
+        int laneCount = lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors();
+        return new ShardedExecutor(laneCount, queueCapacity, threadFactory);
+    }
+
+    /**
+     * Caps concurrently processed {@code /single} requests so that thousands of cheap
+     * virtual-thread requests cannot all hit the producer at once.
+     */
+    @Bean
+    public ConcurrencyLimiter singleTradeLimiter(@Value("${app.concurrency.max-concurrent-single-trades:256}") int maxConcurrent,
+                                                 @Value("${app.concurrency.acquire-timeout:2s}") Duration acquireTimeout) {
+        return new ConcurrencyLimiter(maxConcurrent, acquireTimeout);
+    }
+
+    /**
+     * Caps open {@code /stream} connections. Each one holds a request thread and up to
+     * {@code max-in-flight-batches} batches for as long as the client keeps it open.
+     */
+    @Bean
+    public ConcurrencyLimiter firehoseLimiter(@Value("${app.firehose.max-streams:64}") int maxStreams) {
+        return new ConcurrencyLimiter(maxStreams, Duration.ZERO);
+    }
+}
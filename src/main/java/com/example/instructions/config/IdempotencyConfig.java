@@ -0,0 +1,33 @@
+package com.example.instructions.config;
+
+import com.example.instructions.store.IdempotencyIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Duplicate detection, enabled unless {@code app.idempotency.enabled} is false. Without an
+ * {@link IdempotencyIndex} bean every trade is published.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.idempotency.enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyConfig {
+
+    /**
+     * Fingerprints of recent trades for duplicate detection. The window is counted in trades.
+     */
+    @Bean
+    public IdempotencyIndex idempotencyIndex(@Value("${app.idempotency.window-size:500000}") int windowSize) {
+        return new IdempotencyIndex(windowSize);
+    }
+
+    @Bean
+    public MeterBinder idempotencyMetrics(IdempotencyIndex idempotencyIndex) {
+        return registry -> Gauge.builder("trade.idempotency.size", idempotencyIndex, IdempotencyIndex::size)
+            .description("Trade fingerprints held for duplicate detection")
+            .register(registry);
+    }
+}
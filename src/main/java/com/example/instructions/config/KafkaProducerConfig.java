@@ -0,0 +1,22 @@
+package com.example.instructions.config;
+
+import com.example.instructions.util.SpillFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+public class KafkaProducerConfig {
+
+    /**
+     * Local spill file for outbound trades that could not be delivered.
+     */
+    @Bean(destroyMethod = "close")
+    public SpillFile publishSpillFile(
+            @Value("${app.kafka.publisher.spill.directory:data/spill}") String directory) throws IOException {
+        return new SpillFile(Paths.get(directory, "outbound.spill"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.instructions.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultAfterRollbackProcessor;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.Map;
+
+/**
+ * Transactional consume-transform-produce, enabled with {@code app.kafka.listener.mode:
+ * transactional}. The transactional producer factory is private to the transaction manager,
+ * so Boot's own producer factory and template stay non-transactional for the REST, upload
+ * and retry paths.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.kafka.listener.mode", havingValue = "transactional")
+public class KafkaTransactionConfig {
+
+    /**
+     * Transaction manager over a producer factory with a {@code transactional.id} prefix. The
+     * prefix must differ between instances of the service.
+     */
+    @Bean
+    public KafkaTransactionManager<String, byte[]> tradeTransactionManager(
+            KafkaProperties kafkaProperties,
+            @Value("${app.kafka.transactions.transaction-id-prefix:instructions-tx-}") String transactionIdPrefix) {
+        Map<String, Object> properties = kafkaProperties.buildProducerProperties(null);
+        DefaultKafkaProducerFactory<String, byte[]> producerFactory = new DefaultKafkaProducerFactory<>(properties);
+        producerFactory.setTransactionIdPrefix(transactionIdPrefix);
+        return new KafkaTransactionManager<>(producerFactory);
+    }
+
+    /**
+     * Container factory for the transactional listener. Each poll is delivered as one batch
+     * inside one transaction; the container sends the poll's offsets to the transaction and
+     * commits it once the listener returns, so the commit cost is paid once per poll. Consumers
+     * read committed records only. A rolled-back poll is redelivered after {@code redelivery-delay}.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> transactionalKafkaListenerContainerFactory(
+            KafkaProperties kafkaProperties,
+            KafkaTransactionManager<String, byte[]> tradeTransactionManager,
+            @Value("${app.kafka.listener.concurrency:3}") int concurrency,
+            @Value("${app.kafka.transactions.redelivery-delay-ms:1000}") long redeliveryDelayMs) {
+        Map<String, Object> properties = kafkaProperties.buildConsumerProperties(null);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        properties.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        ConsumerFactory<String, byte[]> consumerFactory = new DefaultKafkaConsumerFactory<>(properties);
+
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.getContainerProperties().setTransactionManager(tradeTransactionManager);
+        factory.setAfterRollbackProcessor(new DefaultAfterRollbackProcessor<>(
+            new FixedBackOff(redeliveryDelayMs, FixedBackOff.UNLIMITED_ATTEMPTS)));
+        return factory;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.instructions.config;
+
+import com.example.instructions.util.TimeOrderedIdGenerator;
+import com.example.instructions.util.TradeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TradeIdConfig {
+
+    /**
+     * Trade IDs: time-ordered UUIDv7s by default, so the store and its indexes receive keys
+     * in insert order, or random UUIDs.
+     */
+    @Bean
+    public TradeIdGenerator tradeIdGenerator(@Value("${app.ids.generator:time-ordered}") String generator,
+                                             @Value("${app.ids.node-id:-1}") int nodeId) {
+        switch (generator) {
+            case "time-ordered":
+                return new TimeOrderedIdGenerator(nodeId);
+            case "random":
+                return TradeIdGenerator.random();
+            default:
+                throw new IllegalArgumentException("Unknown trade ID generator: " + generator);
+        }
+    }
+}
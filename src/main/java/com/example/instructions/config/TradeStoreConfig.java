@@ -0,0 +1,94 @@
+package com.example.instructions.config;
+
+import com.example.instructions.store.InMemoryTradeStore;
+import com.example.instructions.store.IndexedTradeStore;
+import com.example.instructions.store.JournalingTradeStore;
+import com.example.instructions.store.OffHeapTradeStore;
+import com.example.instructions.store.TradeJournal;
+import com.example.instructions.store.TradeStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+
+@Configuration
+public class TradeStoreConfig {
+
+    // Trades that do not fit the off-heap layout should be rare; keep their heap store small
+    private static final int OFF_HEAP_OVERFLOW_ENTRIES = 100_000;
+
+    @Bean
+    public TradeStore tradeStore(@Value("${app.store.type:memory}") String type,
+                                 @Value("${app.store.max-entries:1000000}") int maxEntries,
+                                 @Value("${app.store.max-bytes:512MB}") DataSize maxBytes,
+                                 @Value("${app.store.ttl:24h}") Duration ttl,
+                                 @Value("${app.store.index.enabled:true}") boolean indexed,
+                                 ObjectProvider<TradeJournal> tradeJournal) {
+        Clock clock = Clock.systemUTC();
+        TradeStore store;
+        switch (type) {
+            case "memory":
+                store = new InMemoryTradeStore(maxEntries, maxBytes.toBytes(), ttl, clock);
+                break;
+            case "off-heap":
+                int capacity = Math.min(maxEntries, OffHeapTradeStore.capacityFor(maxBytes.toBytes()));
+                InMemoryTradeStore overflow = new InMemoryTradeStore(
+                    Math.min(maxEntries, OFF_HEAP_OVERFLOW_ENTRIES), maxBytes.toBytes(), ttl, clock);
+                store = new OffHeapTradeStore(capacity, ttl, clock, overflow);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown trade store type: " + type);
+        }
+
+        TradeJournal journal = tradeJournal.getIfAvailable();
+        if (journal != null) {
+            store = new JournalingTradeStore(store, journal);
+        }
+        return indexed ? new IndexedTradeStore(store) : store;
+    }
+
+    /**
+     * Store gauges, read from {@link TradeStore#getStats()} at scrape time only.
+     */
+    @Bean
+    public MeterBinder tradeStoreMetrics(TradeStore tradeStore) {
+        return registry -> {
+            Gauge.builder("trade.store.size", tradeStore, TradeStore::size)
+                .description("Trades held in the audit store")
+                .register(registry);
+            Gauge.builder("trade.store.bytes", tradeStore, store -> store.getStats().getEstimatedBytes())
+                .description("Estimated memory used by the audit store")
+                .baseUnit("bytes")
+                .register(registry);
+            FunctionCounter.builder("trade.store.evictions", tradeStore, store -> store.getStats().getEvictions())
+                .description("Trades evicted to stay within the store limits")
+                .register(registry);
+            FunctionCounter.builder("trade.store.expirations", tradeStore, store -> store.getStats().getExpirations())
+                .description("Trades removed after outliving the TTL")
+                .register(registry);
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.store.journal.enabled", havingValue = "true")
+    public TradeJournal tradeJournal(@Value("${app.store.journal.directory:data/journal}") String directory,
+                                     @Value("${app.store.journal.segment-size:256MB}") DataSize segmentSize,
+                                     @Value("${app.store.journal.max-segments:8}") int maxSegments,
+                                     @Value("${app.store.journal.fsync:interval}") String fsync,
+                                     @Value("${app.store.journal.fsync-interval:100ms}") Duration fsyncInterval,
+                                     @Value("${app.store.journal.max-batch:1024}") int maxBatch) throws IOException {
+        return new TradeJournal(Paths.get(directory), segmentSize.toBytes(), maxSegments,
+            TradeJournal.FsyncPolicy.valueOf(fsync.toUpperCase(Locale.ROOT)), fsyncInterval, maxBatch);
+    }
+}
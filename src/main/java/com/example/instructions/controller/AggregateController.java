@@ -0,0 +1,96 @@
+package com.example.instructions.controller;
+
+import com.example.instructions.model.PositionSnapshot;
+import com.example.instructions.model.VolumeBucket;
+import com.example.instructions.store.TradeAggregator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/trades/aggregates")
+@Tag(name = "Trade Aggregates", description = "API for positions and volumes of published trades")
+public class AggregateController {
+
+    private final TradeAggregator aggregator;
+
+    @Autowired
+    public AggregateController(TradeAggregator aggregator) {
+        this.aggregator = aggregator;
+    }
+
+    @GetMapping("/accounts")
+    @Operation(summary = "List account positions",
+               description = "Buy, sell and net totals for every masked account")
+    public ResponseEntity<List<PositionSnapshot>> getAccountPositions() {
+        return ResponseEntity.ok(aggregator.getAccountPositions());
+    }
+
+    @GetMapping("/accounts/{maskedAccount}")
+    @Operation(summary = "Get account position",
+               description = "Buy, sell and net totals for one masked account, e.g. ****7890")
+    @ApiResponse(responseCode = "200", description = "Position found")
+    @ApiResponse(responseCode = "404", description = "No published trades for the account")
+    public ResponseEntity<PositionSnapshot> getAccountPosition(@PathVariable String maskedAccount) {
+        PositionSnapshot position = aggregator.getAccountPosition(maskedAccount);
+        if (position != null) {
+            return ResponseEntity.ok(position);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/securities")
+    @Operation(summary = "List security positions",
+               description = "Buy, sell and net totals for every security")
+    public ResponseEntity<List<PositionSnapshot>> getSecurityPositions() {
+        return ResponseEntity.ok(aggregator.getSecurityPositions());
+    }
+
+    @GetMapping("/securities/{securityId}")
+    @Operation(summary = "Get security position",
+               description = "Buy, sell and net totals for one security")
+    @ApiResponse(responseCode = "200", description = "Position found")
+    @ApiResponse(responseCode = "404", description = "No published trades for the security")
+    public ResponseEntity<PositionSnapshot> getSecurityPosition(@PathVariable String securityId) {
+        PositionSnapshot position = aggregator.getSecurityPosition(securityId);
+        if (position != null) {
+            return ResponseEntity.ok(position);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/volumes")
+    @Operation(summary = "Get volumes over time",
+               description = "Per-side volumes by trade timestamp (UTC), one entry per non-empty bucket. "
+                   + "Defaults to the last hour.")
+    @ApiResponse(responseCode = "200", description = "Volumes returned")
+    @ApiResponse(responseCode = "400", description = "from is not before to")
+    public ResponseEntity<Map<String, Object>> getVolumes(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now(ZoneOffset.UTC).plus(aggregator.getBucketSize());
+        LocalDateTime start = from != null ? from : end.minusHours(1);
+        if (!start.isBefore(end)) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "from must be before to"));
+        }
+
+        List<VolumeBucket> buckets = aggregator.getVolumes(start, end);
+        Map<String, Object> response = new HashMap<>();
+        response.put("bucketSeconds", aggregator.getBucketSize().getSeconds());
+        response.put("buckets", buckets);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.instructions.controller;
+
+import com.example.instructions.service.DeadLetterReplayService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/trades/dead-letters")
+@Tag(name = "Dead Letters", description = "API for replaying parked trade instructions")
+public class DeadLetterController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterController.class);
+
+    private final DeadLetterReplayService replayService;
+
+    @Value("${app.kafka.dead-letter.replay-rate:50}")
+    private double defaultRate;
+
+    @Autowired
+    public DeadLetterController(DeadLetterReplayService replayService) {
+        this.replayService = replayService;
+    }
+
+    @PostMapping("/replay")
+    @Operation(summary = "Replay parked trades",
+               description = "Re-drive records from the dead-letter topic through the trade pipeline at a limited rate")
+    @ApiResponse(responseCode = "200", description = "Replay finished")
+    @ApiResponse(responseCode = "400", description = "Invalid limit or rate")
+    @ApiResponse(responseCode = "409", description = "Another replay is running")
+    public ResponseEntity<Map<String, Object>> replay(@RequestParam(defaultValue = "1000") int limit,
+                                                      @RequestParam(required = false) Double rate) {
+        double ratePerSecond = rate != null ? rate : defaultRate;
+        if (limit <= 0 || ratePerSecond <= 0) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "limit and rate must be positive"));
+        }
+
+        try {
+            DeadLetterReplayService.ReplayResult result = replayService.replay(limit, ratePerSecond);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("replayed", result.getReplayed());
+            response.put("accepted", result.getAccepted());
+            response.put("reparked", result.getReparked());
+            return ResponseEntity.ok(response);
+
+        } catch (DeadLetterReplayService.ReplayInProgressException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error replaying dead letters: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Replay failed: " + e.getMessage()));
+        }
+    }
+}
@@ -1,25 +1,33 @@
 package com.example.instructions.controller;
 
 import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.TradePage;
+import com.example.instructions.service.FirehoseService;
+import com.example.instructions.service.StreamingIngestionService;
 import com.example.instructions.service.TradeService;
-import com.fasterxml.jackson.databind.MappingIterator;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.csv.CsvMapper;
-import com.fasterxml.jackson.dataformat.csv.CsvSchema;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.example.instructions.util.ConcurrencyLimiter;
+import com.example.instructions.util.TradeFileReader;
+import com.example.instructions.util.TradeIterator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,16 +39,29 @@ public class TradeController {
 
     private static final Logger logger = LoggerFactory.getLogger(TradeController.class);
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final TradeService tradeService;
-    private final ObjectMapper objectMapper;
-    private final CsvMapper csvMapper;
+    private final TradeFileReader tradeFileReader;
+    private final StreamingIngestionService streamingIngestionService;
+    private final FirehoseService firehoseService;
+    private final ConcurrencyLimiter singleTradeLimiter;
+    private final ConcurrencyLimiter firehoseLimiter;
 
     @Autowired
-    public TradeController(TradeService tradeService, ObjectMapper objectMapper) {
+    public TradeController(TradeService tradeService, TradeFileReader tradeFileReader,
+                           StreamingIngestionService streamingIngestionService,
+                           FirehoseService firehoseService,
+                           @Qualifier("singleTradeLimiter") ConcurrencyLimiter singleTradeLimiter,
+                           @Qualifier("firehoseLimiter") ConcurrencyLimiter firehoseLimiter) {
         this.tradeService = tradeService;
-        this.objectMapper = objectMapper;
-        this.csvMapper = new CsvMapper();
-        this.csvMapper.registerModule(new JavaTimeModule());
+        this.tradeFileReader = tradeFileReader;
+        this.streamingIngestionService = streamingIngestionService;
+        this.firehoseService = firehoseService;
+        this.singleTradeLimiter = singleTradeLimiter;
+        this.firehoseLimiter = firehoseLimiter;
     }
 
     @PostMapping("/upload")
@@ -61,17 +82,14 @@ public class TradeController {
                 .body(Map.of("error", "Invalid filename"));
         }
 
+        TradeFileReader.Format format = TradeFileReader.Format.fromFilename(filename);
+        if (format == null) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "Unsupported file format. Only CSV, JSON and NDJSON are supported."));
+        }
+
         try {
-            List<String> processedTradeIds = new ArrayList<>();
-            
-            if (filename.toLowerCase().endsWith(".csv")) {
-                processedTradeIds = processCsvFile(file);
-            } else if (filename.toLowerCase().endsWith(".json")) {
-                processedTradeIds = processJsonFile(file);
-            } else {
-                return ResponseEntity.badRequest()
-                    .body(Map.of("error", "Unsupported file format. Only CSV and JSON are supported."));
-            }
+            List<String> processedTradeIds = processFile(file, format);
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "File processed successfully");
@@ -87,14 +105,85 @@ public class TradeController {
         }
     }
 
+    @PostMapping(value = "/upload/stream", produces = "application/x-ndjson")
+    @Operation(summary = "Upload trade instructions file in streaming mode",
+               description = "Upload a CSV, JSON array or NDJSON file of any size. Records are processed in " +
+                             "bounded chunks and one NDJSON result line is streamed back per record, " +
+                             "followed by a summary line.")
+    @ApiResponse(responseCode = "200", description = "File accepted; per-record results are streamed")
+    @ApiResponse(responseCode = "400", description = "Invalid file format")
+    public ResponseEntity<?> uploadFileStreaming(@RequestParam("file") MultipartFile file) throws IOException {
+
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "File is empty"));
+        }
+
+        TradeFileReader.Format format = TradeFileReader.Format.fromFilename(file.getOriginalFilename());
+        if (format == null) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "Unsupported file format. Only CSV, JSON and NDJSON are supported."));
+        }
+
+        InputStream inputStream = file.getInputStream();
+        StreamingResponseBody body = outputStream -> {
+            try (TradeIterator trades = tradeFileReader.read(inputStream, format)) {
+                streamingIngestionService.ingest(trades, outputStream);
+            } finally {
+                inputStream.close();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    @PostMapping(value = "/stream", consumes = "application/x-ndjson", produces = "application/x-ndjson")
+    @Operation(summary = "Submit a continuous stream of trade instructions",
+               description = "Send any number of trades over one connection as an NDJSON request body. Trades are " +
+                             "processed as they arrive and one NDJSON result line is streamed back per record once " +
+                             "it is published, followed by a summary line when the request body ends. The client " +
+                             "must read results while it is still sending.")
+    @ApiResponse(responseCode = "200", description = "Stream accepted; per-record results are streamed")
+    @ApiResponse(responseCode = "503", description = "Too many open streams")
+    public ResponseEntity<?> streamTrades(HttpServletRequest request) throws IOException {
+        try {
+            firehoseLimiter.acquire();
+        } catch (ConcurrencyLimiter.LimitExceededException e) {
+            logger.warn("Rejected trade stream: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "Service busy: " + e.getMessage()));
+        }
+
+        InputStream inputStream;
+        try {
+            inputStream = request.getInputStream();
+        } catch (IOException | RuntimeException e) {
+            firehoseLimiter.release();
+            throw e;
+        }
+        StreamingResponseBody body = outputStream -> {
+            try {
+                firehoseService.stream(inputStream, outputStream);
+            } finally {
+                firehoseLimiter.release();
+            }
+        };
+
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
     @PostMapping("/single")
     @Operation(summary = "Process single trade instruction", 
-               description = "Process a single trade instruction via JSON payload")
+               description = "Process a single trade instruction via JSON payload. A repeat of a recent trade, "
+                   + "by content or by Idempotency-Key header, returns the original trade ID without publishing again")
     @ApiResponse(responseCode = "200", description = "Trade processed successfully")
     @ApiResponse(responseCode = "400", description = "Invalid trade data")
-    public ResponseEntity<Map<String, Object>> processSingleTrade(@Valid @RequestBody CanonicalTrade trade) {
+    @ApiResponse(responseCode = "503", description = "Too many concurrent requests")
+    public ResponseEntity<Map<String, Object>> processSingleTrade(
+            @Valid @RequestBody CanonicalTrade trade,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            String tradeId = tradeService.processTrade(trade);
+            String tradeId = singleTradeLimiter.execute(() -> tradeService.processTrade(trade, idempotencyKey));
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Trade processed successfully");
@@ -102,6 +191,10 @@ public class TradeController {
             
             return ResponseEntity.ok(response);
             
+        } catch (ConcurrencyLimiter.LimitExceededException e) {
+            logger.warn("Rejected single trade: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "Service busy: " + e.getMessage()));
         } catch (Exception e) {
             logger.error("Error processing single trade: {}", e.getMessage(), e);
             return ResponseEntity.badRequest()
@@ -121,41 +214,55 @@ public class TradeController {
         }
     }
 
+    @GetMapping("/query")
+    @Operation(summary = "Query stored trades",
+               description = "Page through stored canonical trades by security, masked account and "
+                   + "timestamp range [from, to), oldest first. Pass nextCursor back as cursor for the next page.")
+    @ApiResponse(responseCode = "200", description = "Page of trades")
+    @ApiResponse(responseCode = "400", description = "Invalid limit or cursor")
+    @ApiResponse(responseCode = "501", description = "Trade store indexes are disabled")
+    public ResponseEntity<Map<String, Object>> queryTrades(
+            @RequestParam(required = false) String securityId,
+            @RequestParam(required = false) String account,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+
+        try {
+            TradePage page = tradeService.queryTrades(securityId, account, from, to, cursor, limit);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("trades", page.getTrades());
+            response.put("nextCursor", page.getNextCursor());
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        } catch (UnsupportedOperationException e) {
+            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED)
+                .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/stats")
     @Operation(summary = "Get processing statistics", 
                description = "Get current processing statistics")
     public ResponseEntity<Map<String, Object>> getStats() {
         Map<String, Object> stats = new HashMap<>();
         stats.put("storedTradeCount", tradeService.getStoredTradeCount());
+        stats.put("store", tradeService.getStoreStats());
         return ResponseEntity.ok(stats);
     }
 
-    private List<String> processCsvFile(MultipartFile file) throws IOException {
-        CsvSchema schema = CsvSchema.emptySchema().withHeader();
-        MappingIterator<CanonicalTrade> iterator = csvMapper
-            .readerFor(CanonicalTrade.class)
-            .with(schema)
-            .readValues(file.getInputStream());
-
-        List<String> tradeIds = new ArrayList<>();
-        while (iterator.hasNext()) {
-            CanonicalTrade trade = iterator.next();
-            String tradeId = tradeService.processTrade(trade);
-            tradeIds.add(tradeId);
+    private List<String> processFile(MultipartFile file, TradeFileReader.Format format) throws IOException {
+        try (TradeIterator iterator = tradeFileReader.read(file.getInputStream(), format)) {
+            return streamingIngestionService.ingestAll(iterator);
         }
-        
-        return tradeIds;
-    }
-
-    private List<String> processJsonFile(MultipartFile file) throws IOException {
-        CanonicalTrade[] trades = objectMapper.readValue(file.getInputStream(), CanonicalTrade[].class);
-        
-        List<String> tradeIds = new ArrayList<>();
-        for (CanonicalTrade trade : trades) {
-            String tradeId = tradeService.processTrade(trade);
-            tradeIds.add(tradeId);
-        }
-        
-        return tradeIds;
     }
 }
\ No newline at end of file
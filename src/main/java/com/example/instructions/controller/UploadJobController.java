@@ -0,0 +1,142 @@
+package com.example.instructions.controller;
+
+import com.example.instructions.model.TradeResultPage;
+import com.example.instructions.model.UploadJob;
+import com.example.instructions.service.UploadJobService;
+import com.example.instructions.util.TradeFileReader;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/trades/jobs")
+@Tag(name = "Upload Jobs", description = "API for processing trade files asynchronously")
+public class UploadJobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadJobController.class);
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final UploadJobService uploadJobService;
+
+    @Value("${app.jobs.progress-interval:1s}")
+    private Duration progressInterval;
+
+    @Autowired
+    public UploadJobController(UploadJobService uploadJobService) {
+        this.uploadJobService = uploadJobService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Submit trade instructions file as a job",
+               description = "Spool a CSV, JSON or NDJSON file to disk and process it in the background. "
+                   + "Returns the job immediately; poll or stream its progress and page through its results.")
+    @ApiResponse(responseCode = "202", description = "Job queued")
+    @ApiResponse(responseCode = "400", description = "Invalid file format")
+    @ApiResponse(responseCode = "503", description = "Too many queued jobs")
+    public ResponseEntity<?> submitJob(@RequestParam("file") MultipartFile file) {
+
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "File is empty"));
+        }
+
+        TradeFileReader.Format format = TradeFileReader.Format.fromFilename(file.getOriginalFilename());
+        if (format == null) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "Unsupported file format. Only CSV, JSON and NDJSON are supported."));
+        }
+
+        try {
+            UploadJob job = uploadJobService.submit(file, format);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+
+        } catch (RejectedExecutionException e) {
+            logger.warn("Rejected upload job: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "Service busy: " + e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error spooling upload job: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to spool file: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Get upload job", description = "Status and record counts of an upload job")
+    public ResponseEntity<UploadJob> getJob(@PathVariable String jobId) {
+        UploadJob job = uploadJobService.getJob(jobId);
+        if (job != null) {
+            return ResponseEntity.ok(job);
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping(value = "/{jobId}/progress", produces = "application/x-ndjson")
+    @Operation(summary = "Stream upload job progress",
+               description = "Streams the job's status as one NDJSON line per progress interval until it finishes")
+    @ApiResponse(responseCode = "200", description = "Progress lines are streamed")
+    @ApiResponse(responseCode = "404", description = "No such job")
+    public ResponseEntity<StreamingResponseBody> streamProgress(@PathVariable String jobId) {
+        if (uploadJobService.getJob(jobId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = outputStream ->
+            uploadJobService.streamProgress(jobId, outputStream, progressInterval);
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    @GetMapping("/{jobId}/results")
+    @Operation(summary = "Page through upload job results",
+               description = "Per-record results in input order. Pass nextCursor back as cursor for the next page; "
+                   + "it is null once the job has finished and every result has been returned.")
+    @ApiResponse(responseCode = "200", description = "Page of results")
+    @ApiResponse(responseCode = "400", description = "Invalid limit or cursor")
+    @ApiResponse(responseCode = "404", description = "No such job")
+    public ResponseEntity<Map<String, Object>> getResults(@PathVariable String jobId,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "100") int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+
+        try {
+            TradeResultPage page = uploadJobService.getResults(jobId, cursor, limit);
+            if (page == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("results", page.getResults());
+            response.put("nextCursor", page.getNextCursor());
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error reading results of upload job {}: {}", jobId, e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to read results: " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.instructions.metrics;
+
+import com.example.instructions.util.SpillFile;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meters for the trade pipeline. Every timer and counter is registered up front and kept
+ * in an {@link EnumMap}, so recording on the hot path is a plain lookup and an atomic
+ * update with no tag objects allocated. Timers publish a fixed-bucket percentile
+ * histogram, percentiles are computed on the Prometheus side.
+ */
+@Component
+public class TradeMetrics {
+
+    public enum Stage {
+        PARSE, NORMALIZE, STORE, SERIALIZE, PUBLISH_ACK
+    }
+
+    /**
+     * Why a trade did not make it through the pipeline. Input problems count as rejected,
+     * everything else as failed.
+     */
+    public enum Reason {
+        PARSE(true), INVALID(true), SERIALIZATION(false), STORE(false), PUBLISH(false), INTERNAL(false);
+
+        private final boolean rejection;
+
+        Reason(boolean rejection) {
+            this.rejection = rejection;
+        }
+
+        public boolean isRejection() {
+            return rejection;
+        }
+
+        public String outcome() {
+            return rejection ? "rejected" : "failed";
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<Reason, Counter> failureCounters = new EnumMap<>(Reason.class);
+    private final Counter acceptedCounter;
+    private final Counter spilledCounter;
+    private final Counter duplicateCounter;
+    private final Map<TopicPartition, AtomicLong> consumerLag = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TradeMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("trade.pipeline.stage")
+                .description("Time spent per trade in each pipeline stage")
+                .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                .publishPercentileHistogram()
+                .register(registry));
+        }
+        this.acceptedCounter = Counter.builder("trade.pipeline.trades")
+            .description("Trades by outcome")
+            .tag("outcome", "accepted")
+            .tag("reason", "none")
+            .register(registry);
+        this.duplicateCounter = Counter.builder("trade.pipeline.trades")
+            .description("Trades by outcome")
+            .tag("outcome", "duplicate")
+            .tag("reason", "none")
+            .register(registry);
+        this.spilledCounter = Counter.builder("trade.publish.spilled")
+            .description("Failed sends written to the spill file for redelivery")
+            .register(registry);
+        for (Reason reason : Reason.values()) {
+            failureCounters.put(reason, Counter.builder("trade.pipeline.trades")
+                .description("Trades by outcome")
+                .tag("outcome", reason.outcome())
+                .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                .register(registry));
+        }
+    }
+
+    /**
+     * Metrics that are recorded nowhere, for components constructed outside Spring.
+     */
+    public static TradeMetrics noop() {
+        return new TradeMetrics(new CompositeMeterRegistry());
+    }
+
+    public void recordStage(Stage stage, long nanos) {
+        stageTimers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts trades that passed validation and were handed to the publisher. Publish
+     * failures of those trades are counted separately under {@link Reason#PUBLISH}.
+     */
+    public void recordAccepted(int count) {
+        acceptedCounter.increment(count);
+    }
+
+    /**
+     * Counts trades recognised as repeats of an earlier trade and not published again.
+     */
+    public void recordDuplicate() {
+        duplicateCounter.increment();
+    }
+
+    public void recordFailure(Reason reason) {
+        failureCounters.get(reason).increment();
+    }
+
+    public void recordSpilled() {
+        spilledCounter.increment();
+    }
+
+    /**
+     * Maps an exception thrown by a stage to a reason: bad input during normalization is
+     * a rejection, anything else is a failure of that stage.
+     */
+    public static Reason reasonFor(Stage stage, Throwable e) {
+        switch (stage) {
+            case PARSE:
+                return Reason.PARSE;
+            case NORMALIZE:
+                return e instanceof IllegalArgumentException || e instanceof NullPointerException
+                    ? Reason.INVALID : Reason.INTERNAL;
+            case SERIALIZE:
+                return e instanceof JsonProcessingException || e instanceof UncheckedIOException
+                    ? Reason.SERIALIZATION : Reason.INTERNAL;
+            case STORE:
+                return Reason.STORE;
+            default:
+                return Reason.PUBLISH;
+        }
+    }
+
+    /**
+     * Registers the gauge for sends that have not been acknowledged by the broker yet.
+     */
+    public void bindPublishInFlight(AtomicInteger inFlight) {
+        Gauge.builder("trade.publish.in-flight", inFlight, AtomicInteger::get)
+            .description("Kafka sends awaiting acknowledgement")
+            .register(registry);
+    }
+
+    public void bindSpillPending(SpillFile spillFile) {
+        Gauge.builder("trade.publish.spill.pending", spillFile, SpillFile::getPendingCount)
+            .description("Spilled sends waiting for redelivery")
+            .register(registry);
+    }
+
+    /**
+     * Updates the lag of one consumed partition; a gauge is registered the first time a
+     * partition is seen.
+     */
+    public void recordConsumerLag(TopicPartition partition, long lag) {
+        consumerLag.computeIfAbsent(partition, tp -> {
+            AtomicLong value = new AtomicLong();
+            Gauge.builder("trade.consumer.lag", value, AtomicLong::get)
+                .description("Records between the consumer position and the end of the partition")
+                .tag("topic", tp.topic())
+                .tag("partition", Integer.toString(tp.partition()))
+                .register(registry);
+            return value;
+        }).set(lag);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.instructions.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+/**
+ * Point-in-time totals of published trades for one masked account or security.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PositionSnapshot {
+
+    private final String key;
+
+    @JsonProperty("buy_count")
+    private final long buyCount;
+
+    @JsonProperty("buy_amount")
+    private final BigDecimal buyAmount;
+
+    @JsonProperty("sell_count")
+    private final long sellCount;
+
+    @JsonProperty("sell_amount")
+    private final BigDecimal sellAmount;
+
+    @JsonProperty("net_amount")
+    private final BigDecimal netAmount;
+
+    public PositionSnapshot(String key, long buyCount, BigDecimal buyAmount,
+                            long sellCount, BigDecimal sellAmount, BigDecimal netAmount) {
+        this.key = key;
+        this.buyCount = buyCount;
+        this.buyAmount = buyAmount;
+        this.sellCount = sellCount;
+        this.sellAmount = sellAmount;
+        this.netAmount = netAmount;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getBuyCount() {
+        return buyCount;
+    }
+
+    public BigDecimal getBuyAmount() {
+        return buyAmount;
+    }
+
+    public long getSellCount() {
+        return sellCount;
+    }
+
+    public BigDecimal getSellAmount() {
+        return sellAmount;
+    }
+
+    public BigDecimal getNetAmount() {
+        return netAmount;
+    }
+
+    @JsonProperty("trade_count")
+    public long getTradeCount() {
+        return buyCount + sellCount;
+    }
+}
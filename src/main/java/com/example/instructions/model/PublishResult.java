@@ -0,0 +1,34 @@
+package com.example.instructions.model;
+
+/**
+ * Where the broker stored a published trade.
+ */
+public class PublishResult {
+
+    private final String topic;
+    private final int partition;
+    private final long offset;
+
+    public PublishResult(String topic, int partition, long offset) {
+        this.topic = topic;
+        this.partition = partition;
+        this.offset = offset;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public String toString() {
+        return topic + "-" + partition + "@" + offset;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.instructions.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * A canonical trade from the audit store together with its trade ID.
+ */
+public class StoredTrade {
+
+    @JsonProperty("trade_id")
+    private final String tradeId;
+
+    @JsonUnwrapped
+    private final CanonicalTrade trade;
+
+    public StoredTrade(String tradeId, CanonicalTrade trade) {
+        this.tradeId = tradeId;
+        this.trade = trade;
+    }
+
+    public String getTradeId() {
+        return tradeId;
+    }
+
+    public CanonicalTrade getTrade() {
+        return trade;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.instructions.model;
+
+import java.util.List;
+
+/**
+ * One page of a trade query, in timestamp order. Pass the next cursor back to get the
+ * following page; it is null on the last page.
+ */
+public class TradePage {
+
+    private final List<StoredTrade> trades;
+    private final String nextCursor;
+
+    public TradePage(List<StoredTrade> trades, String nextCursor) {
+        this.trades = trades;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<StoredTrade> getTrades() {
+        return trades;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.instructions.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TradeResult {
+
+    private long index;
+
+    @JsonProperty("trade_id")
+    private String tradeId;
+
+    private String error;
+
+    // Set when the trade repeats an earlier one; trade_id is then the earlier trade's ID
+    private Boolean duplicate;
+
+    // Failed for a reason other than the trade itself, so processing it again may succeed
+    @JsonIgnore
+    private boolean retryable;
+
+    public TradeResult() {}
+
+    public TradeResult(long index, String tradeId, String error) {
+        this.index = index;
+        this.tradeId = tradeId;
+        this.error = error;
+    }
+
+    public static TradeResult accepted(long index, String tradeId) {
+        return new TradeResult(index, tradeId, null);
+    }
+
+    public static TradeResult rejected(long index, String error) {
+        return new TradeResult(index, null, error);
+    }
+
+    public static TradeResult duplicate(long index, String originalTradeId) {
+        TradeResult result = new TradeResult(index, originalTradeId, null);
+        result.duplicate = Boolean.TRUE;
+        return result;
+    }
+
+    public static TradeResult failed(long index, String tradeId, String error) {
+        TradeResult result = new TradeResult(index, tradeId, error);
+        result.retryable = true;
+        return result;
+    }
+
+    @JsonIgnore
+    public boolean isAccepted() {
+        return error == null;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public String getTradeId() {
+        return tradeId;
+    }
+
+    public void setTradeId(String tradeId) {
+        this.tradeId = tradeId;
+    }
+
+    public Boolean getDuplicate() {
+        return duplicate;
+    }
+
+    @JsonIgnore
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.instructions.model;
+
+import java.util.List;
+
+/**
+ * One page of an upload job's per-record results, in input order. The next cursor is null
+ * once the job has finished and every result has been returned.
+ */
+public class TradeResultPage {
+
+    private final List<TradeResult> results;
+    private final String nextCursor;
+
+    public TradeResultPage(List<TradeResult> results, String nextCursor) {
+        this.results = results;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TradeResult> getResults() {
+        return results;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
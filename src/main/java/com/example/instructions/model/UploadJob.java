@@ -0,0 +1,195 @@
+package com.example.instructions.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Instant;
+
+/**
+ * State of an asynchronous upload job, as reported to clients and checkpointed to disk.
+ * The counters, {@code rowsProcessed} and {@code resultsOffset} of a checkpoint always
+ * describe the same prefix of the file, so a job can resume from them after a restart.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UploadJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED;
+        }
+    }
+
+    @JsonProperty("job_id")
+    private String jobId;
+
+    private String filename;
+
+    private String format;
+
+    private Status status;
+
+    @JsonProperty("created_at")
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Instant createdAt;
+
+    @JsonProperty("finished_at")
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Instant finishedAt;
+
+    // Records read from the file, which runs ahead of the records with results
+    @JsonProperty("rows_parsed")
+    private long rowsParsed;
+
+    @JsonProperty("rows_processed")
+    private long rowsProcessed;
+
+    // Records given a trade ID, including repeats and trades spilled for redelivery
+    private long accepted;
+
+    // Records that failed validation
+    private long rejected;
+
+    // Valid records that could not be processed or published, and may be submitted again
+    private long failed;
+
+    // Records whose trade the broker acknowledged
+    @JsonProperty("published_acked")
+    private long publishedAcked;
+
+    // Length of the results file holding the results of the first rowsProcessed records
+    @JsonProperty("results_offset")
+    private long resultsOffset;
+
+    private String error;
+
+    public UploadJob() {}
+
+    public UploadJob(String jobId, String filename, String format, Instant createdAt) {
+        this.jobId = jobId;
+        this.filename = filename;
+        this.format = format;
+        this.status = Status.QUEUED;
+        this.createdAt = createdAt;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status != null && status.isFinished();
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public long getRowsParsed() {
+        return rowsParsed;
+    }
+
+    public void setRowsParsed(long rowsParsed) {
+        this.rowsParsed = rowsParsed;
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed;
+    }
+
+    public void setRowsProcessed(long rowsProcessed) {
+        this.rowsProcessed = rowsProcessed;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(long accepted) {
+        this.accepted = accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getPublishedAcked() {
+        return publishedAcked;
+    }
+
+    public void setPublishedAcked(long publishedAcked) {
+        this.publishedAcked = publishedAcked;
+    }
+
+    public long getResultsOffset() {
+        return resultsOffset;
+    }
+
+    public void setResultsOffset(long resultsOffset) {
+        this.resultsOffset = resultsOffset;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.instructions.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Buy and sell volumes of published trades whose timestamps fall in one time bucket.
+ */
+public class VolumeBucket {
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private final LocalDateTime start;
+
+    @JsonProperty("buy_count")
+    private final long buyCount;
+
+    @JsonProperty("buy_amount")
+    private final BigDecimal buyAmount;
+
+    @JsonProperty("sell_count")
+    private final long sellCount;
+
+    @JsonProperty("sell_amount")
+    private final BigDecimal sellAmount;
+
+    public VolumeBucket(LocalDateTime start, long buyCount, BigDecimal buyAmount,
+                        long sellCount, BigDecimal sellAmount) {
+        this.start = start;
+        this.buyCount = buyCount;
+        this.buyAmount = buyAmount;
+        this.sellCount = sellCount;
+        this.sellAmount = sellAmount;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public long getBuyCount() {
+        return buyCount;
+    }
+
+    public BigDecimal getBuyAmount() {
+        return buyAmount;
+    }
+
+    public long getSellCount() {
+        return sellCount;
+    }
+
+    public BigDecimal getSellAmount() {
+        return sellAmount;
+    }
+}
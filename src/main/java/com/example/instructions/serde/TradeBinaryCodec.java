@@ -0,0 +1,262 @@
+package com.example.instructions.serde;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.PlatformTrade;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding of trades. A payload is the magic byte, the varint
+ * {@link TradeSchema} ID and the fields of that schema in order, with no field names or
+ * padding; a trade takes well under half the bytes of its JSON form.
+ *
+ * <p>Encoding writes straight into one growing array and decoding reads fields in place,
+ * so neither builds a tree or looks up property names.
+ */
+public final class TradeBinaryCodec {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private TradeBinaryCodec() {
+    }
+
+    public static byte[] encode(CanonicalTrade trade) {
+        Writer writer = new Writer(TradeSchema.CANONICAL_TRADE_V1);
+        writer.string(trade.getAccountNumber());
+        writer.string(trade.getSecurityId());
+        writer.string(trade.getTradeType());
+        writer.decimal(trade.getAmount());
+        writer.timestamp(trade.getTimestamp());
+        return writer.toByteArray();
+    }
+
+    public static byte[] encode(PlatformTrade trade) {
+        Writer writer = new Writer(TradeSchema.PLATFORM_TRADE_V1);
+        writer.string(trade.getPlatformId());
+        PlatformTrade.TradeDetails details = trade.getTrade();
+        writer.presence(details != null);
+        if (details != null) {
+            writer.string(details.getAccount());
+            writer.string(details.getSecurity());
+            writer.string(details.getType());
+            writer.decimal(details.getAmount());
+            writer.string(details.getTimestamp());
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the payload is not a binary canonical trade
+     */
+    public static CanonicalTrade decodeCanonicalTrade(byte[] payload) {
+        Reader reader = new Reader(payload, TradeSchema.CANONICAL_TRADE_V1);
+        CanonicalTrade trade = new CanonicalTrade(reader.string(), reader.string(), reader.string(),
+            reader.decimal(), reader.timestamp());
+        reader.end();
+        return trade;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the payload is not a binary platform trade
+     */
+    public static PlatformTrade decodePlatformTrade(byte[] payload) {
+        Reader reader = new Reader(payload, TradeSchema.PLATFORM_TRADE_V1);
+        String platformId = reader.string();
+        PlatformTrade.TradeDetails details = null;
+        if (reader.presence()) {
+            details = new PlatformTrade.TradeDetails(reader.string(), reader.string(), reader.string(),
+                reader.decimal(), reader.string());
+        }
+        reader.end();
+        return new PlatformTrade(platformId, details);
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer = new byte[INITIAL_CAPACITY];
+        private int position;
+
+        Writer(TradeSchema schema) {
+            buffer[position++] = WireFormat.MAGIC;
+            varint(schema.getId());
+        }
+
+        void presence(boolean present) {
+            ensure(1);
+            buffer[position++] = (byte) (present ? 1 : 0);
+        }
+
+        void string(String value) {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            if (isAscii(value)) {
+                // The common case: one byte per char, no intermediate array
+                varint(value.length() + 1);
+                ensure(value.length());
+                for (int i = 0; i < value.length(); i++) {
+                    buffer[position++] = (byte) value.charAt(i);
+                }
+            } else {
+                bytes(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        void decimal(BigDecimal value) {
+            if (value == null) {
+                varint(0);
+                varint(0);
+                return;
+            }
+            varint(zigzag(value.scale()));
+            bytes(value.unscaledValue().toByteArray());
+        }
+
+        void timestamp(LocalDateTime value) {
+            presence(value != null);
+            if (value != null) {
+                varint(zigzag(value.toEpochSecond(ZoneOffset.UTC)));
+                varint(value.getNano());
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void bytes(byte[] value) {
+            varint(value.length + 1);
+            ensure(value.length);
+            System.arraycopy(value, 0, buffer, position, value.length);
+            position += value.length;
+        }
+
+        private void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void ensure(int bytes) {
+            if (position + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+            }
+        }
+
+        private static boolean isAscii(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) > 0x7F) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] payload, TradeSchema expected) {
+            this.buffer = payload;
+            if (payload == null || payload.length == 0 || payload[0] != WireFormat.MAGIC) {
+                throw new IllegalArgumentException("Not a binary trade payload");
+            }
+            position = 1;
+            TradeSchema schema = TradeSchema.forId((int) varint());
+            if (schema != expected) {
+                throw new IllegalArgumentException("Expected schema " + expected + " but found " + schema);
+            }
+        }
+
+        boolean presence() {
+            return next() != 0;
+        }
+
+        String string() {
+            int length = length();
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        BigDecimal decimal() {
+            int scale = (int) unzigzag(varint());
+            byte[] unscaled = bytes();
+            return unscaled == null ? null : new BigDecimal(new BigInteger(unscaled), scale);
+        }
+
+        LocalDateTime timestamp() {
+            if (!presence()) {
+                return null;
+            }
+            long epochSecond = unzigzag(varint());
+            return LocalDateTime.ofEpochSecond(epochSecond, (int) varint(), ZoneOffset.UTC);
+        }
+
+        void end() {
+            if (position != buffer.length) {
+                throw new IllegalArgumentException((buffer.length - position) + " unexpected trailing bytes");
+            }
+        }
+
+        private byte[] bytes() {
+            int length = length();
+            if (length < 0) {
+                return null;
+            }
+            byte[] value = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return value;
+        }
+
+        // Length of the next string or byte field, or -1 for null
+        private int length() {
+            long length = varint() - 1;
+            if (length < -1 || length > buffer.length - position) {
+                throw new IllegalArgumentException("Truncated binary trade payload");
+            }
+            return (int) length;
+        }
+
+        private long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = next();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in binary trade payload");
+        }
+
+        private byte next() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("Truncated binary trade payload");
+            }
+            return buffer[position++];
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
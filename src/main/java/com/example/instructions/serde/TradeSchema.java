@@ -0,0 +1,48 @@
+package com.example.instructions.serde;
+
+/**
+ * Local stand-in for a schema registry: the binary layouts known to this service, by the
+ * schema ID written after the magic byte. A layout is never changed once released; a new
+ * version gets a new ID, and readers keep decoding the old ones.
+ *
+ * <p>Field types used in the layouts:
+ * <ul>
+ *   <li>string: unsigned varint of the UTF-8 length plus one, 0 for null, then the bytes</li>
+ *   <li>decimal: zigzag varint scale, then the unscaled value as a string of two's-complement
+ *       big-endian bytes (length 0 for null)</li>
+ *   <li>timestamp: one presence byte, then zigzag varint epoch seconds (UTC) and varint nanos</li>
+ * </ul>
+ */
+public enum TradeSchema {
+
+    /**
+     * {@code CanonicalTrade}: account number, security ID, trade type (strings), amount
+     * (decimal), timestamp.
+     */
+    CANONICAL_TRADE_V1(1),
+
+    /**
+     * {@code PlatformTrade}: platform ID (string), one presence byte for the trade details,
+     * then account, security, type (strings), amount (decimal) and timestamp (string).
+     */
+    PLATFORM_TRADE_V1(2);
+
+    private final int id;
+
+    TradeSchema(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public static TradeSchema forId(int id) {
+        for (TradeSchema schema : values()) {
+            if (schema.id == id) {
+                return schema;
+            }
+        }
+        throw new IllegalArgumentException("Unknown trade schema ID: " + id);
+    }
+}
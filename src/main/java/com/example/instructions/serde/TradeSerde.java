@@ -0,0 +1,104 @@
+package com.example.instructions.serde;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.PlatformTrade;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Reads inbound trades and writes outbound trades in the wire format configured for each
+ * topic. Inbound records are decoded by their {@value WireFormat#CONTENT_TYPE_HEADER}
+ * header, or by their first byte when the header is missing, so existing JSON producers
+ * keep working when binary ones are added; {@code app.kafka.serde.inbound} can restrict
+ * the topic to one format. Outbound trades are written in {@code app.kafka.serde.outbound}.
+ */
+@Component
+public class TradeSerde {
+
+    private final ObjectReader canonicalTradeReader;
+    // Serializes straight to UTF-8 bytes using Jackson's recycled per-thread buffers
+    private final ObjectWriter platformTradeWriter;
+    // null accepts both formats
+    private final WireFormat inboundFormat;
+    private final WireFormat outboundFormat;
+
+    /**
+     * JSON in and out.
+     */
+    public TradeSerde(ObjectMapper objectMapper) {
+        this(objectMapper, null, WireFormat.JSON);
+    }
+
+    @Autowired
+    public TradeSerde(ObjectMapper objectMapper,
+                      @Value("${app.kafka.serde.inbound:auto}") String inboundFormat,
+                      @Value("${app.kafka.serde.outbound:json}") String outboundFormat) {
+        this(objectMapper, "auto".equalsIgnoreCase(inboundFormat) ? null : parse(inboundFormat), parse(outboundFormat));
+    }
+
+    public TradeSerde(ObjectMapper objectMapper, WireFormat inboundFormat, WireFormat outboundFormat) {
+        this.canonicalTradeReader = objectMapper.readerFor(CanonicalTrade.class);
+        this.platformTradeWriter = objectMapper.writerFor(PlatformTrade.class);
+        this.inboundFormat = inboundFormat;
+        this.outboundFormat = outboundFormat;
+    }
+
+    /**
+     * Decodes an inbound trade.
+     *
+     * @param headers the record's headers, or null if it has none
+     * @throws IOException if the payload cannot be decoded or is in a format the topic does not accept
+     */
+    public CanonicalTrade readCanonicalTrade(byte[] payload, Headers headers) throws IOException {
+        WireFormat format = formatOf(payload, headers);
+        if (inboundFormat != null && format != inboundFormat) {
+            throw new IOException("Inbound topic only accepts " + inboundFormat.getContentType()
+                + ", got " + format.getContentType());
+        }
+        if (format == WireFormat.BINARY) {
+            try {
+                return TradeBinaryCodec.decodeCanonicalTrade(payload);
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed binary trade: " + e.getMessage(), e);
+            }
+        }
+        return canonicalTradeReader.readValue(payload);
+    }
+
+    public byte[] writePlatformTrade(PlatformTrade trade) throws IOException {
+        return outboundFormat == WireFormat.BINARY
+            ? TradeBinaryCodec.encode(trade)
+            : platformTradeWriter.writeValueAsBytes(trade);
+    }
+
+    public WireFormat getOutboundFormat() {
+        return outboundFormat;
+    }
+
+    private static WireFormat formatOf(byte[] payload, Headers headers) throws IOException {
+        Header header = headers == null ? null : headers.lastHeader(WireFormat.CONTENT_TYPE_HEADER);
+        if (header == null || header.value() == null) {
+            return WireFormat.detect(payload);
+        }
+        String contentType = new String(header.value(), StandardCharsets.UTF_8);
+        WireFormat format = WireFormat.forContentType(contentType);
+        if (format == null) {
+            throw new IOException("Unsupported content type: " + contentType);
+        }
+        return format;
+    }
+
+    private static WireFormat parse(String format) {
+        return WireFormat.valueOf(format.trim().toUpperCase(Locale.ROOT));
+    }
+}
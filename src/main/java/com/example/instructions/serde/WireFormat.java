@@ -0,0 +1,54 @@
+package com.example.instructions.serde;
+
+import java.util.Locale;
+
+/**
+ * Encodings of trades on Kafka topics, named by the record's {@value #CONTENT_TYPE_HEADER}
+ * header. Binary payloads start with a zero magic byte, which JSON text never does, so
+ * records without the header can still be told apart.
+ */
+public enum WireFormat {
+
+    JSON("application/json"),
+    BINARY("application/vnd.instructions.trade+binary");
+
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+
+    static final byte MAGIC = 0;
+
+    private final String contentType;
+
+    WireFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Format named by a content type, ignoring parameters such as {@code charset}; null if
+     * the content type is not one of ours.
+     */
+    public static WireFormat forContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int parameters = contentType.indexOf(';');
+        String mediaType = (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim()
+            .toLowerCase(Locale.ROOT);
+        for (WireFormat format : values()) {
+            if (format.contentType.equals(mediaType)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Format of a payload judged from its first byte.
+     */
+    public static WireFormat detect(byte[] payload) {
+        return payload != null && payload.length > 0 && payload[0] == MAGIC ? BINARY : JSON;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.instructions.service;
+
+import com.example.instructions.serde.WireFormat;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Parks inbound records that could not be processed. Records that can never succeed go
+ * to the dead-letter topic; records that failed for a transient reason go to the retry
+ * topic, where {@link KafkaListenerService#handleTradeInstructionRetry} works through the
+ * retry chain on its own consumers. Both carry the same error headers that Spring Kafka's
+ * {@code DeadLetterPublishingRecoverer} writes, so parked records look alike whichever
+ * path put them there.
+ *
+ * <p>All records of a call are handed to the producer back to back; the returned future
+ * completes once the broker has acknowledged all of them.
+ */
+@Service
+public class DeadLetterPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterPublisher.class);
+
+    private static final Set<String> EXCEPTION_HEADERS = Set.of(KafkaHeaders.DLT_EXCEPTION_FQCN,
+        KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN, KafkaHeaders.DLT_EXCEPTION_MESSAGE, KafkaHeaders.DLT_EXCEPTION_STACKTRACE);
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Value("${app.kafka.topics.dead-letter}")
+    private String deadLetterTopic;
+
+    @Value("${app.kafka.topics.retry}")
+    private String retryTopic;
+
+    @Autowired
+    public DeadLetterPublisher(KafkaTemplate<String, byte[]> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    /**
+     * A publisher that parks records on the same topics through another template, e.g. a
+     * transactional one.
+     */
+    public DeadLetterPublisher withTemplate(KafkaTemplate<String, byte[]> kafkaTemplate) {
+        DeadLetterPublisher publisher = new DeadLetterPublisher(kafkaTemplate);
+        publisher.deadLetterTopic = deadLetterTopic;
+        publisher.retryTopic = retryTopic;
+        return publisher;
+    }
+
+    /**
+     * An inbound record together with the reason it failed.
+     */
+    public static class FailedRecord {
+
+        private final ConsumerRecord<?, ?> record;
+        private final byte[] value;
+        private final Throwable cause;
+
+        public FailedRecord(ConsumerRecord<?, ?> record, byte[] value, Throwable cause) {
+            this.record = record;
+            this.value = value;
+            this.cause = cause;
+        }
+
+        public static FailedRecord of(ConsumerRecord<String, byte[]> record, Throwable cause) {
+            return new FailedRecord(record, record.value(), cause);
+        }
+
+        public ConsumerRecord<?, ?> getRecord() {
+            return record;
+        }
+    }
+
+    public CompletableFuture<Void> deadLetter(List<FailedRecord> failed) {
+        return publish(deadLetterTopic, failed);
+    }
+
+    public CompletableFuture<Void> retry(List<FailedRecord> failed) {
+        return publish(retryTopic, failed);
+    }
+
+    public String getDeadLetterTopic() {
+        return deadLetterTopic;
+    }
+
+    private CompletableFuture<Void> publish(String topic, List<FailedRecord> failed) {
+        if (failed.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[failed.size()];
+        for (int i = 0; i < failed.size(); i++) {
+            FailedRecord entry = failed.get(i);
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, null,
+                keyOf(entry.record), entry.value);
+            addErrorHeaders(record.headers(), entry);
+            try {
+                sends[i] = kafkaTemplate.send(record);
+            } catch (Exception e) {
+                sends[i] = CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.allOf(sends).whenComplete((ignored, exception) -> {
+            if (exception == null) {
+                logger.debug("Parked {} records on topic: {}", failed.size(), topic);
+            } else {
+                logger.error("Failed to park part of {} records on topic: {}", failed.size(), topic, exception);
+            }
+        });
+    }
+
+    private static String keyOf(ConsumerRecord<?, ?> record) {
+        return record.key() == null ? null : record.key().toString();
+    }
+
+    private static void addErrorHeaders(Headers headers, FailedRecord entry) {
+        ConsumerRecord<?, ?> source = entry.record;
+        if (source.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC) != null) {
+            // A parked record parked again, e.g. by a replay, keeps where it first came from and
+            // its first failure; only the latest failure is added below
+            Set<String> seen = new HashSet<>();
+            for (Header header : source.headers()) {
+                if (!EXCEPTION_HEADERS.contains(header.key()) || seen.add(header.key())) {
+                    headers.add(header);
+                }
+            }
+        } else {
+            // Keeps the parked payload readable in whatever wire format it was sent
+            Header contentType = source.headers().lastHeader(WireFormat.CONTENT_TYPE_HEADER);
+            if (contentType != null) {
+                headers.add(contentType);
+            }
+            headers.add(KafkaHeaders.DLT_ORIGINAL_TOPIC, source.topic().getBytes(StandardCharsets.UTF_8));
+            headers.add(KafkaHeaders.DLT_ORIGINAL_PARTITION,
+                ByteBuffer.allocate(Integer.BYTES).putInt(source.partition()).array());
+            headers.add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(Long.BYTES).putLong(source.offset()).array());
+            headers.add(KafkaHeaders.DLT_ORIGINAL_TIMESTAMP,
+                ByteBuffer.allocate(Long.BYTES).putLong(source.timestamp()).array());
+        }
+        headers.add(KafkaHeaders.DLT_EXCEPTION_FQCN, entry.cause.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        String message = entry.cause.getMessage();
+        if (message != null) {
+            headers.add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, message.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.TradeResult;
+import com.example.instructions.serde.TradeSerde;
+import com.example.instructions.service.DeadLetterPublisher.FailedRecord;
+import com.example.instructions.service.KafkaListenerService.RetryableTradeException;
+import com.example.instructions.service.KafkaListenerService.TradeRejectedException;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Re-drives parked records from the dead-letter topic through {@link TradeService} at a
+ * fixed rate. A replay reads from where the previous one stopped, up to the end of the
+ * topic as it was when the replay started, so records that fail again and are parked
+ * once more are not picked up by the same replay. Offsets are committed after each poll.
+ */
+@Service
+public class DeadLetterReplayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterReplayService.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final TradeService tradeService;
+    private final TradeSerde serde;
+    private final DeadLetterPublisher deadLetterPublisher;
+    private final String groupId;
+    private final ReentrantLock replayLock = new ReentrantLock();
+
+    @Autowired
+    public DeadLetterReplayService(
+            @Qualifier("retryKafkaListenerContainerFactory") ConcurrentKafkaListenerContainerFactory<String, byte[]> factory,
+            TradeService tradeService, TradeSerde serde, DeadLetterPublisher deadLetterPublisher,
+            @Value("${app.kafka.dead-letter.replay-group-id:instructions-dlt-replay}") String groupId) {
+        this.consumerFactory = factory.getConsumerFactory();
+        this.tradeService = tradeService;
+        this.serde = serde;
+        this.deadLetterPublisher = deadLetterPublisher;
+        this.groupId = groupId;
+    }
+
+    public static class ReplayResult {
+
+        private int replayed;
+        private int accepted;
+        private int reparked;
+
+        public int getReplayed() {
+            return replayed;
+        }
+
+        public int getAccepted() {
+            return accepted;
+        }
+
+        public int getReparked() {
+            return reparked;
+        }
+    }
+
+    /**
+     * Replays up to {@code limit} parked records at no more than {@code ratePerSecond}.
+     *
+     * @throws ReplayInProgressException if another replay is running
+     */
+    public ReplayResult replay(int limit, double ratePerSecond) {
+        if (!replayLock.tryLock()) {
+            throw new ReplayInProgressException("A dead-letter replay is already running");
+        }
+        String topic = deadLetterPublisher.getDeadLetterTopic();
+        ReplayResult result = new ReplayResult();
+        try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer(groupId, "dlt-replay")) {
+            List<TopicPartition> partitions = consumer.partitionsFor(topic).stream()
+                .map(info -> new TopicPartition(topic, info.partition()))
+                .collect(Collectors.toList());
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+            long intervalNanos = (long) (1_000_000_000L / ratePerSecond);
+            long nextAt = System.nanoTime();
+            while (result.replayed < limit && !caughtUp(consumer, endOffsets)) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                Map<TopicPartition, OffsetAndMetadata> processed = new HashMap<>();
+                List<FailedRecord> reparked = new ArrayList<>();
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (result.replayed >= limit || record.offset() >= endOffsets.get(partition)) {
+                        continue;
+                    }
+                    long wait = nextAt - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    nextAt = Math.max(nextAt, System.nanoTime() - intervalNanos) + intervalNanos;
+
+                    RuntimeException failure = replayOne(record);
+                    if (failure == null) {
+                        result.accepted++;
+                    } else {
+                        reparked.add(new FailedRecord(record, record.value(), failure));
+                    }
+                    result.replayed++;
+                    processed.put(partition, new OffsetAndMetadata(record.offset() + 1));
+                }
+
+                deadLetterPublisher.deadLetter(reparked).join();
+                result.reparked += reparked.size();
+                if (!processed.isEmpty()) {
+                    consumer.commitSync(processed);
+                }
+                if (records.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            replayLock.unlock();
+        }
+
+        logger.info("Replayed {} dead-letter records from topic: {}, {} accepted, {} parked again",
+                   result.replayed, topic, result.accepted, result.reparked);
+        return result;
+    }
+
+    private RuntimeException replayOne(ConsumerRecord<String, byte[]> record) {
+        CanonicalTrade trade;
+        try {
+            trade = serde.readCanonicalTrade(record.value(), record.headers());
+        } catch (Exception e) {
+            return new TradeRejectedException("Unreadable trade: " + e.getMessage());
+        }
+        try {
+            TradeResult result = tradeService.processTrades(List.of(trade), record.offset()).join().get(0);
+            if (result.isRetryable()) {
+                return new RetryableTradeException(result.getError());
+            }
+            // A trade with an ID was accepted, even if the publisher spilled it for redelivery
+            return result.getTradeId() == null ? new TradeRejectedException(result.getError()) : null;
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private static boolean caughtUp(Consumer<?, ?> consumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            if (consumer.position(end.getKey()) < end.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static class ReplayInProgressException extends RuntimeException {
+        public ReplayInProgressException(String message) {
+            super(message);
+        }
+    }
+}
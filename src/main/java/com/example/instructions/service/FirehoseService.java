@@ -0,0 +1,181 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.TradeResult;
+import com.example.instructions.util.NdjsonLineReader;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Processes a long-lived NDJSON stream of trades from one client and writes back one
+ * result line per record, in input order, as soon as the record's batch has been
+ * published. Trades are grouped into batches of up to {@code max-batch-size} while the
+ * client keeps the input busy; whenever the input runs dry the partial batch is submitted
+ * and every outstanding ack is written before blocking on the next line, so a trickling
+ * client still sees each ack promptly. At most {@code max-in-flight-batches} batches are
+ * buffered, after which reading pauses and TCP backpressure reaches the client.
+ *
+ * <p>Unlike the file upload, a malformed or oversized line is rejected on its own and the
+ * stream carries on. A batch that fails as a whole is acked with one failed result per
+ * record.
+ */
+@Service
+public class FirehoseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirehoseService.class);
+
+    private final TradeService tradeService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader tradeReader;
+    private final int maxBatchSize;
+    private final int maxInFlightBatches;
+    private final int maxRecordBytes;
+
+    @Autowired
+    public FirehoseService(TradeService tradeService, ObjectMapper objectMapper,
+                           @Value("${app.firehose.max-batch-size:256}") int maxBatchSize,
+                           @Value("${app.firehose.max-in-flight-batches:8}") int maxInFlightBatches,
+                           @Value("${app.firehose.max-record-bytes:65536}") int maxRecordBytes) {
+        this.tradeService = tradeService;
+        this.objectMapper = objectMapper;
+        this.tradeReader = objectMapper.readerFor(CanonicalTrade.class);
+        this.maxBatchSize = maxBatchSize;
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.maxRecordBytes = maxRecordBytes;
+    }
+
+    public void stream(InputStream inputStream, OutputStream outputStream) throws IOException {
+        NdjsonLineReader lines = new NdjsonLineReader(inputStream, maxRecordBytes);
+        Deque<CompletableFuture<List<TradeResult>>> inFlight = new ArrayDeque<>();
+        List<CanonicalTrade> batch = new ArrayList<>(maxBatchSize);
+        long[] counts = new long[2];  // processed, rejected
+        long index = 0;
+        long batchStart = 0;
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+
+            while (lines.next()) {
+                if (lines.isOversized() || !lines.isBlank()) {
+                    CanonicalTrade trade = lines.isOversized() ? null : parse(lines);
+                    if (trade != null) {
+                        if (batch.isEmpty()) {
+                            batchStart = index;
+                        }
+                        batch.add(trade);
+                    } else {
+                        // Keep acks in input order by closing the batch ahead of the rejected line
+                        batch = submit(batch, batchStart, inFlight);
+                        String error = lines.isOversized()
+                            ? "Record exceeds " + maxRecordBytes + " bytes"
+                            : "Unreadable record";
+                        inFlight.add(CompletableFuture.completedFuture(List.of(TradeResult.rejected(index, error))));
+                    }
+                    index++;
+                }
+
+                boolean idle = !lines.hasBufferedLine();
+                if (batch.size() >= maxBatchSize || idle) {
+                    batch = submit(batch, batchStart, inFlight);
+                }
+                if (idle) {
+                    writeAll(inFlight, generator, counts);
+                } else {
+                    writeCompleted(inFlight, generator, counts);
+                }
+            }
+
+            submit(batch, batchStart, inFlight);
+            writeAll(inFlight, generator, counts);
+
+            generator.writeStartObject();
+            generator.writeBooleanField("summary", true);
+            generator.writeNumberField("processedCount", counts[0]);
+            generator.writeNumberField("rejectedCount", counts[1]);
+            generator.writeEndObject();
+            generator.flush();
+        }
+
+        logger.info("Firehose stream finished: {} processed, {} rejected", counts[0], counts[1]);
+    }
+
+    private CanonicalTrade parse(NdjsonLineReader lines) {
+        try {
+            return tradeReader.readValue(lines.buffer(), lines.lineStart(), lines.lineLength());
+        } catch (IOException e) {
+            // Parsing from the buffer does no I/O, so this is always malformed JSON
+            return null;
+        }
+    }
+
+    private List<CanonicalTrade> submit(List<CanonicalTrade> batch, long firstIndex,
+                                        Deque<CompletableFuture<List<TradeResult>>> inFlight) {
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        CompletableFuture<List<TradeResult>> results;
+        try {
+            results = tradeService.processTrades(batch, firstIndex);
+        } catch (RuntimeException e) {
+            results = CompletableFuture.failedFuture(e);
+        }
+        int size = batch.size();
+        inFlight.add(results.exceptionally(e -> failed(firstIndex, size, e)));
+        return new ArrayList<>(maxBatchSize);
+    }
+
+    private static List<TradeResult> failed(long firstIndex, int size, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        logger.warn("Firehose batch of {} trades at index {} failed: {}", size, firstIndex, cause.getMessage());
+        List<TradeResult> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            results.add(TradeResult.failed(firstIndex + i, null, "Processing failed: " + cause.getMessage()));
+        }
+        return results;
+    }
+
+    /** Writes the results of the finished batches at the head of the queue, then waits if it is full. */
+    private void writeCompleted(Deque<CompletableFuture<List<TradeResult>>> inFlight, JsonGenerator generator,
+                                long[] counts) throws IOException {
+        boolean written = false;
+        while (!inFlight.isEmpty() && (inFlight.peek().isDone() || inFlight.size() >= maxInFlightBatches)) {
+            write(inFlight.poll().join(), generator, counts);
+            written = true;
+        }
+        if (written) {
+            generator.flush();
+        }
+    }
+
+    private void writeAll(Deque<CompletableFuture<List<TradeResult>>> inFlight, JsonGenerator generator,
+                          long[] counts) throws IOException {
+        while (!inFlight.isEmpty()) {
+            write(inFlight.poll().join(), generator, counts);
+        }
+        generator.flush();
+    }
+
+    private static void write(List<TradeResult> results, JsonGenerator generator, long[] counts) throws IOException {
+        for (TradeResult result : results) {
+            generator.writeObject(result);
+            counts[result.isAccepted() ? 0 : 1]++;
+        }
+    }
+}
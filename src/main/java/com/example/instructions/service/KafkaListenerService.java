@@ -1,58 +1,262 @@
 package com.example.instructions.service;
 
+import com.example.instructions.metrics.TradeMetrics;
+import com.example.instructions.metrics.TradeMetrics.Reason;
+import com.example.instructions.metrics.TradeMetrics.Stage;
 import com.example.instructions.model.CanonicalTrade;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.instructions.model.TradeResult;
+import com.example.instructions.serde.TradeSerde;
+import com.example.instructions.service.DeadLetterPublisher.FailedRecord;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
 import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class KafkaListenerService {
 
     private static final Logger logger = LoggerFactory.getLogger(KafkaListenerService.class);
 
     private final TradeService tradeService;
-    private final ObjectMapper objectMapper;
+    private final TradeSerde serde;
+    private final TradeMetrics metrics;
+    private final DeadLetterPublisher deadLetterPublisher;
 
     @Autowired
-    public KafkaListenerService(TradeService tradeService, ObjectMapper objectMapper) {
+    public KafkaListenerService(TradeService tradeService, TradeSerde serde, TradeMetrics metrics,
+                                DeadLetterPublisher deadLetterPublisher) {
         this.tradeService = tradeService;
-        this.objectMapper = objectMapper;
+        this.serde = serde;
+        this.metrics = metrics;
+        this.deadLetterPublisher = deadLetterPublisher;
     }
 
-    @KafkaListener(topics = "${app.kafka.topics.inbound}")
-    public void handleTradeInstruction(@Payload String message,
-                                     @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-                                     @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-                                     @Header(KafkaHeaders.OFFSET) long offset,
-                                     Acknowledgment acknowledgment) {
-        
-        logger.info("Received message from topic: {}, partition: {}, offset: {}", 
-                   topic, partition, offset);
+    /**
+     * Per-record listener, only started when {@code app.kafka.listener.mode} is {@code single}.
+     * The offset is acknowledged once the trade has been published, or the record parked
+     * on the retry or dead-letter topic. If parking fails the record is not acknowledged,
+     * so the container redelivers it.
+     */
+    @KafkaListener(id = "tradeInstructionListener",
+                   topics = "${app.kafka.topics.inbound}",
+                   autoStartup = "#{'${app.kafka.listener.mode:batch}' == 'single'}")
+    public void handleTradeInstruction(ConsumerRecord<String, byte[]> record, Acknowledgment acknowledgment) {
         
+        logger.debug("Received message from topic: {}, partition: {}, offset: {}", 
+                   record.topic(), record.partition(), record.offset());
+
+        CanonicalTrade trade;
         try {
-            // Parse the incoming message as CanonicalTrade
-            CanonicalTrade trade = objectMapper.readValue(message, CanonicalTrade.class);
-            
-            // Process the trade
-            String tradeId = tradeService.processTrade(trade);
-            
-            logger.info("Successfully processed Kafka trade message with ID: {}", tradeId);
-            
-            // Acknowledge the message
-            acknowledgment.acknowledge();
-            
+            // Parse the incoming message as CanonicalTrade, in whichever wire format it was sent
+            long start = System.nanoTime();
+            trade = serde.readCanonicalTrade(record.value(), record.headers());
+            metrics.recordStage(Stage.PARSE, System.nanoTime() - start);
         } catch (Exception e) {
-            logger.error("Error processing Kafka message: {}", e.getMessage(), e);
-            // In production, you might want to send to a dead letter queue
-            // For now, we'll acknowledge to prevent infinite retries
+            metrics.recordFailure(Reason.PARSE);
+            logger.error("Unreadable Kafka message at offset {}: {}", record.offset(), e.getMessage());
+            deadLetterPublisher.deadLetter(List.of(FailedRecord.of(record, e))).join();
             acknowledgment.acknowledge();
+            return;
+        }
+
+        CompletableFuture<Void> parked;
+        try {
+            // Process the trade through the batch pipeline
+            List<TradeResult> results = tradeService.processTrades(List.of(trade), record.offset()).join();
+            parked = park(List.of(record), results, deadLetterPublisher);
+            logger.debug("Processed Kafka trade message, result: {}", results.get(0).getTradeId());
+        } catch (Exception e) {
+            logger.error("Error processing Kafka trade message at offset {}: {}", record.offset(), e.getMessage());
+            parked = deadLetterPublisher.retry(List.of(FailedRecord.of(record, e)));
+        }
+
+        parked.join();
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Batch listener, the default mode. Each poll is deserialized and handed to
+     * {@link TradeService#processTrades} as one batch. Unreadable and invalid records are
+     * sent to the dead-letter topic and records that failed for a transient reason to the
+     * retry topic, all in one pipelined group of sends, so a failure never holds up the
+     * partition. The offsets are committed once after every accepted trade has been
+     * acknowledged by the broker and every failed record has been parked. The consumer lag
+     * of the assigned partitions is sampled once per poll.
+     */
+    @KafkaListener(id = "tradeInstructionBatchListener",
+                   topics = "${app.kafka.topics.inbound}",
+                   containerFactory = "batchKafkaListenerContainerFactory",
+                   concurrency = "${app.kafka.listener.concurrency:3}",
+                   autoStartup = "#{'${app.kafka.listener.mode:batch}' == 'batch'}")
+    public void handleTradeInstructionBatch(List<ConsumerRecord<String, byte[]>> records,
+                                            Acknowledgment acknowledgment,
+                                            Consumer<?, ?> consumer) {
+
+        ParsedPoll poll = parse(records);
+        List<CanonicalTrade> trades = poll.trades;
+        List<ConsumerRecord<String, byte[]>> parsedRecords = poll.records;
+        List<FailedRecord> unreadable = poll.unreadable;
+
+        CompletableFuture<Void> parked;
+        try {
+            List<TradeResult> results = tradeService.processTrades(trades).join();
+            parked = CompletableFuture.allOf(deadLetterPublisher.deadLetter(unreadable),
+                park(parsedRecords, results, deadLetterPublisher));
+        } catch (Exception e) {
+            // A lane part that fails is reported per trade, so this only happens when the batch could
+            // not be processed at all and none of its trades has a result
+            logger.error("Error processing Kafka batch of {} messages: {}", records.size(), e.getMessage(), e);
+            List<FailedRecord> retries = new ArrayList<>(parsedRecords.size());
+            for (ConsumerRecord<String, byte[]> record : parsedRecords) {
+                retries.add(FailedRecord.of(record, e));
+            }
+            parked = CompletableFuture.allOf(deadLetterPublisher.deadLetter(unreadable),
+                deadLetterPublisher.retry(retries));
+        }
+
+        // If parking fails the poll is not committed, so the container redelivers it
+        parked.join();
+        logger.debug("Processed Kafka batch of {} messages, {} unreadable", records.size(), unreadable.size());
+
+        acknowledgment.acknowledge();
+        recordLag(consumer);
+    }
+
+    /**
+     * Deserializes a poll, setting aside the records that cannot be read.
+     */
+    ParsedPoll parse(List<ConsumerRecord<String, byte[]>> records) {
+        ParsedPoll poll = new ParsedPoll(records.size());
+        for (ConsumerRecord<String, byte[]> record : records) {
+            try {
+                long start = System.nanoTime();
+                poll.trades.add(serde.readCanonicalTrade(record.value(), record.headers()));
+                metrics.recordStage(Stage.PARSE, System.nanoTime() - start);
+                poll.records.add(record);
+            } catch (Exception e) {
+                metrics.recordFailure(Reason.PARSE);
+                poll.unreadable.add(FailedRecord.of(record, e));
+                logger.debug("Unreadable Kafka message at partition: {}, offset: {}: {}",
+                           record.partition(), record.offset(), e.getMessage());
+            }
+        }
+        return poll;
+    }
+
+    /**
+     * Consumes the retry topic chain. Each failed attempt moves the record to the next retry
+     * topic with a longer delay, and after the last attempt to the dead-letter topic. The
+     * delays are served by pausing this listener's own partitions, so the main inbound
+     * consumers are never held up. Invalid trades go straight to the dead-letter topic.
+     */
+    @RetryableTopic(attempts = "${app.kafka.retry.attempts:4}",
+                    backoff = @Backoff(delayExpression = "${app.kafka.retry.delay-ms:1000}",
+                                       multiplierExpression = "${app.kafka.retry.multiplier:5}",
+                                       maxDelayExpression = "${app.kafka.retry.max-delay-ms:60000}"),
+                    topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+                    autoCreateTopics = "${app.kafka.retry.auto-create-topics:true}",
+                    kafkaTemplate = "kafkaTemplate",
+                    listenerContainerFactory = "retryKafkaListenerContainerFactory",
+                    exclude = TradeRejectedException.class)
+    @KafkaListener(id = "tradeInstructionRetryListener",
+                   topics = "${app.kafka.topics.retry}",
+                   containerFactory = "retryKafkaListenerContainerFactory")
+    public void handleTradeInstructionRetry(ConsumerRecord<String, byte[]> record) {
+        CanonicalTrade trade;
+        try {
+            trade = serde.readCanonicalTrade(record.value(), record.headers());
+        } catch (Exception e) {
+            throw new TradeRejectedException("Unreadable trade: " + e.getMessage());
+        }
+
+        TradeResult result = tradeService.processTrades(List.of(trade), record.offset()).join().get(0);
+        if (result.isRetryable()) {
+            throw new RetryableTradeException(result.getError());
+        }
+        if (!result.isAccepted() && result.getTradeId() == null) {
+            throw new TradeRejectedException(result.getError());
+        }
+        logger.debug("Retried Kafka trade message from topic: {}, offset: {}", record.topic(), record.offset());
+    }
+
+    /**
+     * Parks the records whose trades were not accepted: invalid ones on the dead-letter topic
+     * and failed ones on the retry topic.
+     */
+    CompletableFuture<Void> park(List<ConsumerRecord<String, byte[]>> records, List<TradeResult> results,
+                                 DeadLetterPublisher deadLetterPublisher) {
+        List<FailedRecord> deadLetters = new ArrayList<>();
+        List<FailedRecord> retries = new ArrayList<>();
+        for (TradeResult result : results) {
+            if (result.isAccepted()) {
+                continue;
+            }
+            ConsumerRecord<String, byte[]> record = records.get((int) (result.getIndex() - results.get(0).getIndex()));
+            if (result.isRetryable()) {
+                retries.add(FailedRecord.of(record, new RetryableTradeException(result.getError())));
+            } else if (result.getTradeId() == null) {
+                deadLetters.add(FailedRecord.of(record, new TradeRejectedException(result.getError())));
+            }
+            // Otherwise the trade was accepted and spilled by the publisher, which redelivers it
+        }
+        if (!deadLetters.isEmpty() || !retries.isEmpty()) {
+            logger.warn("Parking {} invalid and {} failed Kafka trade messages", deadLetters.size(), retries.size());
+        }
+        return CompletableFuture.allOf(deadLetterPublisher.deadLetter(deadLetters), deadLetterPublisher.retry(retries));
+    }
+
+    void recordLag(Consumer<?, ?> consumer) {
+        // currentLag only reads the fetcher's cached log end offsets, it makes no broker call
+        for (TopicPartition partition : consumer.assignment()) {
+            OptionalLong lag = consumer.currentLag(partition);
+            if (lag.isPresent()) {
+                metrics.recordConsumerLag(partition, lag.getAsLong());
+            }
+        }
+    }
+
+    /**
+     * The trades of a poll that could be read, their records, and the records that could not.
+     */
+    static class ParsedPoll {
+        final List<CanonicalTrade> trades;
+        final List<ConsumerRecord<String, byte[]>> records;
+        final List<FailedRecord> unreadable = new ArrayList<>();
+
+        ParsedPoll(int size) {
+            this.trades = new ArrayList<>(size);
+            this.records = new ArrayList<>(size);
+        }
+    }
+
+    /**
+     * The trade itself is invalid; processing it again cannot succeed.
+     */
+    public static class TradeRejectedException extends RuntimeException {
+        public TradeRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The trade failed for a transient reason and may succeed when retried.
+     */
+    public static class RetryableTradeException extends RuntimeException {
+        public RetryableTradeException(String message) {
+            super(message);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,47 +1,325 @@
 package com.example.instructions.service;
 
+import com.example.instructions.metrics.TradeMetrics;
+import com.example.instructions.metrics.TradeMetrics.Reason;
+import com.example.instructions.metrics.TradeMetrics.Stage;
+import com.example.instructions.model.PublishResult;
+import com.example.instructions.serde.WireFormat;
+import com.example.instructions.util.SpillFile;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Publishes platform trades to the outbound topic.
+ *
+ * <p>At most {@code max-in-flight} sends may be awaiting acknowledgement at a time. A
+ * caller that finds the window full blocks until a send completes, which slows the
+ * upload, REST and listener paths down to the broker's pace instead of filling the
+ * producer's buffer. A send that fails after the producer's own retries, or that cannot
+ * get a permit within {@code acquire-timeout}, is appended to the spill file and
+ * redelivered periodically, up to {@code max-attempts} times.
+ */
 @Service
 public class KafkaPublisher {
 
     private static final Logger logger = LoggerFactory.getLogger(KafkaPublisher.class);
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    // Completions are moved here so that dependent stages never run on the producer's I/O thread
+    private final Executor callbackExecutor;
+    private final ExecutorService ownedCallbackExecutor;
+    private final TradeMetrics metrics;
+    private final AtomicInteger inFlight;
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final SpillFile spillFile;
+    private final int maxAttempts;
 
     @Value("${app.kafka.topics.outbound}")
     private String outboundTopic;
 
+    public KafkaPublisher(KafkaTemplate<String, byte[]> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.callbackExecutor = Runnable::run;
+        this.ownedCallbackExecutor = null;
+        this.inFlight = new AtomicInteger();
+        this.metrics = TradeMetrics.noop();
+        this.permits = null;
+        this.acquireTimeoutNanos = 0;
+        this.spillFile = null;
+        this.maxAttempts = 1;
+    }
+
     @Autowired
-    public KafkaPublisher(KafkaTemplate<String, String> kafkaTemplate) {
+    public KafkaPublisher(KafkaTemplate<String, byte[]> kafkaTemplate,
+                          @Qualifier("publishCallbackThreadFactory") ThreadFactory callbackThreadFactory,
+                          @Value("${app.concurrency.publish-callback-threads:2}") int callbackThreads,
+                          TradeMetrics metrics,
+                          SpillFile publishSpillFile,
+                          @Value("${app.kafka.publisher.max-in-flight:10000}") int maxInFlight,
+                          @Value("${app.kafka.publisher.acquire-timeout:30s}") Duration acquireTimeout,
+                          @Value("${app.kafka.publisher.spill.max-attempts:5}") int maxAttempts) {
         this.kafkaTemplate = kafkaTemplate;
+        this.ownedCallbackExecutor = Executors.newFixedThreadPool(callbackThreads, callbackThreadFactory);
+        this.callbackExecutor = ownedCallbackExecutor;
+        this.inFlight = new AtomicInteger();
+        this.metrics = metrics;
+        this.permits = new Semaphore(maxInFlight);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.spillFile = publishSpillFile;
+        this.maxAttempts = maxAttempts;
+        metrics.bindPublishInFlight(inFlight);
+        metrics.bindSpillPending(publishSpillFile);
     }
 
-    public void publishTrade(String tradeJson) {
-        try {
-            CompletableFuture<SendResult<String, String>> future = 
-                kafkaTemplate.send(outboundTopic, tradeJson);
-            
-            future.whenComplete((result, exception) -> {
+    private KafkaPublisher(KafkaPublisher publisher, KafkaTemplate<String, byte[]> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.callbackExecutor = publisher.callbackExecutor;
+        this.ownedCallbackExecutor = null;
+        this.inFlight = publisher.inFlight;
+        this.metrics = publisher.metrics;
+        this.permits = publisher.permits;
+        this.acquireTimeoutNanos = publisher.acquireTimeoutNanos;
+        this.spillFile = null;
+        this.maxAttempts = 1;
+        this.outboundTopic = publisher.outboundTopic;
+    }
+
+    /**
+     * A publisher that sends through another template, sharing this one's in-flight window
+     * and callback threads. Failed sends are not spilled: with a transactional template the
+     * send belongs to a transaction, which has to be rolled back instead.
+     */
+    public KafkaPublisher withTemplate(KafkaTemplate<String, byte[]> kafkaTemplate) {
+        return new KafkaPublisher(this, kafkaTemplate);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ownedCallbackExecutor != null) {
+            ownedCallbackExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Publishes one trade. The returned future completes on the callback executor with the
+     * partition and offset acknowledged by the broker, or fails once the trade has been
+     * spilled for redelivery.
+     */
+    public CompletableFuture<PublishResult> publishTrade(byte[] payload) {
+        return publishTrade(null, payload);
+    }
+
+    /**
+     * Publishes one trade with a record key, so that trades sharing the key land on the same
+     * partition in publish order. A null key leaves the partition to the producer.
+     */
+    public CompletableFuture<PublishResult> publishTrade(String key, byte[] payload) {
+        return send(key, payload, 1, System.nanoTime()).whenCompleteAsync((result, exception) -> {
+            if (exception == null) {
+                logger.debug("Successfully published trade to {}", result);
+            } else {
+                logger.error("Failed to publish trade to topic: {}", outboundTopic, exception);
+            }
+        }, callbackExecutor);
+    }
+
+    /**
+     * Hands every payload to the producer without waiting in between, so that the sends
+     * are pipelined into the producer's record batches (see {@code linger.ms} and
+     * {@code batch.size}), blocking only while the in-flight window is full. The returned
+     * futures are in payload order and complete on the callback executor once the whole
+     * batch has completed, with a single hop per batch.
+     */
+    public List<CompletableFuture<PublishResult>> publishTrades(List<byte[]> payloads) {
+        return publishTrades(null, payloads);
+    }
+
+    /**
+     * Like {@link #publishTrades(List)}, with the record key of each payload; {@code keys}
+     * may be null to publish them all without one.
+     */
+    public List<CompletableFuture<PublishResult>> publishTrades(List<String> keys, List<byte[]> payloads) {
+        List<CompletableFuture<PublishResult>> sends = new ArrayList<>(payloads.size());
+        // One start time for the whole batch; the sends are handed over back to back
+        long sentAt = System.nanoTime();
+        for (int i = 0; i < payloads.size(); i++) {
+            sends.add(send(keys != null ? keys.get(i) : null, payloads.get(i), 1, sentAt));
+        }
+
+        CompletableFuture<Void> batchCompletion = CompletableFuture.allOf(sends.toArray(new CompletableFuture[0]))
+            .handleAsync((ignored, exception) -> {
                 if (exception == null) {
-                    logger.info("Successfully published trade to topic: {} with offset: {}", 
-                              outboundTopic, result.getRecordMetadata().offset());
+                    logger.debug("Published batch of {} trades to topic: {}", sends.size(), outboundTopic);
                 } else {
-                    logger.error("Failed to publish trade to topic: {}", outboundTopic, exception);
+                    logger.error("Failed to publish part of a batch of {} trades to topic: {}",
+                               sends.size(), outboundTopic, exception);
                 }
+                return null;
+            }, callbackExecutor);
+
+        List<CompletableFuture<PublishResult>> futures = new ArrayList<>(sends.size());
+        for (CompletableFuture<PublishResult> send : sends) {
+            futures.add(batchCompletion.thenCompose(ignored -> send));
+        }
+        return futures;
+    }
+
+    /**
+     * Redelivers spilled trades. Each one goes through the in-flight window like any other
+     * send and is spilled again if it fails, until it runs out of attempts. The drained copy
+     * is only deleted once every redelivery has been acknowledged, spilled again or given up.
+     */
+    @Scheduled(fixedDelayString = "${app.kafka.publisher.spill.redrive-interval:PT1M}")
+    public void redriveSpilled() {
+        if (spillFile == null || spillFile.getPendingCount() == 0) {
+            return;
+        }
+        try {
+            int redriven = spillFile.drain((key, payload, attempts) -> {
+                int attempt = attempts + 1;
+                return send(key, payload, attempt, System.nanoTime()).handle((published, exception) -> {
+                    Throwable error = exception instanceof CompletionException && exception.getCause() != null
+                        ? exception.getCause() : exception;
+                    if (error == null || error instanceof PublishSpilledException || attempt >= maxAttempts) {
+                        return null;
+                    }
+                    // Could not be spilled again, so the drained copy is the only one left
+                    throw new CompletionException(error);
+                });
             });
-            
+            logger.info("Redelivered {} spilled trades to topic: {}", redriven, outboundTopic);
+        } catch (IOException e) {
+            logger.error("Failed to read publish spill file: {}", e.getMessage(), e);
+        }
+    }
+
+    private CompletableFuture<PublishResult> send(String key, byte[] payload, int attempt, long sentAt) {
+        if (!acquirePermit()) {
+            return failed(key, payload, attempt,
+                new IllegalStateException("No publish permit within the acquire timeout"));
+        }
+
+        // Counted before the send, as the completion below may run before send() returns
+        inFlight.incrementAndGet();
+        CompletableFuture<SendResult<String, byte[]>> send;
+        try {
+            send = kafkaTemplate.send(record(key, payload));
         } catch (Exception e) {
-            logger.error("Error publishing trade to Kafka: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to publish trade", e);
+            inFlight.decrementAndGet();
+            releasePermit();
+            return failed(key, payload, attempt, e);
+        }
+
+        CompletableFuture<PublishResult> result = new CompletableFuture<>();
+        // Runs on the producer's I/O thread: only release the permit and update meters here
+        send.whenComplete((sendResult, exception) -> {
+            releasePermit();
+            inFlight.decrementAndGet();
+            if (exception == null) {
+                metrics.recordStage(Stage.PUBLISH_ACK, System.nanoTime() - sentAt);
+                RecordMetadata metadata = sendResult.getRecordMetadata();
+                result.complete(new PublishResult(metadata.topic(), metadata.partition(), metadata.offset()));
+            } else {
+                callbackExecutor.execute(() -> failed(key, payload, attempt, exception)
+                    .whenComplete((ignored, spilled) -> result.completeExceptionally(spilled)));
+            }
+        });
+        return result;
+    }
+
+    private static String describe(byte[] payload) {
+        return WireFormat.detect(payload) == WireFormat.BINARY
+            ? "base64:" + Base64.getEncoder().encodeToString(payload)
+            : new String(payload, StandardCharsets.UTF_8);
+    }
+
+    // Spilled payloads are redelivered through here too, so the content type is taken from the payload itself
+    private ProducerRecord<String, byte[]> record(String key, byte[] payload) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(outboundTopic, key, payload);
+        record.headers().add(WireFormat.CONTENT_TYPE_HEADER,
+            WireFormat.detect(payload).getContentType().getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    /**
+     * Counts the failure and spills the payload unless it is out of attempts. The returned
+     * future has already failed.
+     */
+    private CompletableFuture<PublishResult> failed(String key, byte[] payload, int attempt, Throwable cause) {
+        metrics.recordFailure(Reason.PUBLISH);
+        Throwable error = cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause;
+        if (spillFile == null) {
+            return CompletableFuture.failedFuture(error);
+        }
+        if (attempt >= maxAttempts) {
+            logger.error("Giving up on trade for topic: {} after {} attempts: {}", outboundTopic, attempt,
+                       describe(payload), error);
+            return CompletableFuture.failedFuture(error);
+        }
+        try {
+            spillFile.append(key, payload, attempt);
+            metrics.recordSpilled();
+            return CompletableFuture.failedFuture(
+                new PublishSpilledException("Spilled for redelivery: " + error.getMessage(), error));
+        } catch (IOException e) {
+            logger.error("Failed to spill trade for topic: {}: {}", outboundTopic,
+                       describe(payload), e);
+            error.addSuppressed(e);
+            return CompletableFuture.failedFuture(error);
+        }
+    }
+
+    private boolean acquirePermit() {
+        if (permits == null) {
+            return true;
+        }
+        try {
+            return permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void releasePermit() {
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    /**
+     * A publish failed but the trade was written to the spill file and will be retried.
+     */
+    public static class PublishSpilledException extends RuntimeException {
+        public PublishSpilledException(String message, Throwable cause) {
+            super(message, cause);
         }
     }
-}
\ No newline at end of file
+}
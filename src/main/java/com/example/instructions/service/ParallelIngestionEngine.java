@@ -0,0 +1,107 @@
+package com.example.instructions.service;
+
+import com.example.instructions.metrics.TradeMetrics;
+import com.example.instructions.metrics.TradeMetrics.Reason;
+import com.example.instructions.metrics.TradeMetrics.Stage;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.TradeResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Pipelines file ingestion: the calling thread parses records into chunks and submits each
+ * chunk, in input order, to {@link TradeService#processTrades}, which splits it across the
+ * processing lanes by record key. Parsing runs ahead of processing by at most
+ * {@code max-in-flight-chunks} chunks, and results are handed back chunk by chunk in input
+ * order.
+ *
+ * <p>Because chunks reach the lanes in input order and each lane runs its work in order,
+ * trades sharing a record key are published in the order they appear in the file.
+ */
+@Service
+public class ParallelIngestionEngine {
+
+    private final TradeService tradeService;
+    private final int chunkSize;
+    private final int maxInFlightChunks;
+    private final TradeMetrics metrics;
+
+    public ParallelIngestionEngine(TradeService tradeService, int chunkSize, int maxInFlightChunks) {
+        this(tradeService, chunkSize, maxInFlightChunks, TradeMetrics.noop());
+    }
+
+    @Autowired
+    public ParallelIngestionEngine(TradeService tradeService,
+                                   @Value("${app.ingestion.chunk-size:500}") int chunkSize,
+                                   @Value("${app.ingestion.max-in-flight-chunks:0}") int maxInFlightChunks,
+                                   TradeMetrics metrics) {
+        this.tradeService = tradeService;
+        this.chunkSize = chunkSize;
+        this.maxInFlightChunks = maxInFlightChunks > 0
+            ? maxInFlightChunks : 2 * Runtime.getRuntime().availableProcessors();
+        this.metrics = metrics;
+    }
+
+    /**
+     * Processes every trade and passes the results to the sink one chunk at a time, in input
+     * order. If the iterator fails part way, the results of everything read before the
+     * failure are delivered first and the failure is then rethrown.
+     */
+    public void ingest(Iterator<CanonicalTrade> trades, Consumer<List<TradeResult>> sink) {
+        Deque<CompletableFuture<List<TradeResult>>> inFlight = new ArrayDeque<>();
+        long index = 0;
+        RuntimeException readFailure = null;
+
+        while (readFailure == null) {
+            List<CanonicalTrade> chunk = new ArrayList<>(chunkSize);
+            try {
+                long start = System.nanoTime();
+                while (chunk.size() < chunkSize && trades.hasNext()) {
+                    chunk.add(trades.next());
+                    long end = System.nanoTime();
+                    metrics.recordStage(Stage.PARSE, end - start);
+                    start = end;
+                }
+            } catch (RuntimeException e) {
+                metrics.recordFailure(Reason.PARSE);
+                readFailure = e;
+            }
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            inFlight.add(submit(chunk, index));
+            index += chunk.size();
+            while (inFlight.size() >= maxInFlightChunks) {
+                sink.accept(inFlight.poll().join());
+            }
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+
+        while (!inFlight.isEmpty()) {
+            sink.accept(inFlight.poll().join());
+        }
+        if (readFailure != null) {
+            throw readFailure;
+        }
+    }
+
+    private CompletableFuture<List<TradeResult>> submit(List<CanonicalTrade> chunk, long firstIndex) {
+        try {
+            return tradeService.processTrades(chunk, firstIndex);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
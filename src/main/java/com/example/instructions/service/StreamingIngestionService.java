@@ -0,0 +1,125 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.TradeResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Pushes an arbitrarily long sequence of trades through the {@link ParallelIngestionEngine}
+ * and writes one NDJSON result line per record, in input order, followed by a summary
+ * line. Only a bounded number of chunks is ever held in memory.
+ */
+@Service
+public class StreamingIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingIngestionService.class);
+
+    private final ParallelIngestionEngine ingestionEngine;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public StreamingIngestionService(ParallelIngestionEngine ingestionEngine, ObjectMapper objectMapper) {
+        this.ingestionEngine = ingestionEngine;
+        this.objectMapper = objectMapper;
+    }
+
+    public void ingest(Iterator<CanonicalTrade> trades, OutputStream outputStream) throws IOException {
+        long[] counts = new long[3];  // records, processed, rejected
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+
+            try {
+                ingestionEngine.ingest(trades, results -> {
+                    try {
+                        for (TradeResult result : results) {
+                            generator.writeObject(result);
+                            counts[0]++;
+                            counts[result.isAccepted() ? 1 : 2]++;
+                        }
+                        generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                // The client went away; nothing more can be written
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                // The parser cannot resynchronise after malformed input, so report and stop
+                logger.error("Aborting streaming ingestion at record {}: {}", counts[0], e.getMessage());
+                generator.writeObject(TradeResult.rejected(counts[0], "Unreadable record: " + e.getMessage()));
+                counts[2]++;
+            }
+
+            generator.writeStartObject();
+            generator.writeBooleanField("summary", true);
+            generator.writeNumberField("processedCount", counts[1]);
+            generator.writeNumberField("rejectedCount", counts[2]);
+            generator.writeEndObject();
+            generator.flush();
+        }
+
+        logger.info("Streaming ingestion finished: {} processed, {} rejected", counts[1], counts[2]);
+    }
+
+    /**
+     * Processes every trade and returns the generated trade IDs in input order, failing on
+     * the first rejected record. This is the contract of the buffered upload endpoint. No
+     * more records are read after a rejection, but chunks already submitted are processed;
+     * the error names the records after the rejected one that were accepted all the same.
+     */
+    public List<String> ingestAll(Iterator<CanonicalTrade> trades) {
+        List<String> tradeIds = new ArrayList<>();
+        TradeResult[] failure = new TradeResult[1];
+        List<String> acceptedAfterFailure = new ArrayList<>();
+        // The sink runs between chunk reads, so the engine stops reading once a record failed
+        Iterator<CanonicalTrade> untilFailure = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return failure[0] == null && trades.hasNext();
+            }
+
+            @Override
+            public CanonicalTrade next() {
+                return trades.next();
+            }
+        };
+
+        ingestionEngine.ingest(untilFailure, results -> {
+            for (TradeResult result : results) {
+                if (failure[0] != null) {
+                    if (result.isAccepted()) {
+                        acceptedAfterFailure.add(result.getIndex() + " (" + result.getTradeId() + ")");
+                    }
+                } else if (result.isAccepted()) {
+                    tradeIds.add(result.getTradeId());
+                } else {
+                    failure[0] = result;
+                }
+            }
+        });
+
+        if (failure[0] != null) {
+            String message = "Record " + failure[0].getIndex() + " failed: " + failure[0].getError();
+            if (!acceptedAfterFailure.isEmpty()) {
+                message += "; later records already accepted: " + String.join(", ", acceptedAfterFailure);
+            }
+            throw new IllegalArgumentException(message);
+        }
+        return tradeIds;
+    }
+}
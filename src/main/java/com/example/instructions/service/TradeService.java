@@ -1,72 +1,663 @@
 package com.example.instructions.service;
 
+import com.example.instructions.metrics.TradeMetrics;
+import com.example.instructions.metrics.TradeMetrics.Stage;
 import com.example.instructions.model.CanonicalTrade;
 import com.example.instructions.model.PlatformTrade;
+import com.example.instructions.model.PublishResult;
+import com.example.instructions.model.TradePage;
+import com.example.instructions.model.TradeResult;
+import com.example.instructions.serde.TradeSerde;
+import com.example.instructions.store.IdempotencyIndex;
+import com.example.instructions.store.InMemoryTradeStore;
+import com.example.instructions.store.IndexedTradeStore;
+import com.example.instructions.store.TradeAggregator;
+import com.example.instructions.store.TradeStore;
+import com.example.instructions.store.TradeStoreStats;
+import com.example.instructions.util.ShardedExecutor;
+import com.example.instructions.util.TimeOrderedIdGenerator;
+import com.example.instructions.util.TradeFingerprint;
+import com.example.instructions.util.TradeIdGenerator;
 import com.example.instructions.util.TradeTransformer;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
 
+/**
+ * Normalizes, stores and publishes trades.
+ *
+ * <p>Outbound records are keyed by the trade's masked account or security ID, per
+ * {@code app.kafka.publisher.key}, so that each key's trades stay on one partition. With
+ * processing lanes, every trade is handed to the lane its key hashes to and all the work up
+ * to the hand-off to the producer runs there, one trade at a time per lane: trades sharing
+ * a key reach the producer, and so the partition, in the order they were submitted. Only
+ * the wait for the broker's acknowledgement happens off the lane.
+ */
 @Service
 public class TradeService {
 
     private static final Logger logger = LoggerFactory.getLogger(TradeService.class);
+
+    /**
+     * What outbound records are keyed by.
+     */
+    public enum PartitionKey {
+        ACCOUNT, SECURITY, NONE
+    }
     
     private final TradeTransformer transformer;
     private final KafkaPublisher kafkaPublisher;
-    private final ObjectMapper objectMapper;
+    // Writes platform trades in the outbound topic's wire format
+    private final TradeSerde serde;
     
-    // In-memory storage for canonical trades
-    private final ConcurrentHashMap<String, CanonicalTrade> canonicalTradeStore = new ConcurrentHashMap<>();
+    // Bounded storage for canonical trades, kept for auditing
+    private final TradeStore canonicalTradeStore;
+    private final TradeMetrics metrics;
+    // Recently seen trades, so that redelivered or re-uploaded trades are not published twice; null if disabled
+    private final IdempotencyIndex idempotencyIndex;
+    // Running positions and volumes of published trades
+    private final TradeAggregator aggregator;
+    private final PartitionKey partitionKey;
+    // Single-writer lanes trades are processed on, by key; null to process them on the calling thread
+    private final ShardedExecutor lanes;
+    private final TradeIdGenerator idGenerator;
 
     @Autowired
-    public TradeService(TradeTransformer transformer, KafkaPublisher kafkaPublisher, ObjectMapper objectMapper) {
+    public TradeService(TradeTransformer transformer, KafkaPublisher kafkaPublisher, TradeSerde serde,
+                        TradeStore canonicalTradeStore, TradeMetrics metrics,
+                        ObjectProvider<IdempotencyIndex> idempotencyIndex, TradeAggregator aggregator,
+                        @Value("${app.kafka.publisher.key:account}") String partitionKey,
+                        @Qualifier("tradeProcessingLanes") ShardedExecutor lanes,
+                        TradeIdGenerator idGenerator) {
+        this(transformer, kafkaPublisher, serde, canonicalTradeStore, metrics,
+            idempotencyIndex.getIfAvailable(), aggregator,
+            PartitionKey.valueOf(partitionKey.toUpperCase(Locale.ROOT)), lanes, idGenerator);
+    }
+
+    private TradeService(TradeTransformer transformer, KafkaPublisher kafkaPublisher, TradeSerde serde,
+                         TradeStore canonicalTradeStore, TradeMetrics metrics, IdempotencyIndex idempotencyIndex,
+                         TradeAggregator aggregator, PartitionKey partitionKey, ShardedExecutor lanes,
+                         TradeIdGenerator idGenerator) {
         this.transformer = transformer;
         this.kafkaPublisher = kafkaPublisher;
-        this.objectMapper = objectMapper;
+        this.serde = serde;
+        this.canonicalTradeStore = canonicalTradeStore;
+        this.metrics = metrics;
+        this.idempotencyIndex = idempotencyIndex;
+        this.aggregator = aggregator;
+        this.partitionKey = partitionKey;
+        this.lanes = lanes;
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * Builds a service outside Spring, for tests and benchmarks. Records are keyed by account
+     * and IDs are time-ordered, as with the default configuration; the store is in memory,
+     * metrics are not recorded, and idempotency and lanes are off unless set.
+     */
+    public static Builder builder(TradeTransformer transformer, KafkaPublisher kafkaPublisher, TradeSerde serde) {
+        return new Builder(transformer, kafkaPublisher, serde);
     }
 
     public String processTrade(CanonicalTrade trade) {
+        return processTrade(trade, null);
+    }
+
+    /**
+     * Processes one trade and waits for the broker to acknowledge it. A trade that repeats
+     * a recent one, by content or by {@code idempotencyKey} if one is given, is not
+     * published again and the ID of the original trade is returned instead.
+     */
+    public String processTrade(CanonicalTrade trade, String idempotencyKey) {
+        PendingTrade pending;
+        if (lanes == null) {
+            pending = send(trade, idempotencyKey);
+        } else {
+            CompletableFuture<PendingTrade> handOff = new CompletableFuture<>();
+            lanes.execute(laneFor(trade), () -> {
+                try {
+                    handOff.complete(send(trade, idempotencyKey));
+                } catch (RuntimeException e) {
+                    handOff.completeExceptionally(e);
+                }
+            });
+            try {
+                pending = handOff.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        if (pending.published == null) {
+            return pending.tradeId;
+        }
+        try {
+            // Only report success once the broker has acknowledged the trade
+            PublishResult published = pending.published.join();
+            aggregator.record(pending.normalizedTrade);
+            
+            logger.debug("Successfully processed trade with ID: {} at {}", pending.tradeId, published);
+            return pending.tradeId;
+            
+        } catch (Exception e) {
+            if (isSpilled(e)) {
+                // Delivered later by the publisher
+                aggregator.record(pending.normalizedTrade);
+            } else if (pending.fingerprint != null) {
+                idempotencyIndex.release(pending.fingerprint, pending.tradeId);
+            }
+            // Counted and logged by the publisher, as for batches
+            logger.debug("Trade {} was not published: {}", pending.tradeId, e.getMessage());
+            throw new RuntimeException("Failed to process trade", e);
+        }
+    }
+
+    /**
+     * Runs one trade up to the hand-off to the producer. The result carries the ID of the
+     * original trade and no publish future if the trade is a duplicate.
+     */
+    private PendingTrade send(CanonicalTrade trade, String idempotencyKey) {
+        Stage stage = Stage.NORMALIZE;
+        TradeFingerprint fingerprint = null;
+        String tradeId = null;
+        CanonicalTrade normalizedTrade = null;
         try {
             // Generate unique ID for tracking
-            String tradeId = UUID.randomUUID().toString();
+            tradeId = idGenerator.nextId();
             
             // Normalize the trade
-            CanonicalTrade normalizedTrade = transformer.normalize(trade);
+            long start = System.nanoTime();
+            normalizedTrade = transformer.normalize(trade);
+            long end = System.nanoTime();
+            metrics.recordStage(Stage.NORMALIZE, end - start);
+            
+            if (idempotencyIndex != null) {
+                fingerprint = idempotencyKey != null
+                    ? TradeFingerprint.ofKey(idempotencyKey)
+                    : TradeFingerprint.of(trade.getAccountNumber(), normalizedTrade);
+                String originalTradeId = idempotencyIndex.claim(fingerprint, tradeId);
+                if (originalTradeId != null) {
+                    metrics.recordDuplicate();
+                    logger.debug("Duplicate of trade {}, not published again", originalTradeId);
+                    return new PendingTrade(originalTradeId, null, null, null);
+                }
+            }
             
             // Store in memory for auditing
+            stage = Stage.STORE;
+            start = end;
             canonicalTradeStore.put(tradeId, normalizedTrade);
+            end = System.nanoTime();
+            metrics.recordStage(Stage.STORE, end - start);
             
             // Transform to platform format
+            stage = Stage.SERIALIZE;
+            start = end;
             PlatformTrade platformTrade = transformer.toPlatformFormat(normalizedTrade);
             
-            // Convert to JSON and publish
-            String jsonPayload = objectMapper.writeValueAsString(platformTrade);
-            kafkaPublisher.publishTrade(jsonPayload);
+            // Encode and publish
+            byte[] payload = serde.writePlatformTrade(platformTrade);
+            metrics.recordStage(Stage.SERIALIZE, System.nanoTime() - start);
+            stage = Stage.PUBLISH_ACK;
+            metrics.recordAccepted(1);
             
-            logger.info("Successfully processed trade with ID: {}", tradeId);
-            return tradeId;
+            return new PendingTrade(tradeId, normalizedTrade, fingerprint,
+                publish(recordKey(normalizedTrade), payload));
             
         } catch (Exception e) {
+            if (fingerprint != null) {
+                idempotencyIndex.release(fingerprint, tradeId);
+            }
+            metrics.recordFailure(TradeMetrics.reasonFor(stage, e));
             logger.error("Error processing trade: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to process trade", e);
         }
     }
 
+    public CompletableFuture<List<TradeResult>> processTrades(List<CanonicalTrade> trades) {
+        return processTrades(trades, 0);
+    }
+
+    /**
+     * Processes a batch of trades in a single pass and publishes all accepted trades as one
+     * pipelined group of sends. A trade that fails normalization does not affect the rest of
+     * the batch; it is reported as a rejected result instead. The returned future completes
+     * once every send has been acknowledged or has failed, with one result per input trade
+     * in input order, indexed from {@code firstIndex}. Trades that repeat a recent trade,
+     * including one earlier in the same batch, are reported as duplicates carrying the
+     * original trade ID and are not published again.
+     *
+     * <p>With processing lanes, the batch is split by lane and each part is processed on its
+     * lane as a batch of its own. A part that fails as a whole is reported as failed, retryable
+     * results without failing the other parts.
+     */
+    public CompletableFuture<List<TradeResult>> processTrades(List<CanonicalTrade> trades, long firstIndex) {
+        if (lanes == null || trades.isEmpty()) {
+            return processBatch(trades, firstIndex, kafkaPublisher, null);
+        }
+
+        int laneCount = lanes.laneCount();
+        int[] laneOf = new int[trades.size()];
+        int[] laneSizes = new int[laneCount];
+        for (int i = 0; i < trades.size(); i++) {
+            laneOf[i] = laneFor(trades.get(i));
+            laneSizes[laneOf[i]]++;
+        }
+        List<List<CanonicalTrade>> laneTrades = new ArrayList<>(laneCount);
+        List<int[]> lanePositions = new ArrayList<>(laneCount);
+        for (int lane = 0; lane < laneCount; lane++) {
+            laneTrades.add(new ArrayList<>(laneSizes[lane]));
+            lanePositions.add(new int[laneSizes[lane]]);
+        }
+        for (int i = 0; i < trades.size(); i++) {
+            List<CanonicalTrade> part = laneTrades.get(laneOf[i]);
+            lanePositions.get(laneOf[i])[part.size()] = i;
+            part.add(trades.get(i));
+        }
+
+        TradeResult[] results = new TradeResult[trades.size()];
+        List<CompletableFuture<Void>> parts = new ArrayList<>(laneCount);
+        for (int lane = 0; lane < laneCount; lane++) {
+            List<CanonicalTrade> batch = laneTrades.get(lane);
+            if (batch.isEmpty()) {
+                continue;
+            }
+            int[] positions = lanePositions.get(lane);
+            CompletableFuture<Void> part = new CompletableFuture<>();
+            parts.add(part);
+            try {
+                lanes.execute(lane, () -> {
+                    try {
+                        processBatch(batch, 0, kafkaPublisher, null).whenComplete((laneResults, exception) -> {
+                            if (exception != null) {
+                                failPart(results, positions, firstIndex, exception);
+                            } else {
+                                for (int i = 0; i < positions.length; i++) {
+                                    TradeResult result = laneResults.get(i);
+                                    result.setIndex(firstIndex + positions[i]);
+                                    results[positions[i]] = result;
+                                }
+                            }
+                            part.complete(null);
+                        });
+                    } catch (RuntimeException e) {
+                        failPart(results, positions, firstIndex, e);
+                        part.complete(null);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                failPart(results, positions, firstIndex, e);
+                part.complete(null);
+            }
+        }
+
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[0]))
+            .thenApply(ignored -> Arrays.asList(results));
+    }
+
+    /**
+     * Reports every trade of a lane part that could not be processed as failed, so that the
+     * results of the other parts, which may already be published, are kept.
+     */
+    private static void failPart(TradeResult[] results, int[] positions, long firstIndex, Throwable e) {
+        logger.warn("Processing lane part of {} trades failed: {}", positions.length, rootMessage(e));
+        for (int position : positions) {
+            results[position] = TradeResult.failed(firstIndex + position, null, "Processing failed: " + rootMessage(e));
+        }
+    }
+
+    /**
+     * Processes a batch on the calling thread inside the Kafka transaction bound to it, and
+     * waits for the sends. Trades are published through {@code publisher}, whose template must
+     * use the transaction's producer factory, so that they only become visible to
+     * read-committed consumers together with the consumed offsets. Positions are updated once
+     * the transaction commits; if it rolls back, the batch's trades are released from the
+     * duplicate check so that they are published again when the poll is redelivered.
+     *
+     * @throws IllegalStateException if no transaction synchronization is active
+     */
+    public List<TradeResult> processTradesInTransaction(List<CanonicalTrade> trades, long firstIndex,
+                                                        KafkaPublisher publisher) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("No transaction synchronization active");
+        }
+        TransactionEffects effects = new TransactionEffects();
+        TransactionSynchronizationManager.registerSynchronization(effects);
+        return processBatch(trades, firstIndex, publisher, effects).join();
+    }
+
+    // Effects are deferred to the end of the transaction if it is not null
+    private CompletableFuture<List<TradeResult>> processBatch(List<CanonicalTrade> trades, long firstIndex,
+                                                              KafkaPublisher publisher, TransactionEffects effects) {
+        List<TradeResult> results = new ArrayList<>(trades.size());
+        List<byte[]> payloads = new ArrayList<>(trades.size());
+        List<String> payloadKeys = partitionKey != PartitionKey.NONE ? new ArrayList<>(trades.size()) : null;
+        List<Integer> payloadSlots = new ArrayList<>(trades.size());
+        List<TradeFingerprint> payloadFingerprints = new ArrayList<>(trades.size());
+        List<CanonicalTrade> payloadTrades = new ArrayList<>(trades.size());
+
+        for (int i = 0; i < trades.size(); i++) {
+            long index = firstIndex + i;
+            Stage stage = Stage.NORMALIZE;
+            TradeFingerprint fingerprint = null;
+            String tradeId = null;
+            try {
+                tradeId = idGenerator.nextId();
+                long start = System.nanoTime();
+                CanonicalTrade normalizedTrade = transformer.normalize(trades.get(i));
+                long end = System.nanoTime();
+                metrics.recordStage(Stage.NORMALIZE, end - start);
+
+                if (idempotencyIndex != null) {
+                    fingerprint = TradeFingerprint.of(trades.get(i).getAccountNumber(), normalizedTrade);
+                    String originalTradeId = idempotencyIndex.claim(fingerprint, tradeId);
+                    if (originalTradeId != null) {
+                        metrics.recordDuplicate();
+                        results.add(TradeResult.duplicate(index, originalTradeId));
+                        continue;
+                    }
+                }
+
+                stage = Stage.SERIALIZE;
+                start = end;
+                PlatformTrade platformTrade = transformer.toPlatformFormat(normalizedTrade);
+                byte[] payload = serde.writePlatformTrade(platformTrade);
+                end = System.nanoTime();
+                metrics.recordStage(Stage.SERIALIZE, end - start);
+
+                stage = Stage.STORE;
+                start = end;
+                canonicalTradeStore.put(tradeId, normalizedTrade);
+                metrics.recordStage(Stage.STORE, System.nanoTime() - start);
+
+                results.add(TradeResult.accepted(index, tradeId));
+                payloads.add(payload);
+                if (payloadKeys != null) {
+                    payloadKeys.add(recordKey(normalizedTrade));
+                }
+                payloadSlots.add(i);
+                payloadFingerprints.add(fingerprint);
+                payloadTrades.add(normalizedTrade);
+            } catch (Exception e) {
+                if (fingerprint != null) {
+                    idempotencyIndex.release(fingerprint, tradeId);
+                }
+                // Counted by reason; individual rejections are only logged at DEBUG
+                TradeMetrics.Reason reason = TradeMetrics.reasonFor(stage, e);
+                metrics.recordFailure(reason);
+                logger.debug("Rejected trade at index {}: {}", index, rootMessage(e));
+                results.add(reason.isRejection()
+                    ? TradeResult.rejected(index, rootMessage(e))
+                    : TradeResult.failed(index, null, rootMessage(e)));
+            }
+        }
+
+        List<CompletableFuture<PublishResult>> sends = payloadKeys != null
+            ? publisher.publishTrades(payloadKeys, payloads)
+            : publisher.publishTrades(payloads);
+        metrics.recordAccepted(payloads.size());
+        CompletableFuture<?>[] outcomes = new CompletableFuture<?>[sends.size()];
+        for (int j = 0; j < sends.size(); j++) {
+            int slot = payloadSlots.get(j);
+            TradeFingerprint fingerprint = payloadFingerprints.get(j);
+            CanonicalTrade normalizedTrade = payloadTrades.get(j);
+            if (effects != null && fingerprint != null) {
+                effects.claimed(fingerprint, results.get(slot).getTradeId());
+            }
+            outcomes[j] = sends.get(j).handle((sendResult, exception) -> {
+                if (exception == null) {
+                    if (effects != null) {
+                        effects.published(normalizedTrade);
+                    } else {
+                        aggregator.record(normalizedTrade);
+                    }
+                } else {
+                    TradeResult accepted = results.get(slot);
+                    // A spilled trade is redelivered by the publisher, it must not be retried here as well
+                    if (isSpilled(exception)) {
+                        aggregator.record(normalizedTrade);
+                        results.set(slot, new TradeResult(accepted.getIndex(), accepted.getTradeId(),
+                            "Publish failed, queued for redelivery: " + rootMessage(exception)));
+                    } else {
+                        if (fingerprint != null) {
+                            idempotencyIndex.release(fingerprint, accepted.getTradeId());
+                        }
+                        results.set(slot, TradeResult.failed(accepted.getIndex(), accepted.getTradeId(),
+                            "Publish failed: " + rootMessage(exception)));
+                    }
+                }
+                return null;
+            });
+        }
+
+        logger.debug("Processed batch of {} trades, {} published", trades.size(), payloads.size());
+        return CompletableFuture.allOf(outcomes).thenApply(ignored -> results);
+    }
+
     public CanonicalTrade getCanonicalTrade(String tradeId) {
         return canonicalTradeStore.get(tradeId);
     }
 
+    /**
+     * Pages through stored trades by security, masked account and timestamp range. The
+     * security ID is normalized like the stored trades' IDs.
+     *
+     * @throws UnsupportedOperationException if the store is not indexed
+     * @throws IllegalArgumentException if the security ID is malformed
+     * @see IndexedTradeStore#query
+     */
+    public TradePage queryTrades(String securityId, String maskedAccount, LocalDateTime from, LocalDateTime to,
+                                 String cursor, int limit) {
+        if (!(canonicalTradeStore instanceof IndexedTradeStore)) {
+            throw new UnsupportedOperationException("Trade store indexes are disabled");
+        }
+        String normalizedSecurity = securityId == null ? null : transformer.normalizeSecurityId(securityId);
+        return ((IndexedTradeStore) canonicalTradeStore).query(normalizedSecurity, maskedAccount, from, to,
+            cursor, limit);
+    }
+
     public int getStoredTradeCount() {
         return canonicalTradeStore.size();
     }
 
+    public TradeStoreStats getStoreStats() {
+        return canonicalTradeStore.getStats();
+    }
+
     public void clearStorage() {
         canonicalTradeStore.clear();
     }
-}
\ No newline at end of file
+
+    private CompletableFuture<PublishResult> publish(String key, byte[] payload) {
+        return key != null ? kafkaPublisher.publishTrade(key, payload) : kafkaPublisher.publishTrade(payload);
+    }
+
+    // The normalized trade's account is already masked
+    private String recordKey(CanonicalTrade normalizedTrade) {
+        switch (partitionKey) {
+            case ACCOUNT:
+                return normalizedTrade.getAccountNumber();
+            case SECURITY:
+                return normalizedTrade.getSecurityId();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Lane of a trade before normalization: hashes the part of the raw account number or
+     * security ID that its record key is made of, as the transformer will normalize it, so
+     * that every trade with the same key lands on the same lane without building the key.
+     */
+    private int laneFor(CanonicalTrade trade) {
+        int hash = 0;
+        if (partitionKey == PartitionKey.SECURITY) {
+            String securityId = trade.getSecurityId();
+            if (securityId != null) {
+                int start = 0;
+                int end = securityId.length();
+                while (start < end && securityId.charAt(start) <= ' ') {
+                    start++;
+                }
+                while (end > start && securityId.charAt(end - 1) <= ' ') {
+                    end--;
+                }
+                for (int i = start; i < end; i++) {
+                    char c = securityId.charAt(i);
+                    hash = 31 * hash + (c >= 'a' && c <= 'z' ? c - ('a' - 'A') : c);
+                }
+            }
+        } else {
+            // Masking keeps the last four characters; shorter account numbers all mask alike
+            String accountNumber = trade.getAccountNumber();
+            if (accountNumber != null && accountNumber.length() > 4) {
+                for (int i = accountNumber.length() - 4; i < accountNumber.length(); i++) {
+                    hash = 31 * hash + accountNumber.charAt(i);
+                }
+            }
+        }
+        return lanes.laneForHash(hash);
+    }
+
+    private static boolean isSpilled(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof KafkaPublisher.PublishSpilledException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+
+    /**
+     * Updates positions with the trades of a transaction once it commits, or releases their
+     * fingerprints if it rolls back.
+     */
+    private final class TransactionEffects implements TransactionSynchronization {
+        private final Queue<CanonicalTrade> publishedTrades = new ConcurrentLinkedQueue<>();
+        private final List<TradeFingerprint> fingerprints = new ArrayList<>();
+        private final List<String> tradeIds = new ArrayList<>();
+
+        void claimed(TradeFingerprint fingerprint, String tradeId) {
+            fingerprints.add(fingerprint);
+            tradeIds.add(tradeId);
+        }
+
+        void published(CanonicalTrade normalizedTrade) {
+            publishedTrades.add(normalizedTrade);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                publishedTrades.forEach(aggregator::record);
+            } else {
+                for (int i = 0; i < fingerprints.size(); i++) {
+                    idempotencyIndex.release(fingerprints.get(i), tradeIds.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * A trade handed to the producer, or a duplicate if {@code published} is null.
+     */
+    private static final class PendingTrade {
+        final String tradeId;
+        final CanonicalTrade normalizedTrade;
+        final TradeFingerprint fingerprint;
+        final CompletableFuture<PublishResult> published;
+
+        PendingTrade(String tradeId, CanonicalTrade normalizedTrade, TradeFingerprint fingerprint,
+                     CompletableFuture<PublishResult> published) {
+            this.tradeId = tradeId;
+            this.normalizedTrade = normalizedTrade;
+            this.fingerprint = fingerprint;
+            this.published = published;
+        }
+    }
+
+    public static final class Builder {
+
+        private final TradeTransformer transformer;
+        private final KafkaPublisher kafkaPublisher;
+        private final TradeSerde serde;
+        private TradeStore canonicalTradeStore = new InMemoryTradeStore();
+        private TradeMetrics metrics = TradeMetrics.noop();
+        private IdempotencyIndex idempotencyIndex;
+        private TradeAggregator aggregator = new TradeAggregator();
+        private PartitionKey partitionKey = PartitionKey.ACCOUNT;
+        private ShardedExecutor lanes;
+        private TradeIdGenerator idGenerator = new TimeOrderedIdGenerator();
+
+        private Builder(TradeTransformer transformer, KafkaPublisher kafkaPublisher, TradeSerde serde) {
+            this.transformer = transformer;
+            this.kafkaPublisher = kafkaPublisher;
+            this.serde = serde;
+        }
+
+        public Builder store(TradeStore canonicalTradeStore) {
+            this.canonicalTradeStore = canonicalTradeStore;
+            return this;
+        }
+
+        public Builder metrics(TradeMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public Builder idempotencyIndex(IdempotencyIndex idempotencyIndex) {
+            this.idempotencyIndex = idempotencyIndex;
+            return this;
+        }
+
+        public Builder aggregator(TradeAggregator aggregator) {
+            this.aggregator = aggregator;
+            return this;
+        }
+
+        public Builder partitionKey(PartitionKey partitionKey) {
+            this.partitionKey = partitionKey;
+            return this;
+        }
+
+        public Builder lanes(ShardedExecutor lanes) {
+            this.lanes = lanes;
+            return this;
+        }
+
+        public Builder idGenerator(TradeIdGenerator idGenerator) {
+            this.idGenerator = idGenerator;
+            return this;
+        }
+
+        public TradeService build() {
+            return new TradeService(transformer, kafkaPublisher, serde, canonicalTradeStore, metrics,
+                idempotencyIndex, aggregator, partitionKey, lanes, idGenerator);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.TradeResult;
+import com.example.instructions.service.KafkaListenerService.ParsedPoll;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Consume-transform-produce listener for {@code app.kafka.listener.mode: transactional}.
+ * The container runs each poll in a Kafka transaction: the outbound trades, the parked
+ * records and the poll's offsets are committed together, so read-committed consumers of
+ * the outbound topic see every inbound trade exactly once, even across crashes.
+ *
+ * <p>Trades are processed on the consumer thread, which the transaction's producer is bound
+ * to, rather than on the processing lanes. Each inbound partition is still processed in
+ * order. Invalid and unreadable records are dead-lettered inside the transaction. A publish
+ * failure cannot be parked, since it leaves the transaction unable to commit: the poll is
+ * rolled back and redelivered instead.
+ */
+@Service
+@ConditionalOnProperty(name = "app.kafka.listener.mode", havingValue = "transactional")
+public class TransactionalListenerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionalListenerService.class);
+
+    private final KafkaListenerService listenerService;
+    private final TradeService tradeService;
+    private final KafkaTransactionManager<String, byte[]> transactionManager;
+    private final KafkaPublisher publisher;
+    private final DeadLetterPublisher deadLetterPublisher;
+
+    @Autowired
+    public TransactionalListenerService(KafkaListenerService listenerService, TradeService tradeService,
+                                        KafkaPublisher kafkaPublisher, DeadLetterPublisher deadLetterPublisher,
+                                        KafkaTransactionManager<String, byte[]> tradeTransactionManager) {
+        this.listenerService = listenerService;
+        this.tradeService = tradeService;
+        this.transactionManager = tradeTransactionManager;
+        KafkaTemplate<String, byte[]> template = new KafkaTemplate<>(tradeTransactionManager.getProducerFactory());
+        this.publisher = kafkaPublisher.withTemplate(template);
+        this.deadLetterPublisher = deadLetterPublisher.withTemplate(template);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Runs after the listener containers have stopped
+        transactionManager.getProducerFactory().reset();
+    }
+
+    @KafkaListener(id = "tradeInstructionTransactionalListener",
+                   topics = "${app.kafka.topics.inbound}",
+                   containerFactory = "transactionalKafkaListenerContainerFactory",
+                   concurrency = "${app.kafka.listener.concurrency:3}")
+    public void handleTradeInstructionBatch(List<ConsumerRecord<String, byte[]>> records, Consumer<?, ?> consumer) {
+        ParsedPoll poll = listenerService.parse(records);
+        List<TradeResult> results = tradeService.processTradesInTransaction(poll.trades, 0, publisher);
+
+        for (TradeResult result : results) {
+            if (result.isRetryable() && result.getTradeId() != null) {
+                throw new IllegalStateException("Publish failed, rolling back poll of " + records.size()
+                    + " records: " + result.getError());
+            }
+        }
+
+        CompletableFuture.allOf(deadLetterPublisher.deadLetter(poll.unreadable),
+            listenerService.park(poll.records, results, deadLetterPublisher)).join();
+        logger.debug("Processed Kafka batch of {} messages in a transaction, {} unreadable",
+                   records.size(), poll.unreadable.size());
+
+        listenerService.recordLag(consumer);
+    }
+}
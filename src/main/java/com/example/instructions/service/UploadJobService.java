@@ -0,0 +1,522 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.TradeResult;
+import com.example.instructions.model.TradeResultPage;
+import com.example.instructions.model.UploadJob;
+import com.example.instructions.util.TradeFileReader;
+import com.example.instructions.util.TradeIterator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Runs file uploads as background jobs. An upload is spooled into its own directory under
+ * {@code app.jobs.directory} and queued on a pool of {@code app.jobs.concurrency} job
+ * threads; each job pushes its file through the {@link ParallelIngestionEngine} and appends
+ * one NDJSON result line per record to a results file, which clients page through while
+ * the job runs.
+ *
+ * <p>The job's state is checkpointed next to its results at most once per
+ * {@code checkpoint-interval}, after the results are forced to disk. A job interrupted by a
+ * restart is resumed from its last checkpoint: the results file is cut back to the
+ * checkpointed length and the records already processed are skipped. Records processed
+ * after the last checkpoint are processed again.
+ */
+@Service
+public class UploadJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadJobService.class);
+
+    private static final String JOB_FILE = "job.json";
+    private static final String UPLOAD_FILE = "upload";
+    private static final String RESULTS_FILE = "results.ndjson";
+
+    private final ParallelIngestionEngine ingestionEngine;
+    private final TradeFileReader tradeFileReader;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter resultWriter;
+    private final ObjectReader resultReader;
+    private final Path directory;
+    private final int maxQueued;
+    // Free places for submitted jobs waiting for a job thread; resumed jobs take none
+    private final Semaphore queueSlots;
+    private final long checkpointIntervalNanos;
+    private final Duration retention;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final List<Job> interrupted = new ArrayList<>();
+    private volatile boolean shuttingDown;
+
+    @Autowired
+    public UploadJobService(ParallelIngestionEngine ingestionEngine, TradeFileReader tradeFileReader,
+                            ObjectMapper objectMapper,
+                            @Qualifier("uploadJobThreadFactory") ThreadFactory threadFactory,
+                            @Value("${app.jobs.directory:data/jobs}") String directory,
+                            @Value("${app.jobs.concurrency:2}") int concurrency,
+                            @Value("${app.jobs.max-queued:16}") int maxQueued,
+                            @Value("${app.jobs.checkpoint-interval:1s}") Duration checkpointInterval,
+                            @Value("${app.jobs.retention:24h}") Duration retention) throws IOException {
+        this.ingestionEngine = ingestionEngine;
+        this.tradeFileReader = tradeFileReader;
+        this.objectMapper = objectMapper;
+        this.resultWriter = objectMapper.writerFor(TradeResult.class);
+        this.resultReader = objectMapper.readerFor(TradeResult.class);
+        this.directory = Paths.get(directory);
+        this.maxQueued = maxQueued;
+        this.queueSlots = new Semaphore(maxQueued);
+        this.checkpointIntervalNanos = checkpointInterval.toNanos();
+        this.retention = retention;
+        // Unbounded so that interrupted jobs can always be resumed; queueSlots enforces max-queued
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), threadFactory);
+
+        Files.createDirectories(this.directory);
+        load();
+    }
+
+    /**
+     * Moves the uploaded file into a new job and queues it.
+     *
+     * @throws RejectedExecutionException if {@code max-queued} jobs are already waiting
+     */
+    public UploadJob submit(MultipartFile file, TradeFileReader.Format format) throws IOException {
+        if (!queueSlots.tryAcquire()) {
+            throw new RejectedExecutionException(maxQueued + " upload jobs are already queued");
+        }
+
+        String filename = file.getOriginalFilename();
+        String jobId = UUID.randomUUID().toString();
+        Job job = new Job(directory.resolve(jobId), new UploadJob(jobId, filename, format.name(), Instant.now()));
+        try {
+            Files.createDirectories(job.directory);
+            // Moves the file the container has already spooled rather than copying it again
+            file.transferTo(job.directory.resolve(UPLOAD_FILE));
+            checkpoint(job);
+            jobs.put(jobId, job);
+            executor.execute(() -> {
+                queueSlots.release();
+                run(job);
+            });
+        } catch (IOException | RuntimeException e) {
+            queueSlots.release();
+            jobs.remove(jobId);
+            delete(job.directory);
+            throw e;
+        }
+
+        logger.info("Queued upload job {} for file {}", jobId, filename);
+        return job.snapshot();
+    }
+
+    /**
+     * Returns the current state of a job, or null if there is no such job.
+     */
+    public UploadJob getJob(String jobId) {
+        Job job = jobs.get(jobId);
+        return job == null ? null : job.snapshot();
+    }
+
+    /**
+     * Returns up to {@code limit} results of a job, in input order, continuing after
+     * {@code cursor} if one is given, or null if there is no such job. A page may be short
+     * or empty while the job is still running.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public TradeResultPage getResults(String jobId, String cursor, int limit) throws IOException {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return null;
+        }
+        UploadJob state = job.snapshot();
+        long end = state.getResultsOffset();
+        long position = cursor == null ? 0 : parseCursor(cursor, end);
+
+        List<TradeResult> results = new ArrayList<>(Math.min(limit, 1024));
+        if (position < end) {
+            try (FileChannel channel = FileChannel.open(job.directory.resolve(RESULTS_FILE), StandardOpenOption.READ);
+                 InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(position)))) {
+                ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+                while (results.size() < limit && position < end) {
+                    int b;
+                    while ((b = in.read()) != '\n' && b >= 0) {
+                        line.write(b);
+                    }
+                    position += line.size() + 1;
+                    results.add(resultReader.readValue(line.toByteArray()));
+                    line.reset();
+                }
+            }
+        }
+
+        boolean complete = state.isFinished() && position >= end;
+        return new TradeResultPage(results, complete ? null : Long.toString(position));
+    }
+
+    /**
+     * Writes the job's state as an NDJSON line every {@code interval}, and once more when
+     * it finishes. Returns false without writing if there is no such job.
+     */
+    public boolean streamProgress(String jobId, OutputStream outputStream, Duration interval) throws IOException {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            while (true) {
+                UploadJob state = job.snapshot();
+                generator.writeObject(state);
+                generator.flush();
+                if (state.isFinished()) {
+                    return true;
+                }
+                job.finished.await(interval.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+
+    /**
+     * Waits for a job to finish. Returns false if it is still running after the timeout or
+     * there is no such job.
+     */
+    public boolean awaitFinished(String jobId, Duration timeout) throws InterruptedException {
+        Job job = jobs.get(jobId);
+        return job != null && job.finished.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Queues the jobs that were queued or running when the service last stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        List<Job> resumed;
+        synchronized (interrupted) {
+            resumed = new ArrayList<>(interrupted);
+            interrupted.clear();
+        }
+        resumed.sort(Comparator.comparing(job -> job.state.getCreatedAt()));
+        for (Job job : resumed) {
+            logger.info("Resuming upload job {} after {} processed records",
+                       job.state.getJobId(), job.state.getRowsProcessed());
+            executor.execute(() -> run(job));
+        }
+    }
+
+    /**
+     * Deletes finished jobs older than {@code app.jobs.retention}, with their results.
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.purge-interval:PT10M}")
+    public void purgeExpiredJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        for (Job job : jobs.values()) {
+            UploadJob state = job.snapshot();
+            if (state.isFinished() && state.getFinishedAt() != null && state.getFinishedAt().isBefore(cutoff)) {
+                jobs.remove(state.getJobId());
+                delete(job.directory);
+                logger.debug("Purged upload job {}", state.getJobId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Running jobs keep their RUNNING checkpoint and are resumed on the next start
+        shuttingDown = true;
+        executor.shutdownNow();
+    }
+
+    private void run(Job job) {
+        if (shuttingDown) {
+            return;
+        }
+        UploadJob start;
+        synchronized (job) {
+            job.state.setStatus(UploadJob.Status.RUNNING);
+            start = job.snapshot();
+        }
+        long skip = start.getRowsProcessed();
+        job.rowsParsed.set(skip);
+        Path resultsPath = job.directory.resolve(RESULTS_FILE);
+
+        try (TradeIterator trades = tradeFileReader.read(Files.newInputStream(job.directory.resolve(UPLOAD_FILE)),
+                                                          TradeFileReader.Format.valueOf(start.getFormat()));
+             FileChannel results = FileChannel.open(resultsPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Results written after the last checkpoint are written again below
+            results.truncate(start.getResultsOffset());
+            results.position(start.getResultsOffset());
+            for (long i = 0; i < skip && trades.hasNext(); i++) {
+                trades.next();
+            }
+            checkpoint(job);
+
+            ResultSink sink = new ResultSink(job, results, skip);
+            ingestionEngine.ingest(counting(trades, job), sink::accept);
+            results.force(false);
+            finish(job, UploadJob.Status.COMPLETED, null);
+
+        } catch (IOException | RuntimeException e) {
+            if (shuttingDown) {
+                logger.warn("Upload job {} stopped by shutdown, will resume on restart", start.getJobId());
+                return;
+            }
+            Throwable cause = e instanceof UncheckedIOException ? e.getCause() : e;
+            logger.error("Upload job {} failed: {}", start.getJobId(), cause.getMessage(), cause);
+            finish(job, UploadJob.Status.FAILED, cause.getMessage());
+        }
+    }
+
+    private void finish(Job job, UploadJob.Status status, String error) {
+        UploadJob state;
+        synchronized (job) {
+            job.state.setStatus(status);
+            job.state.setError(error);
+            job.state.setFinishedAt(Instant.now());
+            state = job.snapshot();
+        }
+        try {
+            checkpoint(job);
+            Files.deleteIfExists(job.directory.resolve(UPLOAD_FILE));
+        } catch (IOException e) {
+            logger.error("Failed to checkpoint upload job {}: {}", state.getJobId(), e.getMessage());
+        }
+        job.finished.countDown();
+        logger.info("Upload job {} {}: {} records, {} accepted, {} rejected, {} failed, {} published",
+                   state.getJobId(), status, state.getRowsProcessed(), state.getAccepted(),
+                   state.getRejected(), state.getFailed(), state.getPublishedAcked());
+    }
+
+    private void checkpoint(Job job) throws IOException {
+        Path temp = job.directory.resolve(JOB_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(objectMapper.writeValueAsBytes(job.snapshot()));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, job.directory.resolve(JOB_FILE), StandardCopyOption.ATOMIC_MOVE,
+                   StandardCopyOption.REPLACE_EXISTING);
+        job.lastCheckpointNanos = System.nanoTime();
+    }
+
+    private void load() throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path entry : entries) {
+                Path file = entry.resolve(JOB_FILE);
+                if (!Files.exists(file)) {
+                    continue;
+                }
+                try {
+                    Job job = new Job(entry, objectMapper.readValue(file.toFile(), UploadJob.class));
+                    jobs.put(job.state.getJobId(), job);
+                    if (job.state.isFinished()) {
+                        job.finished.countDown();
+                    } else if (Files.exists(entry.resolve(UPLOAD_FILE))) {
+                        job.state.setStatus(UploadJob.Status.QUEUED);
+                        interrupted.add(job);
+                    } else {
+                        job.state.setStatus(UploadJob.Status.FAILED);
+                        job.state.setError("Spooled upload is missing");
+                        job.finished.countDown();
+                    }
+                } catch (IOException e) {
+                    logger.warn("Ignoring unreadable upload job in {}: {}", entry, e.getMessage());
+                }
+            }
+        }
+        if (!jobs.isEmpty()) {
+            logger.info("Loaded {} upload jobs from {}, {} to resume", jobs.size(), directory, interrupted.size());
+        }
+    }
+
+    private static Iterator<CanonicalTrade> counting(Iterator<CanonicalTrade> trades, Job job) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return trades.hasNext();
+            }
+
+            @Override
+            public CanonicalTrade next() {
+                CanonicalTrade trade = trades.next();
+                job.rowsParsed.incrementAndGet();
+                return trade;
+            }
+        };
+    }
+
+    private static long parseCursor(String cursor, long end) {
+        try {
+            long position = Long.parseLong(cursor);
+            if (position >= 0 && position <= end) {
+                return position;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+
+    private static void delete(Path path) {
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete {}: {}", file, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Appends each chunk of results to the results file and checkpoints the job.
+     */
+    private final class ResultSink {
+
+        private final Job job;
+        private final FileChannel results;
+        private final long firstIndex;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+
+        ResultSink(Job job, FileChannel results, long firstIndex) {
+            this.job = job;
+            this.results = results;
+            this.firstIndex = firstIndex;
+        }
+
+        void accept(List<TradeResult> chunk) {
+            try {
+                buffer.reset();
+                long accepted = 0;
+                long rejected = 0;
+                long failed = 0;
+                long published = 0;
+                for (TradeResult result : chunk) {
+                    // The engine numbers records from the point the job resumed
+                    result.setIndex(result.getIndex() + firstIndex);
+                    resultWriter.writeValue(buffer, result);
+                    buffer.write('\n');
+                    if (result.isRetryable()) {
+                        failed++;
+                    } else if (result.getTradeId() != null) {
+                        accepted++;
+                    } else {
+                        rejected++;
+                    }
+                    if (result.isAccepted() && result.getDuplicate() == null) {
+                        published++;
+                    }
+                }
+                ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+                while (bytes.hasRemaining()) {
+                    results.write(bytes);
+                }
+
+                synchronized (job) {
+                    UploadJob state = job.state;
+                    state.setRowsProcessed(state.getRowsProcessed() + chunk.size());
+                    state.setAccepted(state.getAccepted() + accepted);
+                    state.setRejected(state.getRejected() + rejected);
+                    state.setFailed(state.getFailed() + failed);
+                    state.setPublishedAcked(state.getPublishedAcked() + published);
+                    state.setResultsOffset(state.getResultsOffset() + buffer.size());
+                }
+                if (System.nanoTime() - job.lastCheckpointNanos >= checkpointIntervalNanos) {
+                    results.force(false);
+                    checkpoint(job);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class Job {
+
+        private final Path directory;
+        // Guarded by the job's monitor
+        private final UploadJob state;
+        private final AtomicLong rowsParsed = new AtomicLong();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile long lastCheckpointNanos;
+
+        Job(Path directory, UploadJob state) {
+            this.directory = directory;
+            this.state = state;
+            this.rowsParsed.set(state.getRowsParsed());
+        }
+
+        synchronized UploadJob snapshot() {
+            UploadJob copy = new UploadJob(state.getJobId(), state.getFilename(), state.getFormat(),
+                state.getCreatedAt());
+            copy.setStatus(state.getStatus());
+            copy.setFinishedAt(state.getFinishedAt());
+            copy.setRowsParsed(Math.max(rowsParsed.get(), state.getRowsProcessed()));
+            copy.setRowsProcessed(state.getRowsProcessed());
+            copy.setAccepted(state.getAccepted());
+            copy.setRejected(state.getRejected());
+            copy.setFailed(state.getFailed());
+            copy.setPublishedAcked(state.getPublishedAcked());
+            copy.setResultsOffset(state.getResultsOffset());
+            copy.setError(state.getError());
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.instructions.store;
+
+import com.example.instructions.util.TradeFingerprint;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exact, lock-free index from trade fingerprints to the IDs of the trades that first
+ * claimed them, covering a sliding window of recent trades.
+ *
+ * <p>Each generation is an open-addressing table with linear probing: the two fingerprint
+ * longs sit in a primitive array and the trade IDs (already held by the trade store) in a
+ * parallel reference array, so a bucket costs about 20 bytes and no objects of its own,
+ * with at least two buckets per entry. A slot is claimed by CAS on its first key word,
+ * from empty to a reserved marker; the claimer then writes the rest of the key and the ID
+ * and finally publishes the first key word with a release store. Readers that meet a
+ * reserved slot spin briefly until it is published.
+ *
+ * <p>When the current generation reaches its window size it becomes the previous one and
+ * a new empty generation takes over, dropping the generation before it. Lookups check both,
+ * so a fingerprint is remembered for at least one and at most two window sizes of trades.
+ */
+public class IdempotencyIndex {
+
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final long EMPTY = 0;
+    private static final long RESERVED = 1;
+
+    private final int windowSize;
+    private final AtomicReference<Generation[]> generations;
+
+    private final LongAdder duplicates = new LongAdder();
+
+    public IdempotencyIndex(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        this.windowSize = windowSize;
+        this.generations = new AtomicReference<>(new Generation[] {new Generation(windowSize), null});
+    }
+
+    /**
+     * Claims the fingerprint for {@code tradeId}, unless a trade in the window already holds
+     * it. Returns the ID of that earlier trade, or {@code null} if the claim succeeded.
+     */
+    public String claim(TradeFingerprint fingerprint, String tradeId) {
+        long hi = keyWord(fingerprint.getHi());
+        long lo = fingerprint.getLo();
+
+        Generation[] current = generations.get();
+        if (current[1] != null) {
+            String previous = current[1].find(hi, lo);
+            if (previous != null) {
+                duplicates.increment();
+                return previous;
+            }
+        }
+
+        String existing = current[0].claim(hi, lo, tradeId);
+        if (existing != null) {
+            duplicates.increment();
+            return existing;
+        }
+        if (current[0].size.incrementAndGet() == windowSize) {
+            generations.compareAndSet(current, new Generation[] {new Generation(windowSize), current[0]});
+        }
+        return null;
+    }
+
+    /**
+     * Gives up a claim made by {@code tradeId}, so that the same trade can be processed
+     * again, for example after it failed to publish.
+     */
+    public void release(TradeFingerprint fingerprint, String tradeId) {
+        long hi = keyWord(fingerprint.getHi());
+        long lo = fingerprint.getLo();
+        for (Generation generation : generations.get()) {
+            if (generation != null) {
+                generation.release(hi, lo, tradeId);
+            }
+        }
+    }
+
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    /**
+     * Approximate number of fingerprints held across both generations.
+     */
+    public int size() {
+        int size = 0;
+        for (Generation generation : generations.get()) {
+            if (generation != null) {
+                size += generation.size.get();
+            }
+        }
+        return size;
+    }
+
+    // Keeps the first key word clear of the EMPTY and RESERVED markers
+    private static long keyWord(long hi) {
+        return hi == EMPTY || hi == RESERVED ? hi + 2 : hi;
+    }
+
+    private static final class Generation {
+
+        private final long[] keys;
+        private final AtomicReferenceArray<String> ids;
+        private final int mask;
+        private final AtomicInteger size = new AtomicInteger();
+
+        Generation(int windowSize) {
+            // At most half full once the window is reached
+            int buckets = Integer.highestOneBit(Math.max(2, windowSize) - 1) << 2;
+            this.keys = new long[2 * buckets];
+            this.ids = new AtomicReferenceArray<>(buckets);
+            this.mask = buckets - 1;
+        }
+
+        String find(long hi, long lo) {
+            for (int bucket = bucketOf(hi, lo); ; bucket = (bucket + 1) & mask) {
+                long word = awaitPublished(bucket);
+                if (word == EMPTY) {
+                    return null;
+                }
+                if (word == hi && keys[2 * bucket + 1] == lo) {
+                    return ids.get(bucket);
+                }
+            }
+        }
+
+        String claim(long hi, long lo, String tradeId) {
+            for (int bucket = bucketOf(hi, lo); ; bucket = (bucket + 1) & mask) {
+                long word = awaitPublished(bucket);
+                if (word == EMPTY) {
+                    if (!KEYS.compareAndSet(keys, 2 * bucket, EMPTY, RESERVED)) {
+                        // Lost the race for this bucket; look at it again
+                        bucket = (bucket - 1) & mask;
+                        continue;
+                    }
+                    keys[2 * bucket + 1] = lo;
+                    ids.set(bucket, tradeId);
+                    KEYS.setRelease(keys, 2 * bucket, hi);
+                    return null;
+                }
+                if (word == hi && keys[2 * bucket + 1] == lo) {
+                    String existing = ids.get(bucket);
+                    // A released entry may be claimed again
+                    while (existing == null) {
+                        if (ids.compareAndSet(bucket, null, tradeId)) {
+                            return null;
+                        }
+                        existing = ids.get(bucket);
+                    }
+                    return existing;
+                }
+            }
+        }
+
+        void release(long hi, long lo, String tradeId) {
+            for (int bucket = bucketOf(hi, lo); ; bucket = (bucket + 1) & mask) {
+                long word = awaitPublished(bucket);
+                if (word == EMPTY) {
+                    return;
+                }
+                if (word == hi && keys[2 * bucket + 1] == lo) {
+                    ids.compareAndSet(bucket, tradeId, null);
+                    return;
+                }
+            }
+        }
+
+        private long awaitPublished(int bucket) {
+            long word;
+            while ((word = (long) KEYS.getAcquire(keys, 2 * bucket)) == RESERVED) {
+                Thread.onSpinWait();
+            }
+            return word;
+        }
+
+        private int bucketOf(long hi, long lo) {
+            return (int) (hi ^ (hi >>> 32) ^ lo) & mask;
+        }
+    }
+}
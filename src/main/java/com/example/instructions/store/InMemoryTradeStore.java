@@ -0,0 +1,178 @@
+package com.example.instructions.store;
+
+import com.example.instructions.model.CanonicalTrade;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Heap-backed trade store bounded by entry count, estimated bytes and a TTL measured
+ * from ingest time. Entries are evicted oldest-first: ingest order is also expiry order,
+ * so a FIFO queue beside the map is enough and no per-read bookkeeping is needed.
+ */
+public class InMemoryTradeStore implements TradeStore {
+
+    // Object headers, the map node, the entry and the BigDecimal/LocalDateTime of a trade
+    private static final int ENTRY_OVERHEAD_BYTES = 320;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> ingestOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    private volatile Consumer<String> removalListener;
+
+    public InMemoryTradeStore() {
+        this(Integer.MAX_VALUE, Long.MAX_VALUE, null, Clock.systemUTC());
+    }
+
+    /**
+     * @param ttl retention from ingest time, or null to keep entries until they are evicted by size
+     */
+    public InMemoryTradeStore(int maxEntries, long maxBytes, Duration ttl, Clock clock) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Trade store limits must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttl == null || ttl.isZero() ? Long.MAX_VALUE : ttl.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public void put(String tradeId, CanonicalTrade trade) {
+        Entry entry = new Entry(tradeId, trade, clock.millis(), estimateBytes(tradeId, trade));
+        Entry previous = entries.put(tradeId, entry);
+        if (previous != null) {
+            estimatedBytes.addAndGet(-previous.bytes);
+        }
+        estimatedBytes.addAndGet(entry.bytes);
+        ingestOrder.add(entry);
+        evict(entry.ingestedAt);
+    }
+
+    @Override
+    public CanonicalTrade get(String tradeId) {
+        Entry entry = entries.get(tradeId);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(entry, clock.millis())) {
+            if (remove(entry)) {
+                expirations.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.trade;
+    }
+
+    @Override
+    public CanonicalTrade peek(String tradeId) {
+        Entry entry = entries.get(tradeId);
+        return entry == null || isExpired(entry, clock.millis()) ? null : entry.trade;
+    }
+
+    @Override
+    public int size() {
+        evict(clock.millis());
+        return entries.size();
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        ingestOrder.clear();
+        estimatedBytes.set(0);
+    }
+
+    @Override
+    public TradeStoreStats getStats() {
+        return new TradeStoreStats(size(), estimatedBytes.get(), hits.sum(), misses.sum(),
+            evictions.sum(), expirations.sum());
+    }
+
+    @Override
+    public void setRemovalListener(Consumer<String> listener) {
+        this.removalListener = listener;
+    }
+
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = ingestOrder.peek()) != null) {
+            boolean expired = isExpired(oldest, now);
+            boolean overLimit = entries.size() > maxEntries || estimatedBytes.get() > maxBytes;
+            boolean stale = entries.get(oldest.tradeId) != oldest;
+            if (!expired && !overLimit && !stale) {
+                return;
+            }
+            if (ingestOrder.remove(oldest) && remove(oldest)) {
+                if (expired) {
+                    expirations.increment();
+                } else {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    private boolean remove(Entry entry) {
+        if (entries.remove(entry.tradeId, entry)) {
+            estimatedBytes.addAndGet(-entry.bytes);
+            Consumer<String> listener = removalListener;
+            if (listener != null) {
+                listener.accept(entry.tradeId);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.ingestedAt >= ttlMillis;
+    }
+
+    private static int estimateBytes(String tradeId, CanonicalTrade trade) {
+        return ENTRY_OVERHEAD_BYTES
+            + stringBytes(tradeId)
+            + stringBytes(trade.getAccountNumber())
+            + stringBytes(trade.getSecurityId())
+            + stringBytes(trade.getTradeType());
+    }
+
+    private static int stringBytes(String value) {
+        // Compact Latin-1 strings: header plus backing array
+        return value == null ? 0 : 40 + value.length();
+    }
+
+    private static final class Entry {
+        private final String tradeId;
+        private final CanonicalTrade trade;
+        private final long ingestedAt;
+        private final int bytes;
+
+        private Entry(String tradeId, CanonicalTrade trade, long ingestedAt, int bytes) {
+            this.tradeId = tradeId;
+            this.trade = trade;
+            this.ingestedAt = ingestedAt;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.instructions.store;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.StoredTrade;
+import com.example.instructions.model.TradePage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * Adds secondary indexes to a trade store: trades by security ID and by masked account,
+ * each kept in timestamp order, and all trades in timestamp order. Indexes are updated
+ * before a trade is handed to the wrapped store and dropped when the wrapped store reports
+ * the trade evicted or expired, so they never outgrow it.
+ *
+ * <p>Each index is a {@link ConcurrentSkipListSet} of (timestamp, trade ID) keys, so a
+ * query walks a range of it in order and stops once the page is full: the cost of a page
+ * does not depend on how many trades match in total. Pages are resumed from an opaque
+ * cursor holding the last key returned.
+ */
+public class IndexedTradeStore implements TradeStore {
+
+    private static final NavigableSet<Key> NONE = new ConcurrentSkipListSet<>();
+
+    private final TradeStore delegate;
+
+    private final ConcurrentHashMap<String, Key> keys = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Key> byTimestamp = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<String, NavigableSet<Key>> bySecurity = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, NavigableSet<Key>> byAccount = new ConcurrentHashMap<>();
+
+    private volatile Consumer<String> removalListener;
+
+    public IndexedTradeStore(TradeStore delegate) {
+        this.delegate = delegate;
+        delegate.setRemovalListener(this::onRemoved);
+    }
+
+    @Override
+    public void put(String tradeId, CanonicalTrade trade) {
+        // Indexed first, so that an eviction of the new trade inside put() finds its keys
+        Key key = new Key(tradeId, trade);
+        Key previous = keys.put(tradeId, key);
+        if (previous != null) {
+            unindex(previous);
+        }
+        byTimestamp.add(key);
+        add(bySecurity, key.securityId, key);
+        add(byAccount, key.account, key);
+
+        try {
+            delegate.put(tradeId, trade);
+        } catch (RuntimeException e) {
+            if (keys.remove(tradeId, key)) {
+                unindex(key);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public CanonicalTrade get(String tradeId) {
+        return delegate.get(tradeId);
+    }
+
+    @Override
+    public CanonicalTrade peek(String tradeId) {
+        return delegate.peek(tradeId);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        keys.clear();
+        byTimestamp.clear();
+        bySecurity.clear();
+        byAccount.clear();
+    }
+
+    @Override
+    public TradeStoreStats getStats() {
+        return delegate.getStats();
+    }
+
+    @Override
+    public void setRemovalListener(Consumer<String> listener) {
+        this.removalListener = listener;
+    }
+
+    /**
+     * Returns up to {@code limit} stored trades with timestamps in {@code [from, to)},
+     * oldest first, continuing after {@code cursor} if one is given.
+     *
+     * @param securityId    only trades in this normalized security ID, or null for any
+     * @param maskedAccount only trades of this masked account, or null for any
+     * @param from          lower bound, inclusive, or null for none
+     * @param to            upper bound, exclusive, or null for none
+     * @param cursor        next cursor of the previous page, or null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public TradePage query(String securityId, String maskedAccount, LocalDateTime from, LocalDateTime to,
+                           String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        NavigableSet<Key> index;
+        if (securityId != null) {
+            index = bySecurity.getOrDefault(securityId, NONE);
+        } else if (maskedAccount != null) {
+            index = byAccount.getOrDefault(maskedAccount, NONE);
+        } else {
+            index = byTimestamp;
+        }
+
+        if (cursor != null) {
+            index = index.tailSet(Key.decode(cursor), false);
+        } else if (from != null) {
+            index = index.tailSet(Key.bound(from), true);
+        }
+        if (to != null) {
+            index = index.headSet(Key.bound(to), false);
+        }
+
+        List<StoredTrade> trades = new ArrayList<>(Math.min(limit, 1024));
+        Key last = null;
+        for (Key key : index) {
+            if (securityId != null && maskedAccount != null && !maskedAccount.equals(key.account)) {
+                continue;
+            }
+            if (trades.size() == limit) {
+                return new TradePage(trades, last.encode());
+            }
+            // Skips trades removed since the iterator passed their key
+            CanonicalTrade trade = delegate.peek(key.tradeId);
+            if (trade != null) {
+                trades.add(new StoredTrade(key.tradeId, trade));
+                last = key;
+            }
+        }
+        return new TradePage(trades, null);
+    }
+
+    private void onRemoved(String tradeId) {
+        Key key = keys.remove(tradeId);
+        if (key != null) {
+            unindex(key);
+        }
+        Consumer<String> listener = removalListener;
+        if (listener != null) {
+            listener.accept(tradeId);
+        }
+    }
+
+    private void unindex(Key key) {
+        byTimestamp.remove(key);
+        remove(bySecurity, key.securityId, key);
+        remove(byAccount, key.account, key);
+    }
+
+    private static void add(ConcurrentHashMap<String, NavigableSet<Key>> index, String value, Key key) {
+        if (value == null) {
+            return;
+        }
+        index.compute(value, (ignored, set) -> {
+            NavigableSet<Key> keys = set != null ? set : new ConcurrentSkipListSet<>();
+            keys.add(key);
+            return keys;
+        });
+    }
+
+    private static void remove(ConcurrentHashMap<String, NavigableSet<Key>> index, String value, Key key) {
+        if (value == null) {
+            return;
+        }
+        // Empty sets are dropped under the map's per-key lock, so a concurrent add cannot be lost
+        index.computeIfPresent(value, (ignored, set) -> {
+            set.remove(key);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static final class Key implements Comparable<Key> {
+
+        private final long epochSecond;
+        private final int nano;
+        private final String tradeId;
+        private final String securityId;
+        private final String account;
+
+        Key(String tradeId, CanonicalTrade trade) {
+            LocalDateTime timestamp = trade.getTimestamp();
+            this.epochSecond = timestamp == null ? Long.MIN_VALUE : timestamp.toEpochSecond(ZoneOffset.UTC);
+            this.nano = timestamp == null ? 0 : timestamp.getNano();
+            this.tradeId = tradeId;
+            this.securityId = trade.getSecurityId();
+            this.account = trade.getAccountNumber();
+        }
+
+        private Key(long epochSecond, int nano, String tradeId) {
+            this.epochSecond = epochSecond;
+            this.nano = nano;
+            this.tradeId = tradeId;
+            this.securityId = null;
+            this.account = null;
+        }
+
+        // Sorts before every trade with this timestamp
+        static Key bound(LocalDateTime timestamp) {
+            return new Key(timestamp.toEpochSecond(ZoneOffset.UTC), timestamp.getNano(), "");
+        }
+
+        static Key decode(String cursor) {
+            try {
+                String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = value.split(":", 3);
+                return new Key(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), parts[2]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+        }
+
+        String encode() {
+            String value = epochSecond + ":" + nano + ":" + tradeId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = Long.compare(epochSecond, other.epochSecond);
+            if (result == 0) {
+                result = Integer.compare(nano, other.nano);
+            }
+            return result != 0 ? result : tradeId.compareTo(other.tradeId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && compareTo((Key) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return tradeId.hashCode();
+        }
+    }
+}
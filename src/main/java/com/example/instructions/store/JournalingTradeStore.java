@@ -0,0 +1,74 @@
+package com.example.instructions.store;
+
+import com.example.instructions.model.CanonicalTrade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes every stored trade through to a {@link TradeJournal} and falls back to the
+ * journal for lookups that miss the wrapped store, for example after eviction or a
+ * restart. Appends are group-committed by the journal's writer thread, so {@link #put}
+ * does not wait for the disk.
+ */
+public class JournalingTradeStore implements TradeStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalingTradeStore.class);
+
+    private final TradeStore delegate;
+    private final TradeJournal journal;
+
+    public JournalingTradeStore(TradeStore delegate, TradeJournal journal) {
+        this.delegate = delegate;
+        this.journal = journal;
+    }
+
+    @Override
+    public void put(String tradeId, CanonicalTrade trade) {
+        delegate.put(tradeId, trade);
+        journal.append(tradeId, trade).whenComplete((ignored, exception) -> {
+            if (exception != null) {
+                logger.error("Failed to journal trade {}: {}", tradeId, exception.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public CanonicalTrade get(String tradeId) {
+        CanonicalTrade trade = delegate.get(tradeId);
+        return trade != null ? trade : journal.read(tradeId);
+    }
+
+    @Override
+    public CanonicalTrade peek(String tradeId) {
+        return delegate.peek(tradeId);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        try {
+            journal.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to clear trade journal", e);
+        }
+    }
+
+    @Override
+    public TradeStoreStats getStats() {
+        return delegate.getStats();
+    }
+
+    @Override
+    public void setRemovalListener(Consumer<String> listener) {
+        delegate.setRemovalListener(listener);
+    }
+}
@@ -0,0 +1,424 @@
+package com.example.instructions.store;
+
+import com.example.instructions.model.CanonicalTrade;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Trade store that packs each trade into a fixed-width record in direct (off-heap)
+ * {@link ByteBuffer} segments, so stored trades cost no heap objects and no GC work.
+ * Records form a ring: a new trade overwrites the oldest one once the store is full,
+ * and expired records are dropped from the oldest end.
+ *
+ * <p>Record layout ({@value #RECORD_SIZE} bytes):
+ * <pre>
+ *  0  long  trade ID, most significant bits
+ *  8  long  trade ID, least significant bits
+ * 16  long  ingest time, epoch millis
+ * 24  long  amount, unscaled value
+ * 32  long  timestamp, epoch seconds (UTC)
+ * 40  byte  amount scale
+ * 41  byte  side, 'B' or 'S'
+ * 42  6B    security ID, ASCII
+ * 48  4B    last four characters of the masked account, ASCII
+ * 52  byte  number of account characters used
+ * </pre>
+ *
+ * The primary index is an open-addressing hash table of record slots, sized for a load
+ * factor of 0.7 at full capacity; keys are compared against the ID in the record itself,
+ * so the index costs about {@value #INDEX_BYTES_PER_RECORD} bytes of heap per record. Trades
+ * that do not fit the layout (non-UUID IDs, other sides, sub-second timestamps, oversized
+ * amounts) go to a small heap overflow store instead.
+ */
+public class OffHeapTradeStore implements TradeStore {
+
+    public static final int RECORD_SIZE = 56;
+
+    // One int bucket per 0.7 records, rounded up to whole bytes
+    private static final int INDEX_BYTES_PER_RECORD = 6;
+
+    private static final int SEGMENT_RECORDS = 1 << 16;
+    private static final int EMPTY = -1;
+    private static final String MASK = "****";
+
+    private static final int ID_MSB = 0;
+    private static final int ID_LSB = 8;
+    private static final int INGESTED_AT = 16;
+    private static final int AMOUNT_UNSCALED = 24;
+    private static final int EPOCH_SECOND = 32;
+    private static final int AMOUNT_SCALE = 40;
+    private static final int SIDE = 41;
+    private static final int SECURITY = 42;
+    private static final int ACCOUNT = 48;
+    private static final int ACCOUNT_LENGTH = 52;
+
+    private final ByteBuffer[] segments;
+    private final int capacity;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final InMemoryTradeStore overflow;
+
+    // Open-addressing index: record slot or EMPTY per bucket
+    private final int[] indexSlots;
+
+    // Ring positions as monotonically increasing sequences; slot = sequence % capacity
+    private long head;
+    private long tail;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile Consumer<String> removalListener;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param capacity maximum number of compact records
+     * @param ttl retention from ingest time, or null to keep records until they are overwritten
+     * @param overflow store for trades that do not fit the compact layout
+     */
+    public OffHeapTradeStore(int capacity, Duration ttl, Clock clock, InMemoryTradeStore overflow) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Trade store capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.ttlMillis = ttl == null || ttl.isZero() ? Long.MAX_VALUE : ttl.toMillis();
+        this.clock = clock;
+        this.overflow = overflow;
+        this.segments = new ByteBuffer[(capacity + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS];
+
+        // At least one bucket more than records, so that every probe reaches an empty bucket
+        long buckets = Math.max(capacity + 1L, (capacity * 10L + 6) / 7);
+        if (buckets > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Trade store capacity too large for the index: " + capacity);
+        }
+        this.indexSlots = new int[(int) buckets];
+        Arrays.fill(indexSlots, EMPTY);
+    }
+
+    /**
+     * Number of records that fit in {@code maxBytes}, counting the records and their index.
+     */
+    public static int capacityFor(long maxBytes) {
+        return (int) Math.min(Integer.MAX_VALUE, maxBytes / (RECORD_SIZE + INDEX_BYTES_PER_RECORD));
+    }
+
+    @Override
+    public void put(String tradeId, CanonicalTrade trade) {
+        UUID id = parseUuid(tradeId);
+        if (id == null || !fitsLayout(trade)) {
+            overflow.put(tradeId, trade);
+            return;
+        }
+
+        long now = clock.millis();
+        lock.writeLock().lock();
+        try {
+            expire(now);
+            int existing = findSlot(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            int slot;
+            if (existing != EMPTY) {
+                slot = existing;
+            } else {
+                if (head - tail == capacity) {
+                    removeOldest();
+                    evictions.increment();
+                }
+                slot = (int) (head++ % capacity);
+                insertIndex(id.getMostSignificantBits(), id.getLeastSignificantBits(), slot);
+            }
+            write(slot, id, now, trade);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public CanonicalTrade get(String tradeId) {
+        CanonicalTrade trade = peek(tradeId);
+        if (trade == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return trade;
+    }
+
+    @Override
+    public CanonicalTrade peek(String tradeId) {
+        UUID id = parseUuid(tradeId);
+        if (id == null) {
+            return overflow.peek(tradeId);
+        }
+
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            if (slot != EMPTY) {
+                ByteBuffer segment = segment(slot);
+                int offset = offset(slot);
+                if (!isExpired(segment.getLong(offset + INGESTED_AT), clock.millis())) {
+                    return read(segment, offset);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return overflow.peek(tradeId);
+    }
+
+    @Override
+    public int size() {
+        lock.writeLock().lock();
+        try {
+            expire(clock.millis());
+            return (int) (head - tail) + overflow.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(indexSlots, EMPTY);
+            head = 0;
+            tail = 0;
+            overflow.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public TradeStoreStats getStats() {
+        TradeStoreStats overflowStats = overflow.getStats();
+        int compactSize;
+        lock.writeLock().lock();
+        try {
+            expire(clock.millis());
+            compactSize = (int) (head - tail);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new TradeStoreStats(
+            compactSize + overflowStats.getSize(),
+            (long) compactSize * RECORD_SIZE + (long) indexSlots.length * Integer.BYTES
+                + overflowStats.getEstimatedBytes(),
+            hits.sum(), misses.sum(),
+            evictions.sum() + overflowStats.getEvictions(),
+            expirations.sum() + overflowStats.getExpirations());
+    }
+
+    @Override
+    public void setRemovalListener(Consumer<String> listener) {
+        this.removalListener = listener;
+        overflow.setRemovalListener(listener);
+    }
+
+    private void expire(long now) {
+        while (head != tail) {
+            int slot = (int) (tail % capacity);
+            if (!isExpired(segment(slot).getLong(offset(slot) + INGESTED_AT), now)) {
+                return;
+            }
+            removeOldest();
+            expirations.increment();
+        }
+    }
+
+    private void removeOldest() {
+        int slot = (int) (tail++ % capacity);
+        ByteBuffer segment = segment(slot);
+        int offset = offset(slot);
+        long msb = segment.getLong(offset + ID_MSB);
+        long lsb = segment.getLong(offset + ID_LSB);
+        removeIndex(msb, lsb);
+
+        Consumer<String> listener = removalListener;
+        if (listener != null) {
+            listener.accept(new UUID(msb, lsb).toString());
+        }
+    }
+
+    private boolean isExpired(long ingestedAt, long now) {
+        return now - ingestedAt >= ttlMillis;
+    }
+
+    // --- record encoding ---------------------------------------------------
+
+    private void write(int slot, UUID id, long now, CanonicalTrade trade) {
+        ByteBuffer segment = segment(slot);
+        int offset = offset(slot);
+        BigDecimal amount = trade.getAmount();
+        String account = trade.getAccountNumber();
+        String security = trade.getSecurityId();
+        int accountLength = account.length() - MASK.length();
+
+        segment.putLong(offset + ID_MSB, id.getMostSignificantBits());
+        segment.putLong(offset + ID_LSB, id.getLeastSignificantBits());
+        segment.putLong(offset + INGESTED_AT, now);
+        segment.putLong(offset + AMOUNT_UNSCALED, amount.unscaledValue().longValue());
+        segment.putLong(offset + EPOCH_SECOND, trade.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        segment.put(offset + AMOUNT_SCALE, (byte) amount.scale());
+        segment.put(offset + SIDE, (byte) trade.getTradeType().charAt(0));
+        for (int i = 0; i < 6; i++) {
+            segment.put(offset + SECURITY + i, (byte) security.charAt(i));
+        }
+        for (int i = 0; i < 4; i++) {
+            segment.put(offset + ACCOUNT + i, i < accountLength ? (byte) account.charAt(MASK.length() + i) : 0);
+        }
+        segment.put(offset + ACCOUNT_LENGTH, (byte) accountLength);
+    }
+
+    private static CanonicalTrade read(ByteBuffer segment, int offset) {
+        char[] security = new char[6];
+        for (int i = 0; i < security.length; i++) {
+            security[i] = (char) segment.get(offset + SECURITY + i);
+        }
+        int accountLength = segment.get(offset + ACCOUNT_LENGTH);
+        char[] account = new char[MASK.length() + accountLength];
+        MASK.getChars(0, MASK.length(), account, 0);
+        for (int i = 0; i < accountLength; i++) {
+            account[MASK.length() + i] = (char) segment.get(offset + ACCOUNT + i);
+        }
+
+        return new CanonicalTrade(
+            new String(account),
+            new String(security),
+            segment.get(offset + SIDE) == 'B' ? "B" : "S",
+            BigDecimal.valueOf(segment.getLong(offset + AMOUNT_UNSCALED), segment.get(offset + AMOUNT_SCALE)),
+            LocalDateTime.ofEpochSecond(segment.getLong(offset + EPOCH_SECOND), 0, ZoneOffset.UTC));
+    }
+
+    static boolean fitsLayout(CanonicalTrade trade) {
+        String account = trade.getAccountNumber();
+        String security = trade.getSecurityId();
+        String side = trade.getTradeType();
+        BigDecimal amount = trade.getAmount();
+        LocalDateTime timestamp = trade.getTimestamp();
+
+        return account != null && account.startsWith(MASK) && account.length() <= MASK.length() + 4
+            && isAscii(account)
+            && security != null && security.length() == 6 && isAscii(security)
+            && ("B".equals(side) || "S".equals(side))
+            && amount != null && amount.unscaledValue().bitLength() < 64
+            && amount.scale() >= Byte.MIN_VALUE && amount.scale() <= Byte.MAX_VALUE
+            && timestamp != null && timestamp.getNano() == 0;
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static UUID parseUuid(String tradeId) {
+        if (tradeId == null || tradeId.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(tradeId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private ByteBuffer segment(int slot) {
+        int index = slot / SEGMENT_RECORDS;
+        ByteBuffer segment = segments[index];
+        if (segment == null) {
+            // Only reached under the write lock: a slot is always written before it is read
+            int records = Math.min(SEGMENT_RECORDS, capacity - index * SEGMENT_RECORDS);
+            segment = ByteBuffer.allocateDirect(records * RECORD_SIZE);
+            segments[index] = segment;
+        }
+        return segment;
+    }
+
+    private static int offset(int slot) {
+        return (slot % SEGMENT_RECORDS) * RECORD_SIZE;
+    }
+
+    // --- primary index -----------------------------------------------------
+
+    private int findSlot(long msb, long lsb) {
+        for (int bucket = bucket(msb, lsb); ; bucket = nextBucket(bucket)) {
+            int slot = indexSlots[bucket];
+            if (slot == EMPTY) {
+                return EMPTY;
+            }
+            if (hasId(slot, msb, lsb)) {
+                return slot;
+            }
+        }
+    }
+
+    private void insertIndex(long msb, long lsb, int slot) {
+        int bucket = bucket(msb, lsb);
+        while (indexSlots[bucket] != EMPTY) {
+            bucket = nextBucket(bucket);
+        }
+        indexSlots[bucket] = slot;
+    }
+
+    private void removeIndex(long msb, long lsb) {
+        int bucket = bucket(msb, lsb);
+        while (indexSlots[bucket] != EMPTY && !hasId(indexSlots[bucket], msb, lsb)) {
+            bucket = nextBucket(bucket);
+        }
+        if (indexSlots[bucket] == EMPTY) {
+            return;
+        }
+
+        // Backward-shift deletion keeps probe chains intact without tombstones
+        int hole = bucket;
+        for (int next = nextBucket(hole); indexSlots[next] != EMPTY; next = nextBucket(next)) {
+            ByteBuffer segment = segment(indexSlots[next]);
+            int offset = offset(indexSlots[next]);
+            int home = bucket(segment.getLong(offset + ID_MSB), segment.getLong(offset + ID_LSB));
+            if (distance(home, next) >= distance(hole, next)) {
+                indexSlots[hole] = indexSlots[next];
+                hole = next;
+            }
+        }
+        indexSlots[hole] = EMPTY;
+    }
+
+    private boolean hasId(int slot, long msb, long lsb) {
+        ByteBuffer segment = segment(slot);
+        int offset = offset(slot);
+        return segment.getLong(offset + ID_MSB) == msb && segment.getLong(offset + ID_LSB) == lsb;
+    }
+
+    private int bucket(long msb, long lsb) {
+        long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        // Maps the high 32 bits onto [0, buckets) without a division
+        return (int) (((hash >>> 32) * indexSlots.length) >>> 32);
+    }
+
+    private int nextBucket(int bucket) {
+        return bucket + 1 == indexSlots.length ? 0 : bucket + 1;
+    }
+
+    private int distance(int from, int to) {
+        return to >= from ? to - from : to + indexSlots.length - from;
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.instructions.store;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.PositionSnapshot;
+import com.example.instructions.model.VolumeBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running aggregates of published trades, updated as each trade is published so that
+ * reads never scan stored trades.
+ *
+ * <p>Positions are kept per masked account and per security ID: buy and sell counts and
+ * amounts in {@link LongAdder}s, so concurrent updates do not contend. Amounts are held
+ * as fixed-point longs with {@value #AMOUNT_SCALE} decimal places, rounding half-even,
+ * which covers totals up to about 9.2 x 10<sup>14</sup> per accumulator. A trade that
+ * cannot be aggregated, because a field is missing or its amount is out of that range, is
+ * skipped and counted rather than failing the publish that recorded it.
+ *
+ * <p>Per-side volumes are also kept in time buckets of the trade timestamp (taken as UTC),
+ * in a ring that covers the retention period. A ring slot is taken over by a newer bucket
+ * by swapping in a fresh bucket object, so no adder is ever reset under a concurrent
+ * update. Trades older than the ring are left out of the volumes but still count towards
+ * the positions.
+ */
+public class TradeAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeAggregator.class);
+
+    public static final int AMOUNT_SCALE = 4;
+
+    private final Map<String, Position> byAccount = new ConcurrentHashMap<>();
+    private final Map<String, Position> bySecurity = new ConcurrentHashMap<>();
+
+    private final long bucketSeconds;
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final LongAdder outsideRetention = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    public TradeAggregator() {
+        this(Duration.ofMinutes(1), Duration.ofHours(24));
+    }
+
+    public TradeAggregator(Duration bucketSize, Duration retention) {
+        if (bucketSize.getSeconds() <= 0 || retention.compareTo(bucketSize) < 0) {
+            throw new IllegalArgumentException("Bucket size must be at least a second and within the retention");
+        }
+        this.bucketSeconds = bucketSize.getSeconds();
+        this.buckets = new AtomicReferenceArray<>((int) (retention.getSeconds() / bucketSeconds));
+    }
+
+    /**
+     * Adds a normalized trade to the aggregates. Never throws; a trade that cannot be
+     * aggregated is counted in {@link #getSkippedCount()}.
+     */
+    public void record(CanonicalTrade trade) {
+        if (trade.getAmount() == null || trade.getTimestamp() == null
+                || trade.getAccountNumber() == null || trade.getSecurityId() == null) {
+            skip(trade, "missing field");
+            return;
+        }
+        long amount;
+        try {
+            amount = toUnits(trade.getAmount());
+        } catch (ArithmeticException e) {
+            skip(trade, "amount out of range");
+            return;
+        }
+        boolean buy;
+        if ("B".equals(trade.getTradeType())) {
+            buy = true;
+        } else if ("S".equals(trade.getTradeType())) {
+            buy = false;
+        } else {
+            skip(trade, "unknown side");
+            return;
+        }
+
+        byAccount.computeIfAbsent(trade.getAccountNumber(), key -> new Position()).add(buy, amount);
+        bySecurity.computeIfAbsent(trade.getSecurityId(), key -> new Position()).add(buy, amount);
+
+        Bucket bucket = bucketFor(Math.floorDiv(trade.getTimestamp().toEpochSecond(ZoneOffset.UTC), bucketSeconds));
+        if (bucket == null) {
+            outsideRetention.increment();
+        } else {
+            bucket.volume.add(buy, amount);
+        }
+    }
+
+    public PositionSnapshot getAccountPosition(String maskedAccount) {
+        Position position = byAccount.get(maskedAccount);
+        return position == null ? null : position.snapshot(maskedAccount);
+    }
+
+    public PositionSnapshot getSecurityPosition(String securityId) {
+        Position position = bySecurity.get(securityId);
+        return position == null ? null : position.snapshot(securityId);
+    }
+
+    public List<PositionSnapshot> getAccountPositions() {
+        return snapshots(byAccount);
+    }
+
+    public List<PositionSnapshot> getSecurityPositions() {
+        return snapshots(bySecurity);
+    }
+
+    /**
+     * Non-empty buckets whose start lies in {@code [from, to)}, oldest first.
+     */
+    public List<VolumeBucket> getVolumes(LocalDateTime from, LocalDateTime to) {
+        long first = Math.floorDiv(from.toEpochSecond(ZoneOffset.UTC), bucketSeconds);
+        long last = Math.floorDiv(to.toEpochSecond(ZoneOffset.UTC) - 1, bucketSeconds);
+        first = Math.max(first, last - buckets.length() + 1);
+
+        List<VolumeBucket> volumes = new ArrayList<>();
+        for (long id = first; id <= last; id++) {
+            Bucket bucket = buckets.get(slotOf(id));
+            if (bucket != null && bucket.id == id) {
+                volumes.add(bucket.snapshot(LocalDateTime.ofEpochSecond(id * bucketSeconds, 0, ZoneOffset.UTC)));
+            }
+        }
+        return volumes;
+    }
+
+    public Duration getBucketSize() {
+        return Duration.ofSeconds(bucketSeconds);
+    }
+
+    /**
+     * Trades whose timestamp was too old for the volume buckets.
+     */
+    public long getOutsideRetentionCount() {
+        return outsideRetention.sum();
+    }
+
+    /**
+     * Trades left out of every aggregate because a field was missing, the side was neither
+     * buy nor sell, or the amount was out of range.
+     */
+    public long getSkippedCount() {
+        return skipped.sum();
+    }
+
+    public void clear() {
+        byAccount.clear();
+        bySecurity.clear();
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, null);
+        }
+    }
+
+    private void skip(CanonicalTrade trade, String reason) {
+        skipped.increment();
+        // Counted in trade.aggregation.skipped; a bad feed would flood the log at a higher level
+        logger.debug("Trade for security {} left out of the aggregates: {}", trade.getSecurityId(), reason);
+    }
+
+    private Bucket bucketFor(long id) {
+        int slot = slotOf(id);
+        while (true) {
+            Bucket current = buckets.get(slot);
+            if (current != null && current.id == id) {
+                return current;
+            }
+            if (current != null && current.id > id) {
+                return null;
+            }
+            Bucket fresh = new Bucket(id);
+            if (buckets.compareAndSet(slot, current, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int slotOf(long id) {
+        return (int) Math.floorMod(id, (long) buckets.length());
+    }
+
+    private static List<PositionSnapshot> snapshots(Map<String, Position> positions) {
+        List<PositionSnapshot> snapshots = new ArrayList<>(positions.size());
+        positions.forEach((key, position) -> snapshots.add(position.snapshot(key)));
+        return snapshots;
+    }
+
+    private static long toUnits(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal fromUnits(long units) {
+        return BigDecimal.valueOf(units, AMOUNT_SCALE).stripTrailingZeros();
+    }
+
+    private static final class Position {
+
+        private final LongAdder buyCount = new LongAdder();
+        private final LongAdder buyAmount = new LongAdder();
+        private final LongAdder sellCount = new LongAdder();
+        private final LongAdder sellAmount = new LongAdder();
+
+        void add(boolean buy, long amount) {
+            if (buy) {
+                buyCount.increment();
+                buyAmount.add(amount);
+            } else {
+                sellCount.increment();
+                sellAmount.add(amount);
+            }
+        }
+
+        PositionSnapshot snapshot(String key) {
+            long buys = buyAmount.sum();
+            long sells = sellAmount.sum();
+            return new PositionSnapshot(key, buyCount.sum(), fromUnits(buys), sellCount.sum(),
+                fromUnits(sells), fromUnits(buys - sells));
+        }
+    }
+
+    private static final class Bucket {
+
+        private final long id;
+        private final Position volume = new Position();
+
+        Bucket(long id) {
+            this.id = id;
+        }
+
+        VolumeBucket snapshot(LocalDateTime start) {
+            PositionSnapshot totals = volume.snapshot(null);
+            return new VolumeBucket(start, totals.getBuyCount(), totals.getBuyAmount(),
+                totals.getSellCount(), totals.getSellAmount());
+        }
+    }
+}
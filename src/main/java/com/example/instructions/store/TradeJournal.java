@@ -0,0 +1,576 @@
+package com.example.instructions.store;
+
+import com.example.instructions.model.CanonicalTrade;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Local append-only journal of normalized trades.
+ *
+ * <p>Appends are encoded on the caller's thread and queued; a single writer thread drains
+ * the queue and writes each group of records with one {@link FileChannel#write} call,
+ * followed by an fsync according to the {@link FsyncPolicy}. The journal is split into
+ * segment files that roll at a configurable size, and only the newest {@code maxSegments}
+ * are retained. Each segment keeps an off-heap hash index from trade ID hash to file
+ * offset, about 12 bytes per record, rebuilt on startup by scanning the memory-mapped
+ * segment; the IDs themselves are only on disk and are checked on lookup. Deleting a
+ * segment drops its index with it. A torn record at the end of the last segment is
+ * truncated away.
+ *
+ * <p>If the writer thread fails, or once the journal is closed, pending and new appends
+ * complete exceptionally.
+ *
+ * <p>Record format: {@code int payloadLength, int crc32(payload), payload}, where the
+ * payload holds the trade ID and the trade fields as length-prefixed UTF-8 strings, then
+ * the timestamp as epoch seconds and nanos.
+ */
+public class TradeJournal implements Closeable {
+
+    public enum FsyncPolicy {
+        /** fsync after every group commit */
+        ALWAYS,
+        /** fsync at most once per fsync interval */
+        INTERVAL,
+        /** leave flushing to the operating system */
+        NEVER
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeJournal.class);
+
+    private static final int HEADER_BYTES = 8;
+    private static final String SEGMENT_PREFIX = "trades-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int maxSegments;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final int maxBatch;
+
+    private final BlockingQueue<PendingAppend> queue;
+    private final ConcurrentNavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Thread writer;
+
+    private volatile boolean running = true;
+    private volatile Throwable writerFailure;
+    private Segment active;
+    private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private long lastFsyncNanos = System.nanoTime();
+    private boolean dirty;
+
+    /**
+     * @param segmentBytes size at which a segment rolls, at most 2 GB
+     * @param maxSegments number of segments to retain, or 0 to keep all of them
+     */
+    public TradeJournal(Path directory, long segmentBytes, int maxSegments, FsyncPolicy fsyncPolicy,
+                        Duration fsyncInterval, int maxBatch) throws IOException {
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal segment size must be between 1 byte and 2 GB");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        this.maxBatch = maxBatch;
+        this.queue = new LinkedBlockingQueue<>(maxBatch * 16);
+
+        Files.createDirectories(directory);
+        long started = System.nanoTime();
+        replay();
+        active = segments.isEmpty() ? openSegment(0) : segments.lastEntry().getValue();
+        logger.info("Replayed trade journal in {}: {} trades in {} segments, {} ms",
+                   directory, size(), segments.size(), (System.nanoTime() - started) / 1_000_000);
+
+        this.writer = new Thread(this::writeLoop, "trade-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a trade for the next group commit. The returned future completes once the
+     * record has been written, and fsynced if the policy is {@link FsyncPolicy#ALWAYS}.
+     */
+    public CompletableFuture<Void> append(String tradeId, CanonicalTrade trade) {
+        if (!running) {
+            return CompletableFuture.failedFuture(closedException());
+        }
+        PendingAppend pending = new PendingAppend(tradeId, encode(tradeId, trade));
+        try {
+            // Bounded waits so a caller never blocks on a queue the writer has stopped draining
+            while (!queue.offer(pending, 100, TimeUnit.MILLISECONDS)) {
+                if (!running) {
+                    return CompletableFuture.failedFuture(closedException());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!running && queue.remove(pending)) {
+            pending.future.completeExceptionally(closedException());
+        }
+        return pending.future;
+    }
+
+    /**
+     * Reads a trade back from its segment, or returns null if it is not in the journal.
+     */
+    public CanonicalTrade read(String tradeId) {
+        int hash = tradeId.hashCode();
+        for (Segment segment : segments.descendingMap().values()) {
+            long[] positions = segment.index.positions(hash);
+            // The latest record wins if the ID was journaled more than once
+            for (int i = positions.length - 1; i >= 0; i--) {
+                try {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                    readFully(segment.channel, header, positions[i]);
+                    ByteBuffer payload = ByteBuffer.allocate(header.getInt(0));
+                    readFully(segment.channel, payload, positions[i] + HEADER_BYTES);
+                    payload.flip();
+                    if (tradeId.equals(readString(payload))) {
+                        return decodeTrade(payload);
+                    }
+                } catch (IOException e) {
+                    logger.error("Failed to read trade {} from journal segment {}: {}",
+                                tradeId, segment.path, e.getMessage());
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Number of records in the retained segments. A trade ID journaled more than once is
+     * counted once per record.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments.values()) {
+            size += segment.index.size();
+        }
+        return size;
+    }
+
+    /**
+     * Deletes every segment and starts an empty journal. Appends still queued are written
+     * to the new segment.
+     */
+    public void clear() throws IOException {
+        writeLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            }
+            segments.clear();
+            active = openSegment(0);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failQueued(closedException());
+        writeLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                if (segment == active) {
+                    segment.channel.force(false);
+                }
+                segment.channel.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // --- writer ------------------------------------------------------------
+
+    private void writeLoop() {
+        List<PendingAppend> batch = new ArrayList<>(maxBatch);
+        long pollNanos = fsyncPolicy == FsyncPolicy.INTERVAL ? fsyncIntervalNanos : TimeUnit.MILLISECONDS.toNanos(100);
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    PendingAppend first = queue.poll(pollNanos, TimeUnit.NANOSECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, maxBatch - 1);
+                        writeBatch(batch);
+                        batch.clear();
+                    }
+                    if (fsyncPolicy == FsyncPolicy.INTERVAL && dirty
+                            && System.nanoTime() - lastFsyncNanos >= fsyncIntervalNanos) {
+                        writeLock.lock();
+                        try {
+                            fsync();
+                        } finally {
+                            writeLock.unlock();
+                        }
+                    }
+                } catch (IOException e) {
+                    logger.error("Trade journal fsync failed: {}", e.getMessage(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            logger.error("Trade journal writer failed, rejecting further appends: {}", e.getMessage(), e);
+            writerFailure = e;
+        } finally {
+            running = false;
+            for (PendingAppend pending : batch) {
+                pending.future.completeExceptionally(closedException());
+            }
+            failQueued(closedException());
+        }
+    }
+
+    private void failQueued(Exception cause) {
+        List<PendingAppend> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (PendingAppend pending : remaining) {
+            pending.future.completeExceptionally(cause);
+        }
+    }
+
+    private IllegalStateException closedException() {
+        return writerFailure != null
+            ? new IllegalStateException("Trade journal writer failed", writerFailure)
+            : new IllegalStateException("Trade journal is closed");
+    }
+
+    private void writeBatch(List<PendingAppend> batch) {
+        int total = 0;
+        for (PendingAppend pending : batch) {
+            total += HEADER_BYTES + pending.payload.length;
+        }
+
+        writeLock.lock();
+        try {
+            if (active.size > 0 && active.size + total > segmentBytes) {
+                roll();
+            }
+            if (writeBuffer.capacity() < total) {
+                writeBuffer = ByteBuffer.allocateDirect(Integer.highestOneBit(total) << 1);
+            }
+
+            ByteBuffer buffer = writeBuffer;
+            buffer.clear();
+            long[] positions = new long[batch.size()];
+            CRC32 crc = new CRC32();
+            for (int i = 0; i < batch.size(); i++) {
+                byte[] payload = batch.get(i).payload;
+                crc.reset();
+                crc.update(payload);
+                positions[i] = active.size + buffer.position();
+                buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                active.channel.write(buffer, active.size + buffer.position());
+            }
+            active.size += total;
+            dirty = true;
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                fsync();
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                active.index.put(batch.get(i).tradeId.hashCode(), positions[i]);
+                batch.get(i).future.complete(null);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to write {} trades to the journal: {}", batch.size(), e.getMessage(), e);
+            for (PendingAppend pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void fsync() throws IOException {
+        active.channel.force(false);
+        lastFsyncNanos = System.nanoTime();
+        dirty = false;
+    }
+
+    private void roll() throws IOException {
+        fsync();
+        active = openSegment(active.id + 1);
+        while (maxSegments > 0 && segments.size() > maxSegments) {
+            Segment oldest = segments.pollFirstEntry().getValue();
+            oldest.channel.close();
+            Files.deleteIfExists(oldest.path);
+            logger.info("Deleted trade journal segment {}", oldest.path);
+        }
+    }
+
+    // --- replay ------------------------------------------------------------
+
+    private void replay() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : files) {
+                String name = path.getFileName().toString();
+                int id;
+                try {
+                    id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring file {} in the trade journal directory: not a journal segment", path);
+                    continue;
+                }
+                segments.put(id, new Segment(id, path, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)));
+            }
+        }
+        for (Segment segment : segments.values()) {
+            replaySegment(segment);
+        }
+    }
+
+    private void replaySegment(Segment segment) throws IOException {
+        long fileSize = segment.channel.size();
+        MappedByteBuffer mapped = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        CRC32 crc = new CRC32();
+        int position = 0;
+        while (position + HEADER_BYTES <= fileSize) {
+            int length = mapped.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > fileSize) {
+                break;
+            }
+            ByteBuffer payload = mapped.slice(position + HEADER_BYTES, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != mapped.getInt(position + 4)) {
+                break;
+            }
+            segment.index.put(readString(payload).hashCode(), position);
+            position += HEADER_BYTES + length;
+        }
+        if (position < fileSize) {
+            logger.warn("Truncating torn tail of trade journal segment {} at offset {}", segment.path, position);
+            segment.channel.truncate(position);
+        }
+        segment.size = position;
+    }
+
+    private Segment openSegment(int id) throws IOException {
+        Path path = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        Segment segment = new Segment(id, path, FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segment.size = segment.channel.size();
+        segments.put(id, segment);
+        return segment;
+    }
+
+    // --- encoding ----------------------------------------------------------
+
+    private static byte[] encode(String tradeId, CanonicalTrade trade) {
+        byte[][] fields = {
+            utf8(tradeId),
+            utf8(trade.getAccountNumber()),
+            utf8(trade.getSecurityId()),
+            utf8(trade.getTradeType()),
+            utf8(trade.getAmount() == null ? null : trade.getAmount().toString())
+        };
+        int size = Long.BYTES + Integer.BYTES;
+        for (byte[] field : fields) {
+            size += Short.BYTES + (field == null ? 0 : field.length);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] field : fields) {
+            if (field == null) {
+                buffer.putShort((short) -1);
+            } else {
+                buffer.putShort((short) field.length).put(field);
+            }
+        }
+        LocalDateTime timestamp = trade.getTimestamp();
+        buffer.putLong(timestamp == null ? Long.MIN_VALUE : timestamp.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(timestamp == null ? 0 : timestamp.getNano());
+        return buffer.array();
+    }
+
+    private static CanonicalTrade decodeTrade(ByteBuffer payload) {
+        String account = readString(payload);
+        String security = readString(payload);
+        String tradeType = readString(payload);
+        String amount = readString(payload);
+        long epochSecond = payload.getLong();
+        int nano = payload.getInt();
+        return new CanonicalTrade(account, security, tradeType,
+            amount == null ? null : new BigDecimal(amount),
+            epochSecond == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+    }
+
+    private static byte[] utf8(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Trade field too long for the journal: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of journal segment");
+            }
+        }
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final SegmentIndex index = new SegmentIndex();
+        private volatile long size;
+
+        private Segment(int id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Open-addressing table in a direct buffer. Each entry holds a trade ID hash in the high
+     * half and the record position plus one in the low half, so zero marks an empty entry.
+     * Entries are never removed; the table goes away with its segment.
+     */
+    private static final class SegmentIndex {
+
+        private static final int INITIAL_ENTRIES = 1 << 10;
+
+        private ByteBuffer table = ByteBuffer.allocateDirect(INITIAL_ENTRIES * Long.BYTES);
+        private int mask = INITIAL_ENTRIES - 1;
+        private int size;
+
+        synchronized void put(int hash, long position) {
+            // Resize at a load factor of 0.7
+            if ((size + 1) * 10L > (mask + 1) * 7L) {
+                grow();
+            }
+            insert(table, mask, ((long) hash << 32) | (position + 1));
+            size++;
+        }
+
+        /**
+         * Positions of the records whose ID has this hash, in ascending order.
+         */
+        synchronized long[] positions(int hash) {
+            long[] positions = new long[2];
+            int found = 0;
+            for (int slot = home(hash, mask); ; slot = (slot + 1) & mask) {
+                long entry = table.getLong(slot * Long.BYTES);
+                if (entry == 0) {
+                    break;
+                }
+                if ((int) (entry >>> 32) == hash) {
+                    if (found == positions.length) {
+                        positions = Arrays.copyOf(positions, found * 2);
+                    }
+                    positions[found++] = (entry & 0xFFFFFFFFL) - 1;
+                }
+            }
+            positions = Arrays.copyOf(positions, found);
+            Arrays.sort(positions);
+            return positions;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void grow() {
+            int entries = (mask + 1) * 2;
+            if (entries > Integer.MAX_VALUE / Long.BYTES) {
+                throw new IllegalStateException("Trade journal segment index is full");
+            }
+            ByteBuffer grown = ByteBuffer.allocateDirect(entries * Long.BYTES);
+            for (int slot = 0; slot <= mask; slot++) {
+                long entry = table.getLong(slot * Long.BYTES);
+                if (entry != 0) {
+                    insert(grown, entries - 1, entry);
+                }
+            }
+            table = grown;
+            mask = entries - 1;
+        }
+
+        private static void insert(ByteBuffer table, int mask, long entry) {
+            int slot = home((int) (entry >>> 32), mask);
+            while (table.getLong(slot * Long.BYTES) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table.putLong(slot * Long.BYTES, entry);
+        }
+
+        private static int home(int hash, int mask) {
+            int mixed = hash * 0x9E3779B9;
+            return (mixed ^ (mixed >>> 16)) & mask;
+        }
+    }
+
+    private static final class PendingAppend {
+        private final String tradeId;
+        private final byte[] payload;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingAppend(String tradeId, byte[] payload) {
+            this.tradeId = tradeId;
+            this.payload = payload;
+        }
+    }
+}
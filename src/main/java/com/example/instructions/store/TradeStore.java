@@ -0,0 +1,37 @@
+package com.example.instructions.store;
+
+import com.example.instructions.model.CanonicalTrade;
+
+import java.util.function.Consumer;
+
+/**
+ * Audit store for normalized trades, keyed by trade ID. Implementations may evict
+ * entries; lookups and counts only reflect entries still within their retention window.
+ */
+public interface TradeStore {
+
+    void put(String tradeId, CanonicalTrade trade);
+
+    /**
+     * Returns the stored trade, or null if it was never stored or has been evicted.
+     */
+    CanonicalTrade get(String tradeId);
+
+    /**
+     * Like {@link #get}, but not counted in the hit and miss statistics; for reads that scan
+     * the store rather than serve a lookup.
+     */
+    CanonicalTrade peek(String tradeId);
+
+    int size();
+
+    void clear();
+
+    TradeStoreStats getStats();
+
+    /**
+     * Registers a callback that receives the ID of every trade that leaves the store by
+     * eviction or expiry, on the thread that removed it. Not called for {@link #clear()}.
+     */
+    void setRemovalListener(Consumer<String> listener);
+}
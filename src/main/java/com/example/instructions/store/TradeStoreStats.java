@@ -0,0 +1,51 @@
+package com.example.instructions.store;
+
+public class TradeStoreStats {
+
+    private final int size;
+    private final long estimatedBytes;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+
+    public TradeStoreStats(int size, long estimatedBytes, long hits, long misses,
+                           long evictions, long expirations) {
+        this.size = size;
+        this.estimatedBytes = estimatedBytes;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Entries removed to stay within the entry or byte limit.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Entries removed because they outlived the TTL.
+     */
+    public long getExpirations() {
+        return expirations;
+    }
+}
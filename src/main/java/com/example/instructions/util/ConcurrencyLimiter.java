@@ -0,0 +1,67 @@
+package com.example.instructions.util;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many callers may run a section concurrently. With virtual threads the
+ * servlet container no longer limits concurrency through its pool size, so this
+ * protects the downstream broker instead.
+ */
+public class ConcurrencyLimiter {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long acquireTimeoutNanos;
+
+    public ConcurrencyLimiter(int maxConcurrent, Duration acquireTimeout) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    /**
+     * Runs the action once a permit is available.
+     *
+     * @throws LimitExceededException if no permit became available within the acquire timeout
+     */
+    public <T> T execute(Supplier<T> action) {
+        acquire();
+        try {
+            return action.get();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Takes a permit for a section that outlives the calling method, such as a streamed
+     * response. The caller must {@link #release()} it.
+     *
+     * @throws LimitExceededException if no permit became available within the acquire timeout
+     */
+    public void acquire() {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LimitExceededException("Interrupted while waiting for a permit");
+        }
+        if (!acquired) {
+            throw new LimitExceededException("More than " + maxConcurrent + " concurrent requests");
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public static class LimitExceededException extends RuntimeException {
+        public LimitExceededException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.example.instructions.util;
+
+import com.example.instructions.model.CanonicalTrade;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Parses CSV files whose header names only canonical trade columns, in any order. Lines
+ * are scanned as bytes in a reusable buffer refilled from the stream: amounts are
+ * accumulated into a long and timestamps are read digit by digit, so the only objects
+ * built per record are the trade, its three string fields, the amount and the timestamp.
+ *
+ * <p>Fields may be quoted as in RFC 4180. Amounts with more than 18 digits or an exponent
+ * go through {@link BigDecimal#BigDecimal(String)}. Blank lines are skipped.
+ *
+ * <p>Any other header is left for the generic CSV binding: check {@link #isHeaderSupported()}
+ * after construction and, if it is false, read the file again from {@link #replay()}.
+ */
+public class FastCsvTradeParser implements TradeIterator {
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_FAST_DIGITS = 18;
+    private static final int TIMESTAMP_LENGTH = "yyyy-MM-ddTHH:mm:ss".length();
+
+    private enum Column {
+        ACCOUNT_NUMBER("account_number"),
+        SECURITY_ID("security_id"),
+        TRADE_TYPE("trade_type"),
+        AMOUNT("amount"),
+        TIMESTAMP("timestamp");
+
+        private final String header;
+
+        Column(String header) {
+            this.header = header;
+        }
+
+        static Column forHeader(String header) {
+            for (Column column : values()) {
+                if (column.header.equals(header)) {
+                    return column;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final InputStream in;
+    private final Column[] columns;
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean eof;
+    private long lineNumber;
+    private boolean started;
+
+    // Unescaped content of the current quoted field
+    private byte[] unquoted = new byte[64];
+    private byte[] fieldBytes;
+    private int fieldOffset;
+    private int fieldLength;
+
+    private CanonicalTrade next;
+
+    /**
+     * Reads the header line of the stream.
+     */
+    public FastCsvTradeParser(InputStream in) throws IOException {
+        this.in = in;
+        fill();
+        skipByteOrderMark();
+        this.columns = readHeader();
+    }
+
+    /**
+     * Whether the header names only canonical trade columns, each at most once.
+     */
+    public boolean isHeaderSupported() {
+        return columns != null;
+    }
+
+    /**
+     * Returns the whole stream from its first byte, for reading with another parser. Only
+     * valid before any record has been read.
+     */
+    public InputStream replay() {
+        if (started) {
+            throw new IllegalStateException("Records have already been read");
+        }
+        return new SequenceInputStream(new ByteArrayInputStream(buffer, 0, limit), in);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            if (columns == null) {
+                throw new IllegalStateException("Unsupported CSV header");
+            }
+            started = true;
+            try {
+                next = readRecord();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public CanonicalTrade next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        CanonicalTrade trade = next;
+        next = null;
+        return trade;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Column[] readHeader() throws IOException {
+        int end = nextLine();
+        if (end < 0) {
+            // An empty file has no records
+            return new Column[0];
+        }
+        int start = position;
+        position = end + 1;
+        end = trimCarriageReturn(start, end);
+
+        Column[] header = new Column[Column.values().length];
+        int count = 0;
+        int i = start;
+        while (true) {
+            i = field(i, end);
+            Column column = Column.forHeader(new String(fieldBytes, fieldOffset, fieldLength, StandardCharsets.UTF_8));
+            if (column == null || count == header.length || Arrays.asList(header).contains(column)) {
+                return null;
+            }
+            header[count++] = column;
+            if (i >= end) {
+                return Arrays.copyOf(header, count);
+            }
+            i++;
+        }
+    }
+
+    private CanonicalTrade readRecord() throws IOException {
+        while (true) {
+            int end = nextLine();
+            if (end < 0) {
+                return null;
+            }
+            int start = position;
+            position = end + 1;
+            end = trimCarriageReturn(start, end);
+            if (start == end) {
+                continue;
+            }
+
+            CanonicalTrade trade = new CanonicalTrade();
+            int count = 0;
+            int i = start;
+            while (true) {
+                if (count == columns.length) {
+                    throw invalid("more fields than the header has columns");
+                }
+                i = field(i, end);
+                bind(trade, columns[count++]);
+                if (i >= end) {
+                    return trade;
+                }
+                i++;
+            }
+        }
+    }
+
+    private void bind(CanonicalTrade trade, Column column) {
+        switch (column) {
+            case ACCOUNT_NUMBER -> trade.setAccountNumber(string());
+            case SECURITY_ID -> trade.setSecurityId(string());
+            case TRADE_TYPE -> trade.setTradeType(string());
+            case AMOUNT -> trade.setAmount(amount());
+            case TIMESTAMP -> trade.setTimestamp(timestamp());
+        }
+    }
+
+    /**
+     * Points the field slice at the field starting at {@code start} and returns the index
+     * of the comma after it, or {@code end}.
+     */
+    private int field(int start, int end) {
+        byte[] b = buffer;
+        if (start < end && b[start] == '"') {
+            int length = 0;
+            int i = start + 1;
+            while (true) {
+                if (i >= end) {
+                    throw invalid("unterminated quoted field");
+                }
+                byte c = b[i++];
+                if (c == '"') {
+                    if (i < end && b[i] == '"') {
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (length == unquoted.length) {
+                    unquoted = Arrays.copyOf(unquoted, length * 2);
+                }
+                unquoted[length++] = c;
+            }
+            if (i < end && b[i] != ',') {
+                throw invalid("unexpected character after quoted field");
+            }
+            fieldBytes = unquoted;
+            fieldOffset = 0;
+            fieldLength = length;
+            return i;
+        }
+
+        int i = start;
+        while (i < end && b[i] != ',') {
+            i++;
+        }
+        fieldBytes = b;
+        fieldOffset = start;
+        fieldLength = i - start;
+        return i;
+    }
+
+    private String string() {
+        // JDK String construction copies ASCII bytes directly
+        return new String(fieldBytes, fieldOffset, fieldLength, StandardCharsets.UTF_8);
+    }
+
+    private BigDecimal amount() {
+        byte[] b = fieldBytes;
+        int start = fieldOffset;
+        int end = fieldOffset + fieldLength;
+        while (start < end && b[start] == ' ') {
+            start++;
+        }
+        while (end > start && b[end - 1] == ' ') {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+
+        int i = start;
+        boolean negative = b[i] == '-';
+        if (negative || b[i] == '+') {
+            i++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            byte c = b[i];
+            if (c >= '0' && c <= '9') {
+                if (digits == MAX_FAST_DIGITS) {
+                    return slowAmount(start, end);
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                return slowAmount(start, end);
+            }
+        }
+        if (digits == 0) {
+            return slowAmount(start, end);
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    private BigDecimal slowAmount(int start, int end) {
+        String value = new String(fieldBytes, start, end - start, StandardCharsets.UTF_8);
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw invalid("amount '" + value + "' is not a number");
+        }
+    }
+
+    private LocalDateTime timestamp() {
+        byte[] b = fieldBytes;
+        int start = fieldOffset;
+        int end = fieldOffset + fieldLength;
+        while (start < end && b[start] == ' ') {
+            start++;
+        }
+        while (end > start && b[end - 1] == ' ') {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        if (end - start != TIMESTAMP_LENGTH
+                || b[start + 4] != '-' || b[start + 7] != '-' || b[start + 10] != 'T'
+                || b[start + 13] != ':' || b[start + 16] != ':') {
+            throw invalidTimestamp(start, end);
+        }
+        int year = digits(start, 0, 4);
+        int month = digits(start, 5, 2);
+        int day = digits(start, 8, 2);
+        int hour = digits(start, 11, 2);
+        int minute = digits(start, 14, 2);
+        int second = digits(start, 17, 2);
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second);
+        } catch (DateTimeException e) {
+            throw invalidTimestamp(start, end);
+        }
+    }
+
+    private int digits(int start, int offset, int count) {
+        int value = 0;
+        for (int i = start + offset; i < start + offset + count; i++) {
+            int digit = fieldBytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalidTimestamp(start, start + TIMESTAMP_LENGTH);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private IllegalArgumentException invalidTimestamp(int start, int end) {
+        return invalid("timestamp '" + new String(fieldBytes, start, end - start, StandardCharsets.UTF_8)
+            + "' is not yyyy-MM-ddTHH:mm:ss");
+    }
+
+    private IllegalArgumentException invalid(String reason) {
+        return new IllegalArgumentException("Invalid CSV record at line " + lineNumber + ": " + reason);
+    }
+
+    /**
+     * Returns the buffer index of the newline ending the line at {@link #position}, refilling
+     * the buffer as needed, the buffer limit for a last line without one, or -1 at the end of
+     * the stream. Newlines inside quoted fields do not end the line.
+     */
+    private int nextLine() throws IOException {
+        int scanned = 0;
+        boolean quoted = false;
+        while (true) {
+            byte[] b = buffer;
+            for (int i = position + scanned; i < limit; i++) {
+                byte c = b[i];
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (c == '\n' && !quoted) {
+                    lineNumber++;
+                    return i;
+                }
+            }
+            if (eof) {
+                // The last line may end without a newline, leaving position just past the limit
+                if (position >= limit) {
+                    return -1;
+                }
+                lineNumber++;
+                return limit;
+            }
+            scanned = limit - position;
+            fill();
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the start of the buffer, growing it if they fill it, and reads
+     * more from the stream.
+     */
+    private void fill() throws IOException {
+        // The header line stays at the start of the buffer for replay()
+        if (lineNumber > 0 && position > 0) {
+            int remaining = limit - position;
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+            position = 0;
+            limit = remaining;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private void skipByteOrderMark() {
+        if (limit >= 3 && buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF) {
+            position = 3;
+        }
+    }
+
+    private int trimCarriageReturn(int start, int end) {
+        return end > start && buffer[end - 1] == '\r' ? end - 1 : end;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.instructions.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Splits a byte stream into newline-terminated lines in place, without decoding them or
+ * copying them out of its buffer. A line is only valid until the next call to
+ * {@link #next()}. Lines longer than the buffer are skipped up to their newline and
+ * reported as {@linkplain #isOversized() oversized}, so one bad record can neither grow
+ * the heap nor end the stream.
+ */
+public final class NdjsonLineReader {
+
+    private final InputStream inputStream;
+    private final byte[] buffer;
+    private int start;
+    private int end;
+
+    private int lineStart;
+    private int lineLength;
+    private boolean oversized;
+
+    public NdjsonLineReader(InputStream inputStream, int maxLineBytes) {
+        this.inputStream = inputStream;
+        this.buffer = new byte[maxLineBytes + 1];
+    }
+
+    /**
+     * Advances to the next line, blocking until it is complete. The final line need not be
+     * newline-terminated.
+     *
+     * @return false at the end of the stream
+     */
+    public boolean next() throws IOException {
+        boolean discarding = false;
+        int scanFrom = start;
+        while (true) {
+            int newline = indexOfNewline(scanFrom);
+            if (newline >= 0) {
+                setLine(start, newline - start, discarding);
+                start = newline + 1;
+                return true;
+            }
+
+            if (end == buffer.length) {
+                if (start == 0) {
+                    discarding = true;
+                    end = 0;
+                } else {
+                    System.arraycopy(buffer, start, buffer, 0, end - start);
+                    end -= start;
+                    start = 0;
+                }
+            }
+            scanFrom = end;
+
+            int read = inputStream.read(buffer, end, buffer.length - end);
+            if (read < 0) {
+                if (start == end && !discarding) {
+                    return false;
+                }
+                setLine(start, end - start, discarding);
+                start = end;
+                return true;
+            }
+            end += read;
+        }
+    }
+
+    /**
+     * Whether {@link #next()} can return without waiting for the client: a complete line is
+     * buffered, or the stream reports bytes it can hand over without blocking.
+     */
+    public boolean hasBufferedLine() throws IOException {
+        return indexOfNewline(start) >= 0 || inputStream.available() > 0;
+    }
+
+    /** Whether the current line holds nothing but whitespace. */
+    public boolean isBlank() {
+        for (int i = lineStart; i < lineStart + lineLength; i++) {
+            byte b = buffer[i];
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isOversized() {
+        return oversized;
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int lineStart() {
+        return lineStart;
+    }
+
+    public int lineLength() {
+        return lineLength;
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from; i < end; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void setLine(int lineStart, int lineLength, boolean oversized) {
+        this.lineStart = lineStart;
+        this.lineLength = lineLength;
+        this.oversized = oversized;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.instructions.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Fixed set of single-threaded lanes, each draining its own bounded FIFO queue. Tasks
+ * submitted to the same lane run one at a time in submission order, so work keyed to a
+ * lane needs no further locking. Submitting to a full lane blocks the caller, which
+ * gives producers natural backpressure.
+ */
+public class ShardedExecutor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedExecutor.class);
+
+    private static final Runnable SHUTDOWN = () -> { };
+
+    private final BlockingQueue<Runnable>[] queues;
+    private final Thread[] threads;
+    private volatile boolean closed;
+
+    public ShardedExecutor(String name, int laneCount, int queueCapacity) {
+        this(laneCount, queueCapacity, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName(name + "-" + thread.getId());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public ShardedExecutor(int laneCount, int queueCapacity, ThreadFactory threadFactory) {
+        if (laneCount <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Lane count and queue capacity must be positive");
+        }
+        this.queues = new BlockingQueue[laneCount];
+        this.threads = new Thread[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+            queues[i] = queue;
+            threads[i] = threadFactory.newThread(() -> drain(queue));
+            threads[i].start();
+        }
+    }
+
+    public int laneCount() {
+        return queues.length;
+    }
+
+    /**
+     * Maps a key to a lane; equal keys always map to the same lane.
+     */
+    public int laneFor(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        return laneForHash(key.hashCode());
+    }
+
+    /**
+     * Maps a precomputed key hash to a lane, as {@link #laneFor} does for the key itself.
+     */
+    public int laneForHash(int hash) {
+        return Math.floorMod(hash ^ (hash >>> 16), queues.length);
+    }
+
+    /**
+     * Queues a task on a lane, blocking while that lane's queue is full.
+     */
+    public void execute(int lane, Runnable task) {
+        if (closed) {
+            throw new RejectedExecutionException("Executor is closed");
+        }
+        try {
+            queues[lane].put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while queueing task", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (int i = 0; i < queues.length; i++) {
+            if (!queues[i].offer(SHUTDOWN)) {
+                threads[i].interrupt();
+            }
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void drain(BlockingQueue<Runnable> queue) {
+        while (true) {
+            Runnable task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task == SHUTDOWN) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Task failed on {}: {}", Thread.currentThread().getName(), e.getMessage(), e);
+            }
+        }
+    }
+}
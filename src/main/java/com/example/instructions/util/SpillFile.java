@@ -0,0 +1,247 @@
+package com.example.instructions.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjIntConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Local file of payloads that could not be delivered, kept for later redelivery.
+ *
+ * <p>Every append is forced to disk before it returns, since the spill is the last copy
+ * of the payload. {@link #drain} moves the file aside, so that appends made while draining
+ * go to a fresh file, and deletes it only once every record it handed over has been dealt
+ * with. A drain file left behind by a failed drain or a crash is drained first on the next
+ * call.
+ *
+ * <p>Record format: {@code int length, int attempts, int crc32(body), body}. The body is the
+ * payload, or, if the high bit of {@code attempts} is set, {@code short keyLength}, the
+ * UTF-8 record key and the payload. Records without a key keep the original layout.
+ */
+public class SpillFile implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpillFile.class);
+
+    private static final int HEADER_BYTES = 12;
+    private static final int KEYED = 0x8000_0000;
+
+    /**
+     * Receives a drained record; {@code key} is null for payloads spilled without one. The
+     * returned future completes once the spilled copy is no longer needed, e.g. when the
+     * broker has acknowledged the redelivery, and fails if it still is.
+     */
+    @FunctionalInterface
+    public interface RecordConsumer {
+        CompletableFuture<?> accept(String key, byte[] payload, int attempts);
+    }
+
+    private final Path path;
+    private final Path drainPath;
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final AtomicLong pending = new AtomicLong();
+    private FileChannel channel;
+
+    public SpillFile(Path path) throws IOException {
+        this.path = path;
+        this.drainPath = path.resolveSibling(path.getFileName() + ".draining");
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = open(path);
+        recount();
+        if (pending.get() > 0) {
+            logger.warn("Spill file {} holds {} undelivered payloads", path, pending.get());
+        }
+    }
+
+    /**
+     * Appends a payload together with the number of delivery attempts made so far.
+     */
+    public void append(byte[] payload, int attempts) throws IOException {
+        append(null, payload, attempts);
+    }
+
+    /**
+     * Appends a payload with its record key, or with none if the key is null.
+     */
+    public synchronized void append(String key, byte[] payload, int attempts) throws IOException {
+        ByteBuffer prefix = ByteBuffer.allocate(0);
+        if (key != null) {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            prefix = ByteBuffer.allocate(2 + keyBytes.length).putShort((short) keyBytes.length).put(keyBytes);
+            prefix.flip();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(prefix.duplicate());
+        crc.update(payload);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+            .putInt(prefix.remaining() + payload.length)
+            .putInt(key != null ? attempts | KEYED : attempts)
+            .putInt((int) crc.getValue());
+        header.flip();
+        ByteBuffer[] record = {header, prefix, ByteBuffer.wrap(payload)};
+        while (record[2].hasRemaining()) {
+            channel.write(record);
+        }
+        channel.force(false);
+        pending.incrementAndGet();
+    }
+
+    /**
+     * Hands every spilled payload and its attempt count to the consumer, oldest first, and
+     * returns how many were drained. Returns 0 without waiting if another drain is running.
+     * If the consumer throws, the drain file is kept and drained again by the next call, so
+     * a payload may be handed over more than once.
+     */
+    public int drain(ObjIntConsumer<byte[]> consumer) throws IOException {
+        return drain((key, payload, attempts) -> {
+            consumer.accept(payload, attempts);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Like {@link #drain(ObjIntConsumer)}, also handing over the record key of each payload,
+     * and waiting for the future returned for every record before deleting the drain file.
+     * If any of them fails, the file is kept and drained again by the next call.
+     */
+    public int drain(RecordConsumer consumer) throws IOException {
+        if (!drainLock.tryLock()) {
+            return 0;
+        }
+        try {
+            if (!Files.exists(drainPath)) {
+                synchronized (this) {
+                    if (channel.size() == 0) {
+                        return 0;
+                    }
+                    channel.close();
+                    Files.move(path, drainPath, StandardCopyOption.ATOMIC_MOVE);
+                    channel = open(path);
+                }
+            }
+
+            int drained = 0;
+            List<CompletableFuture<?>> handedOver = new ArrayList<>();
+            try (FileChannel in = FileChannel.open(drainPath, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                while (readFully(in, header)) {
+                    header.flip();
+                    int length = header.getInt();
+                    int attempts = header.getInt();
+                    int crc = header.getInt();
+                    header.clear();
+                    if (length < 0 || length > in.size() - in.position()) {
+                        logger.warn("Ignoring torn record at the end of spill file {}", drainPath);
+                        break;
+                    }
+                    ByteBuffer payload = ByteBuffer.allocate(length);
+                    if (!readFully(in, payload) || crc != crc32(payload.array())) {
+                        logger.warn("Ignoring torn record at the end of spill file {}", drainPath);
+                        break;
+                    }
+                    if ((attempts & KEYED) != 0) {
+                        ByteBuffer body = payload.flip();
+                        byte[] key = new byte[body.getShort() & 0xFFFF];
+                        body.get(key);
+                        byte[] value = new byte[body.remaining()];
+                        body.get(value);
+                        handedOver.add(consumer.accept(new String(key, StandardCharsets.UTF_8), value,
+                            attempts & ~KEYED));
+                    } else {
+                        handedOver.add(consumer.accept(null, payload.array(), attempts));
+                    }
+                    drained++;
+                }
+            }
+
+            try {
+                CompletableFuture.allOf(handedOver.toArray(new CompletableFuture[0])).join();
+            } catch (CompletionException e) {
+                logger.warn("Keeping spill file {} for the next drain: {}", drainPath, e.getCause().getMessage());
+                return drained;
+            }
+            Files.delete(drainPath);
+            return drained;
+        } finally {
+            try {
+                recount();
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Payloads waiting to be drained.
+     */
+    public long getPendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    // Appends hold the monitor, so none is missed between counting and setting
+    private synchronized void recount() throws IOException {
+        pending.set(countRecords(path) + (Files.exists(drainPath) ? countRecords(drainPath) : 0));
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static long countRecords(Path file) throws IOException {
+        long count = 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            long position = 0;
+            long size = in.size();
+            while (position + HEADER_BYTES <= size) {
+                header.clear();
+                in.read(header, position);
+                int length = header.getInt(0);
+                position += HEADER_BYTES + length;
+                if (length < 0 || position > size) {
+                    break;
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean readFully(FileChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int crc32(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.instructions.util;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * Opens trade files as lazy iterators so that callers only ever hold the
+ * record currently being bound, regardless of file size.
+ */
+@Component
+public class TradeFileReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeFileReader.class);
+
+    public enum Format {
+        CSV, JSON, NDJSON;
+
+        /**
+         * Resolves the format from a file name, or returns null if the extension is not supported.
+         */
+        public static Format fromFilename(String filename) {
+            if (filename == null) {
+                return null;
+            }
+            String lower = filename.toLowerCase(Locale.ROOT);
+            if (lower.endsWith(".csv")) {
+                return CSV;
+            }
+            if (lower.endsWith(".json")) {
+                return JSON;
+            }
+            if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+                return NDJSON;
+            }
+            return null;
+        }
+    }
+
+    private final ObjectReader jsonReader;
+    private final ObjectReader csvReader;
+
+    @Autowired
+    public TradeFileReader(ObjectMapper objectMapper) {
+        CsvMapper csvMapper = new CsvMapper();
+        csvMapper.registerModule(new JavaTimeModule());
+
+        this.jsonReader = objectMapper.readerFor(CanonicalTrade.class);
+        this.csvReader = csvMapper
+            .readerFor(CanonicalTrade.class)
+            .with(CsvSchema.emptySchema().withHeader());
+    }
+
+    /**
+     * Returns an iterator over the trades in the stream. JSON input may be either a
+     * top-level array, which is unwrapped element by element, or newline-delimited
+     * objects; both are read token by token from the underlying parser. CSV input with
+     * canonical column names goes through {@link FastCsvTradeParser}, and any other
+     * header through the generic CSV binding.
+     */
+    public TradeIterator read(InputStream inputStream, Format format) throws IOException {
+        if (format == Format.CSV) {
+            FastCsvTradeParser parser = new FastCsvTradeParser(inputStream);
+            if (parser.isHeaderSupported()) {
+                return parser;
+            }
+            logger.debug("CSV header has non-canonical columns, binding generically");
+            return new MappingTradeIterator(csvReader.readValues(parser.replay()));
+        }
+        return new MappingTradeIterator(jsonReader.readValues(inputStream));
+    }
+
+    private static final class MappingTradeIterator implements TradeIterator {
+
+        private final MappingIterator<CanonicalTrade> delegate;
+
+        MappingTradeIterator(MappingIterator<CanonicalTrade> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public CanonicalTrade next() {
+            return delegate.next();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.instructions.util;
+
+import com.example.instructions.model.CanonicalTrade;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 128-bit content fingerprint of a trade, used to recognise redelivered and re-uploaded
+ * trades. Two independent 64-bit hashes are computed in one pass over the fields without
+ * building intermediate strings. The account number is hashed before masking, since the
+ * masked form only keeps the last four digits; the other fields are hashed in normalized
+ * form so that {@code "Buy"} and {@code "B"} match.
+ */
+public final class TradeFingerprint {
+
+    private static final long SEED_HI = 0x9E3779B97F4A7C15L;
+    private static final long SEED_LO = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_HI = 0x100000001B3L;
+    private static final long PRIME_LO = 0xFF51AFD7ED558CCDL;
+    private static final int FIELD_SEPARATOR = 0x1F;
+    private static final int NULL_FIELD = 0x1E;
+    private static final int IDEMPOTENCY_KEY = 0x1D;
+
+    private final long hi;
+    private final long lo;
+
+    private TradeFingerprint(long hi, long lo) {
+        this.hi = hi;
+        this.lo = lo;
+    }
+
+    /**
+     * @param accountNumber the account number as received, before masking
+     * @param normalized    the normalized trade
+     */
+    public static TradeFingerprint of(String accountNumber, CanonicalTrade normalized) {
+        Hasher hasher = new Hasher();
+        hasher.string(accountNumber);
+        hasher.string(normalized.getSecurityId());
+        hasher.string(normalized.getTradeType());
+        hasher.amount(normalized.getAmount());
+        hasher.timestamp(normalized.getTimestamp());
+        return hasher.finish();
+    }
+
+    /**
+     * Fingerprint of a client-supplied idempotency key. Keys and trade contents are hashed
+     * in separate namespaces, so a key never matches a content fingerprint.
+     */
+    public static TradeFingerprint ofKey(String idempotencyKey) {
+        Hasher hasher = new Hasher();
+        hasher.mix(IDEMPOTENCY_KEY);
+        hasher.string(idempotencyKey);
+        return hasher.finish();
+    }
+
+    public long getHi() {
+        return hi;
+    }
+
+    public long getLo() {
+        return lo;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TradeFingerprint)) {
+            return false;
+        }
+        TradeFingerprint other = (TradeFingerprint) o;
+        return hi == other.hi && lo == other.lo;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hi);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", hi, lo);
+    }
+
+    private static final class Hasher {
+
+        private long hi = SEED_HI;
+        private long lo = SEED_LO;
+
+        void mix(long value) {
+            hi = (hi ^ value) * PRIME_HI;
+            lo = Long.rotateLeft(lo ^ (value * SEED_HI), 31) * PRIME_LO;
+        }
+
+        void string(String value) {
+            if (value == null) {
+                mix(NULL_FIELD);
+            } else {
+                for (int i = 0; i < value.length(); i++) {
+                    mix(value.charAt(i));
+                }
+            }
+            mix(FIELD_SEPARATOR);
+        }
+
+        void amount(BigDecimal amount) {
+            if (amount == null) {
+                mix(NULL_FIELD);
+            } else {
+                // 100.50 and 100.5 are the same amount
+                BigDecimal stripped = amount.signum() == 0 ? BigDecimal.ZERO : amount.stripTrailingZeros();
+                mix(stripped.scale());
+                if (stripped.unscaledValue().bitLength() < 64) {
+                    mix(stripped.unscaledValue().longValue());
+                } else {
+                    string(stripped.unscaledValue().toString());
+                }
+            }
+            mix(FIELD_SEPARATOR);
+        }
+
+        void timestamp(LocalDateTime timestamp) {
+            if (timestamp == null) {
+                mix(NULL_FIELD);
+            } else {
+                mix(timestamp.getYear());
+                mix(timestamp.getDayOfYear());
+                mix(timestamp.toLocalTime().toNanoOfDay());
+            }
+            mix(FIELD_SEPARATOR);
+        }
+
+        TradeFingerprint finish() {
+            return new TradeFingerprint(fmix(hi), fmix(lo ^ hi));
+        }
+
+        // MurmurHash3 finalizer
+        private static long fmix(long h) {
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
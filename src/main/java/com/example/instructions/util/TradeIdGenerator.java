@@ -0,0 +1,47 @@
+package com.example.instructions.util;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Source of trade IDs. Every generator issues canonical 36-character UUID strings, so IDs
+ * from different generators, including random UUIDs issued before a switch, are looked up
+ * and stored the same way.
+ */
+public interface TradeIdGenerator {
+
+    int BINARY_LENGTH = 16;
+
+    String nextId();
+
+    /**
+     * Random version 4 UUIDs from the JDK's shared {@code SecureRandom}.
+     */
+    static TradeIdGenerator random() {
+        return () -> UUID.randomUUID().toString();
+    }
+
+    /**
+     * The 16-byte big-endian form of a trade ID.
+     *
+     * @throws IllegalArgumentException if the ID is not a UUID
+     */
+    static byte[] toBytes(String tradeId) {
+        UUID id = UUID.fromString(tradeId);
+        return ByteBuffer.allocate(BINARY_LENGTH)
+            .putLong(id.getMostSignificantBits())
+            .putLong(id.getLeastSignificantBits())
+            .array();
+    }
+
+    /**
+     * The string form of a trade ID written by {@link #toBytes}.
+     */
+    static String fromBytes(byte[] bytes) {
+        if (bytes.length != BINARY_LENGTH) {
+            throw new IllegalArgumentException("Binary trade ID must be " + BINARY_LENGTH + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.instructions.util;
+
+import com.example.instructions.model.CanonicalTrade;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Trades parsed lazily from a file. Closing the iterator closes the stream it reads from.
+ * {@link #hasNext()} and {@link #next()} throw an unchecked exception if a record cannot
+ * be parsed or read.
+ */
+public interface TradeIterator extends Iterator<CanonicalTrade>, Closeable {
+}
@@ -5,8 +5,8 @@ import com.example.instructions.model.PlatformTrade;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Map;
 import java.util.regex.Pattern;
 
 @Component
@@ -15,18 +15,35 @@ public class TradeTransformer {
     @Value("${app.platform.id}")
     private String platformId;
 
-    private static final Map<String, String> TRADE_TYPE_MAPPING = Map.of(
-        "BUY", "B",
-        "SELL", "S",
-        "Buy", "B",
-        "Sell", "S"
-    );
+    private static final String SIDE_BUY = "B";
+    private static final String SIDE_SELL = "S";
+    private static final String MASK = "****";
+    private static final int SECURITY_ID_LENGTH = 6;
 
+    // Only used for non-ASCII input, where Unicode case mapping has to be honoured
     private static final Pattern SECURITY_ID_PATTERN = Pattern.compile("^[A-Z0-9]{6}$");
     private static final DateTimeFormatter TIMESTAMP_FORMATTER = 
         DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'");
 
+    // Trades in a file usually share timestamps, so remember the last formatted second
+    private volatile FormattedTimestamp lastTimestamp = new FormattedTimestamp(null, null);
+
+    /**
+     * Validates and normalizes a trade.
+     *
+     * @throws IllegalArgumentException if a required field is missing or malformed
+     */
     public CanonicalTrade normalize(CanonicalTrade trade) {
+        if (trade.getAccountNumber() == null || trade.getAccountNumber().isBlank()) {
+            throw new IllegalArgumentException("Account number cannot be blank");
+        }
+        if (trade.getAmount() == null) {
+            throw new IllegalArgumentException("Amount cannot be null");
+        }
+        if (trade.getTimestamp() == null) {
+            throw new IllegalArgumentException("Timestamp cannot be null");
+        }
+
         // Mask account number - show only last 4 digits
         String maskedAccount = maskAccountNumber(trade.getAccountNumber());
         
@@ -51,25 +68,74 @@ public class TradeTransformer {
             canonical.getSecurityId(),
             canonical.getTradeType(),
             canonical.getAmount(),
-            canonical.getTimestamp().format(TIMESTAMP_FORMATTER)
+            formatTimestamp(canonical.getTimestamp())
         );
 
         return new PlatformTrade(platformId, details);
     }
 
     private String maskAccountNumber(String accountNumber) {
-        if (accountNumber == null || accountNumber.length() <= 4) {
-            return "****";
+        if (accountNumber.length() <= 4) {
+            return MASK;
+        }
+        int length = accountNumber.length();
+        if (length == MASK.length() + 4 && accountNumber.startsWith(MASK)) {
+            // Already masked, e.g. a trade replayed from the audit store
+            return accountNumber;
         }
-        String lastFour = accountNumber.substring(accountNumber.length() - 4);
-        return "****" + lastFour;
+        char[] masked = { '*', '*', '*', '*',
+            accountNumber.charAt(length - 4), accountNumber.charAt(length - 3),
+            accountNumber.charAt(length - 2), accountNumber.charAt(length - 1) };
+        return new String(masked);
     }
 
-    private String normalizeSecurityId(String securityId) {
+    /**
+     * Trims and upper-cases a security ID, as stored on normalized trades.
+     *
+     * @throws IllegalArgumentException if the ID is null or not six letters or digits
+     */
+    public String normalizeSecurityId(String securityId) {
         if (securityId == null) {
             throw new IllegalArgumentException("Security ID cannot be null");
         }
-        
+
+        int start = 0;
+        int end = securityId.length();
+        while (start < end && securityId.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && securityId.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        boolean changed = start != 0 || end != securityId.length();
+        for (int i = start; i < end; i++) {
+            char c = securityId.charAt(i);
+            if (c >= 0x80) {
+                return normalizeSecurityIdUnicode(securityId);
+            }
+            if (c >= 'a' && c <= 'z') {
+                changed = true;
+            } else if (!(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9')) {
+                throw new IllegalArgumentException("Invalid security ID format: " + securityId);
+            }
+        }
+        if (end - start != SECURITY_ID_LENGTH) {
+            throw new IllegalArgumentException("Invalid security ID format: " + securityId);
+        }
+        if (!changed) {
+            return securityId;
+        }
+
+        char[] normalized = new char[SECURITY_ID_LENGTH];
+        for (int i = 0; i < SECURITY_ID_LENGTH; i++) {
+            char c = securityId.charAt(start + i);
+            normalized[i] = c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+        }
+        return new String(normalized);
+    }
+
+    private String normalizeSecurityIdUnicode(String securityId) {
         String normalized = securityId.toUpperCase().trim();
         
         if (!SECURITY_ID_PATTERN.matcher(normalized).matches()) {
@@ -83,7 +149,81 @@ public class TradeTransformer {
         if (tradeType == null) {
             throw new IllegalArgumentException("Trade type cannot be null");
         }
-        
-        return TRADE_TYPE_MAPPING.getOrDefault(tradeType.trim(), tradeType.toUpperCase());
+
+        int start = 0;
+        int end = tradeType.length();
+        while (start < end && tradeType.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && tradeType.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        // "BUY", "Buy", "SELL" and "Sell" map to side codes, compared in place instead of trimming
+        int length = end - start;
+        if (length == 3 && (tradeType.startsWith("BUY", start) || tradeType.startsWith("Buy", start))) {
+            return SIDE_BUY;
+        }
+        if (length == 4 && (tradeType.startsWith("SELL", start) || tradeType.startsWith("Sell", start))) {
+            return SIDE_SELL;
+        }
+
+        // toUpperCase returns the same instance when there is nothing to convert
+        String upper = tradeType.toUpperCase();
+        if (SIDE_BUY.equals(upper)) {
+            return SIDE_BUY;
+        }
+        if (SIDE_SELL.equals(upper)) {
+            return SIDE_SELL;
+        }
+        return upper;
+    }
+
+    private String formatTimestamp(LocalDateTime timestamp) {
+        FormattedTimestamp last = lastTimestamp;
+        if (timestamp.equals(last.timestamp)) {
+            return last.formatted;
+        }
+
+        int year = timestamp.getYear();
+        String formatted;
+        if (year < 0 || year > 9999) {
+            formatted = timestamp.format(TIMESTAMP_FORMATTER);
+        } else {
+            char[] chars = new char[20];
+            writeDigits(chars, 0, year, 4);
+            chars[4] = '-';
+            writeDigits(chars, 5, timestamp.getMonthValue(), 2);
+            chars[7] = '-';
+            writeDigits(chars, 8, timestamp.getDayOfMonth(), 2);
+            chars[10] = 'T';
+            writeDigits(chars, 11, timestamp.getHour(), 2);
+            chars[13] = ':';
+            writeDigits(chars, 14, timestamp.getMinute(), 2);
+            chars[16] = ':';
+            writeDigits(chars, 17, timestamp.getSecond(), 2);
+            chars[19] = 'Z';
+            formatted = new String(chars);
+        }
+
+        lastTimestamp = new FormattedTimestamp(timestamp, formatted);
+        return formatted;
+    }
+
+    private static void writeDigits(char[] chars, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static final class FormattedTimestamp {
+        private final LocalDateTime timestamp;
+        private final String formatted;
+
+        private FormattedTimestamp(LocalDateTime timestamp, String formatted) {
+            this.timestamp = timestamp;
+            this.formatted = formatted;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package com.example.instructions.controller;
+
+import com.example.instructions.service.DeadLetterReplayService;
+import com.example.instructions.service.DeadLetterReplayService.ReplayInProgressException;
+import com.example.instructions.service.DeadLetterReplayService.ReplayResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterControllerTest {
+
+    @Mock
+    private DeadLetterReplayService replayService;
+
+    private DeadLetterController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new DeadLetterController(replayService);
+        ReflectionTestUtils.setField(controller, "defaultRate", 50.0);
+    }
+
+    @Test
+    void testReplay_ReportsCountsAndUsesDefaultRate() {
+        ReplayResult result = new ReplayResult();
+        ReflectionTestUtils.setField(result, "replayed", 3);
+        ReflectionTestUtils.setField(result, "accepted", 2);
+        ReflectionTestUtils.setField(result, "reparked", 1);
+        when(replayService.replay(10, 50.0)).thenReturn(result);
+
+        ResponseEntity<Map<String, Object>> response = controller.replay(10, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Map.of("replayed", 3, "accepted", 2, "reparked", 1), response.getBody());
+    }
+
+    @Test
+    void testReplay_RejectsNonPositiveLimitOrRate() {
+        assertEquals(HttpStatus.BAD_REQUEST, controller.replay(0, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.replay(10, -1.0).getStatusCode());
+
+        verify(replayService, never()).replay(anyInt(), anyDouble());
+    }
+
+    @Test
+    void testReplay_ConflictWhileAnotherReplayRuns() {
+        when(replayService.replay(anyInt(), anyDouble()))
+            .thenThrow(new ReplayInProgressException("A dead-letter replay is already running"));
+
+        assertEquals(HttpStatus.CONFLICT, controller.replay(10, 5.0).getStatusCode());
+    }
+}
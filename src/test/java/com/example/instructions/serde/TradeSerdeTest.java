@@ -0,0 +1,69 @@
+package com.example.instructions.serde;
+
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.PlatformTrade;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeSerdeTest {
+
+    private final TradeSerde serde = new TradeSerde(new JacksonConfig().objectMapper());
+
+    @Test
+    void testBinaryCodec_RoundTripsTrades() {
+        CanonicalTrade trade = new CanonicalTrade("1234567890", "ABC123", "Buy",
+            new BigDecimal("100000.50"), LocalDateTime.of(2025, 8, 4, 21, 15, 33));
+
+        CanonicalTrade decoded = TradeBinaryCodec.decodeCanonicalTrade(TradeBinaryCodec.encode(trade));
+
+        assertEquals("1234567890", decoded.getAccountNumber());
+        assertEquals("ABC123", decoded.getSecurityId());
+        assertEquals("Buy", decoded.getTradeType());
+        assertEquals(new BigDecimal("100000.50"), decoded.getAmount());
+        assertEquals(trade.getTimestamp(), decoded.getTimestamp());
+
+        PlatformTrade platformTrade = new PlatformTrade("ACCT123", new PlatformTrade.TradeDetails(
+            "****7890", "ABC123", "B", new BigDecimal("-0.001"), "2025-08-04T21:15:33"));
+        PlatformTrade decodedPlatform = TradeBinaryCodec.decodePlatformTrade(TradeBinaryCodec.encode(platformTrade));
+
+        assertEquals("ACCT123", decodedPlatform.getPlatformId());
+        assertEquals("****7890", decodedPlatform.getTrade().getAccount());
+        assertEquals(new BigDecimal("-0.001"), decodedPlatform.getTrade().getAmount());
+        assertEquals("2025-08-04T21:15:33", decodedPlatform.getTrade().getTimestamp());
+    }
+
+    @Test
+    void testReadCanonicalTrade_ChoosesFormatByHeaderOrFirstByte() throws IOException {
+        CanonicalTrade trade = new CanonicalTrade("1234567890", "ABC123", "Sell",
+            new BigDecimal("25"), LocalDateTime.of(2025, 8, 4, 9, 30, 0));
+        byte[] binary = TradeBinaryCodec.encode(trade);
+        byte[] json = ("{\"account_number\":\"1234567890\",\"security_id\":\"ABC123\",\"trade_type\":\"Sell\","
+            + "\"amount\":25,\"timestamp\":\"2025-08-04T09:30:00\"}").getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("ABC123", serde.readCanonicalTrade(binary, null).getSecurityId());
+        assertEquals("ABC123", serde.readCanonicalTrade(json, new RecordHeaders()).getSecurityId());
+
+        RecordHeaders binaryHeaders = new RecordHeaders();
+        binaryHeaders.add(WireFormat.CONTENT_TYPE_HEADER,
+            WireFormat.BINARY.getContentType().getBytes(StandardCharsets.UTF_8));
+        assertEquals("Sell", serde.readCanonicalTrade(binary, binaryHeaders).getTradeType());
+        assertThrows(IOException.class, () -> serde.readCanonicalTrade(json, binaryHeaders));
+    }
+
+    @Test
+    void testReadCanonicalTrade_RejectsFormatNotAcceptedByTopic() {
+        TradeSerde jsonOnly = new TradeSerde(new JacksonConfig().objectMapper(), WireFormat.JSON, WireFormat.JSON);
+        byte[] binary = TradeBinaryCodec.encode(new CanonicalTrade("1234567890", "ABC123", "B",
+            BigDecimal.ONE, LocalDateTime.of(2025, 8, 4, 9, 30, 0)));
+
+        assertThrows(IOException.class, () -> jsonOnly.readCanonicalTrade(binary, null));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.instructions.service;
+
+import com.example.instructions.service.DeadLetterPublisher.FailedRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterPublisherTest {
+
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    private DeadLetterPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new DeadLetterPublisher(kafkaTemplate);
+        ReflectionTestUtils.setField(publisher, "deadLetterTopic", "instructions.inbound.failed-dlt");
+        ReflectionTestUtils.setField(publisher, "retryTopic", "instructions.inbound.failed");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDeadLetter_ParksRecordWithErrorHeaders() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ConsumerRecord<String, byte[]> source = record(42, "key-1");
+
+        publisher.deadLetter(List.of(FailedRecord.of(source, new IllegalArgumentException("Invalid security ID"))))
+            .join();
+
+        ArgumentCaptor<ProducerRecord<String, byte[]>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        ProducerRecord<String, byte[]> parked = captor.getValue();
+        assertEquals("instructions.inbound.failed-dlt", parked.topic());
+        assertEquals("key-1", parked.key());
+        assertArrayEquals(source.value(), parked.value());
+        assertEquals("instructions.inbound", header(parked, KafkaHeaders.DLT_ORIGINAL_TOPIC));
+        assertEquals(42, ByteBuffer.wrap(parked.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_OFFSET).value()).getLong());
+        assertEquals(IllegalArgumentException.class.getName(), header(parked, KafkaHeaders.DLT_EXCEPTION_FQCN));
+        assertEquals("Invalid security ID", header(parked, KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDeadLetter_ParkedRecordKeepsOriginalProvenanceAndFirstFailure() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ConsumerRecord<String, byte[]> source = new ConsumerRecord<>("instructions.inbound.failed-dlt", 0, 3, "key-1",
+            "{}".getBytes(StandardCharsets.UTF_8));
+        source.headers().add(KafkaHeaders.DLT_ORIGINAL_TOPIC, "instructions.inbound".getBytes(StandardCharsets.UTF_8));
+        source.headers().add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(Long.BYTES).putLong(42).array());
+        source.headers().add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, "Invalid security ID".getBytes(StandardCharsets.UTF_8));
+        source.headers().add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, "Replayed once".getBytes(StandardCharsets.UTF_8));
+
+        publisher.deadLetter(List.of(FailedRecord.of(source, new IllegalArgumentException("Still invalid")))).join();
+
+        ArgumentCaptor<ProducerRecord<String, byte[]>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        ProducerRecord<String, byte[]> parked = captor.getValue();
+        assertEquals("instructions.inbound", header(parked, KafkaHeaders.DLT_ORIGINAL_TOPIC));
+        assertEquals(42, ByteBuffer.wrap(parked.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_OFFSET).value()).getLong());
+        List<String> messages = new ArrayList<>();
+        parked.headers().headers(KafkaHeaders.DLT_EXCEPTION_MESSAGE)
+            .forEach(message -> messages.add(new String(message.value(), StandardCharsets.UTF_8)));
+        assertEquals(List.of("Invalid security ID", "Still invalid"), messages);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRetry_SendsToRetryTopic() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        publisher.retry(List.of(FailedRecord.of(record(1, null), new IllegalStateException("broker down")),
+            FailedRecord.of(record(2, null), new IllegalStateException("broker down")))).join();
+
+        ArgumentCaptor<ProducerRecord<String, byte[]>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(captor.capture());
+        assertTrue(captor.getAllValues().stream().allMatch(parked -> parked.topic().equals("instructions.inbound.failed")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDeadLetter_FailsWhenAnySendFails() {
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(CompletableFuture.completedFuture(null))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        CompletableFuture<Void> parked = publisher.deadLetter(List.of(
+            FailedRecord.of(record(1, null), new IllegalArgumentException("bad")),
+            FailedRecord.of(record(2, null), new IllegalArgumentException("bad"))));
+
+        assertThrows(CompletionException.class, parked::join);
+    }
+
+    @Test
+    void testDeadLetter_NothingToPark() {
+        assertNull(publisher.deadLetter(List.of()).join());
+
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private static ConsumerRecord<String, byte[]> record(long offset, String key) {
+        return new ConsumerRecord<>("instructions.inbound", 0, offset, key, "{}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String header(ProducerRecord<String, byte[]> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.instructions.service;
+
+import com.example.instructions.service.KafkaListenerService.TradeRejectedException;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "app.kafka.publisher.spill.directory=target/test-data/spill",
+    "app.jobs.directory=target/test-data/jobs"
+})
+@EmbeddedKafka(partitions = 1,
+               topics = {"instructions.inbound", "instructions.outbound", "instructions.inbound.failed-dlt"})
+@DirtiesContext
+class DeadLetterReplayServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final String DEAD_LETTER_TOPIC = "instructions.inbound.failed-dlt";
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Autowired
+    private DeadLetterReplayService replayService;
+
+    @Test
+    void testReplay_PublishesFixedTradesAndReparksTheRest() {
+        Map<String, Object> producerProperties = KafkaTestUtils.producerProps(broker);
+        producerProperties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProperties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        try (KafkaProducer<String, byte[]> producer = new KafkaProducer<>(producerProperties)) {
+            producer.send(new ProducerRecord<>(DEAD_LETTER_TOPIC, trade("\"2025-08-04T21:15:33\"")));
+            // A trade without a timestamp is invalid, so it is parked again rather than retried
+            producer.send(new ProducerRecord<>(DEAD_LETTER_TOPIC, trade("null")));
+            producer.send(new ProducerRecord<>(DEAD_LETTER_TOPIC, "not json".getBytes(StandardCharsets.UTF_8)));
+            producer.flush();
+        }
+
+        DeadLetterReplayService.ReplayResult result = replayService.replay(10, 1000);
+
+        assertEquals(3, result.getReplayed());
+        assertEquals(1, result.getAccepted());
+        assertEquals(2, result.getReparked());
+        assertEquals("****7890", read("instructions.outbound", 1).get(0).key());
+
+        List<ConsumerRecord<String, byte[]>> parked = read(DEAD_LETTER_TOPIC, 5);
+        assertEquals(5, parked.size());
+        ConsumerRecord<String, byte[]> reparked = parked.get(3);
+        assertEquals(TradeRejectedException.class.getName(), header(reparked, KafkaHeaders.DLT_EXCEPTION_FQCN));
+        assertEquals("Timestamp cannot be null", header(reparked, KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+
+        // Only the records parked again by the previous replay are left
+        DeadLetterReplayService.ReplayResult again = replayService.replay(10, 1000);
+        assertEquals(2, again.getReplayed());
+        assertEquals(0, again.getAccepted());
+    }
+
+    private List<ConsumerRecord<String, byte[]>> read(String topic, int count) {
+        Map<String, Object> properties = KafkaTestUtils.consumerProps("verifier-" + topic, "false", broker);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(properties,
+                new StringDeserializer(), new ByteArrayDeserializer())) {
+            consumer.subscribe(List.of(topic));
+            List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+            long deadline = System.nanoTime() + TIMEOUT.toNanos();
+            while (records.size() < count && System.nanoTime() < deadline) {
+                ConsumerRecords<String, byte[]> polled = consumer.poll(Duration.ofMillis(200));
+                polled.forEach(records::add);
+            }
+            return records;
+        }
+    }
+
+    private static String header(ConsumerRecord<String, byte[]> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] trade(String timestamp) {
+        return ("{\"account_number\":\"1234567890\",\"security_id\":\"ABC123\",\"trade_type\":\"Buy\","
+            + "\"amount\":100,\"timestamp\":" + timestamp + "}").getBytes(StandardCharsets.UTF_8);
+    }
+}
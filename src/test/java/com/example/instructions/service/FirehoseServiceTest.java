@@ -0,0 +1,156 @@
+package com.example.instructions.service;
+
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.TradeResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FirehoseServiceTest {
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+    @Mock
+    private TradeService tradeService;
+
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(tradeService.processTrades(anyList(), anyLong())).thenAnswer(invocation -> {
+            List<CanonicalTrade> trades = invocation.getArgument(0);
+            long firstIndex = invocation.getArgument(1);
+            batchSizes.add(trades.size());
+            List<TradeResult> results = new ArrayList<>();
+            for (int i = 0; i < trades.size(); i++) {
+                results.add(TradeResult.accepted(firstIndex + i, trades.get(i).getAccountNumber()));
+            }
+            return CompletableFuture.completedFuture(results);
+        });
+    }
+
+    @Test
+    void testStream_AcksEveryRecordInOrderAndRejectsBadLinesAlone() throws Exception {
+        FirehoseService service = new FirehoseService(tradeService, objectMapper, 2, 2, 200);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            input.append(trade("ACC" + i)).append('\n');
+        }
+        input.append("{\"account_number\":\n");
+        input.append("\n");
+        input.append("{\"padding\":\"").append("x".repeat(500)).append("\"}\n");
+        for (int i = 7; i < 10; i++) {
+            input.append(trade("ACC" + i)).append("\r\n");
+        }
+
+        List<JsonNode> lines = stream(service, new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(11, lines.size());
+        for (int i = 0; i < 10; i++) {
+            JsonNode line = lines.get(i);
+            assertEquals(i, line.get("index").asLong());
+            if (i == 5 || i == 6) {
+                assertTrue(line.has("error"));
+            } else {
+                assertEquals("ACC" + i, line.get("trade_id").asText());
+            }
+        }
+        assertTrue(lines.get(6).get("error").asText().startsWith("Record exceeds 200 bytes"));
+        assertEquals(8, lines.get(10).get("processedCount").asLong());
+        assertEquals(2, lines.get(10).get("rejectedCount").asLong());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 2));
+    }
+
+    @Test
+    void testStream_WritesAcksBeforeWaitingForMoreInput() throws Exception {
+        FirehoseService service = new FirehoseService(tradeService, objectMapper, 256, 8, 1024);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        List<String> pending = new ArrayList<>(List.of(trade("ACC0"), trade("ACC1"), trade("ACC2")));
+
+        // Hands over one line per read and never reports more as available, like an idle client
+        InputStream trickle = new InputStream() {
+            private int sent;
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                String acked = output.toString(StandardCharsets.UTF_8);
+                for (int i = 0; i < sent; i++) {
+                    assertTrue(acked.contains("\"ACC" + i + "\""), "ack for trade " + i + " before the next read");
+                }
+                if (pending.isEmpty()) {
+                    return -1;
+                }
+                byte[] line = (pending.remove(0) + "\n").getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(line, 0, buffer, offset, line.length);
+                sent++;
+                return line.length;
+            }
+
+            @Override
+            public int read() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        service.stream(trickle, output);
+
+        assertEquals(List.of(1, 1, 1), batchSizes);
+    }
+
+    @Test
+    void testStream_AcksFailedBatchPerRecordAndCarriesOn() throws Exception {
+        FirehoseService service = new FirehoseService(tradeService, objectMapper, 2, 2, 1024);
+        when(tradeService.processTrades(anyList(), eq(2L)))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("lane queue closed")));
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            input.append(trade("ACC" + i)).append('\n');
+        }
+
+        List<JsonNode> lines = stream(service, new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(7, lines.size());
+        assertEquals("ACC1", lines.get(1).get("trade_id").asText());
+        assertEquals(2, lines.get(2).get("index").asLong());
+        assertEquals("Processing failed: lane queue closed", lines.get(2).get("error").asText());
+        assertTrue(lines.get(3).has("error"));
+        assertEquals("ACC5", lines.get(5).get("trade_id").asText());
+        assertEquals(4, lines.get(6).get("processedCount").asLong());
+        assertEquals(2, lines.get(6).get("rejectedCount").asLong());
+    }
+
+    private List<JsonNode> stream(FirehoseService service, InputStream input) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.stream(input, output);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private static String trade(String account) {
+        return "{\"account_number\":\"" + account + "\",\"security_id\":\"ABC123\",\"trade_type\":\"Buy\","
+            + "\"amount\":100,\"timestamp\":\"2025-08-04T21:15:33\"}";
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.instructions.service;
+
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.metrics.TradeMetrics;
+import com.example.instructions.model.TradeResult;
+import com.example.instructions.serde.TradeSerde;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaListenerServiceTest {
+
+    @Mock
+    private TradeService tradeService;
+
+    @Mock
+    private DeadLetterPublisher deadLetterPublisher;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private KafkaListenerService listenerService;
+
+    @BeforeEach
+    void setUp() {
+        listenerService = new KafkaListenerService(tradeService, new TradeSerde(new JacksonConfig().objectMapper()),
+            TradeMetrics.noop(), deadLetterPublisher);
+    }
+
+    @Test
+    void testSingle_AcknowledgesOnlyAfterPublishAndParking() {
+        when(tradeService.processTrades(anyList(), anyLong())).thenReturn(
+            CompletableFuture.completedFuture(List.of(TradeResult.rejected(7, "Invalid trade type"))));
+        when(deadLetterPublisher.deadLetter(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        when(deadLetterPublisher.retry(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+
+        listenerService.handleTradeInstruction(record(7, trade("1234567890")), acknowledgment);
+
+        InOrder inOrder = inOrder(tradeService, deadLetterPublisher, acknowledgment);
+        inOrder.verify(tradeService).processTrades(anyList(), anyLong());
+        inOrder.verify(deadLetterPublisher).deadLetter(argThat(records -> records.size() == 1));
+        inOrder.verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void testSingle_DoesNotAcknowledgeWhenParkingFails() {
+        when(tradeService.processTrades(anyList(), anyLong())).thenReturn(
+            CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        when(deadLetterPublisher.retry(anyList())).thenReturn(
+            CompletableFuture.failedFuture(new IllegalStateException("broker still down")));
+
+        assertThrows(CompletionException.class,
+            () -> listenerService.handleTradeInstruction(record(7, trade("1234567890")), acknowledgment));
+
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void testPark_RoutesInvalidToDeadLetterAndFailedToRetry() {
+        when(deadLetterPublisher.deadLetter(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        when(deadLetterPublisher.retry(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        List<ConsumerRecord<String, byte[]>> records = List.of(record(10, trade("1")), record(11, trade("2")),
+            record(12, trade("3")), record(13, trade("4")));
+
+        listenerService.park(records, List.of(
+            TradeResult.accepted(10, "T-1"),
+            TradeResult.rejected(11, "Invalid security ID format: INVALID"),
+            TradeResult.failed(12, "T-3", "Publish failed: broker down"),
+            // Spilled by the publisher, which redelivers it itself
+            new TradeResult(13, "T-4", "Publish failed, queued for redelivery: broker down")), deadLetterPublisher).join();
+
+        verify(deadLetterPublisher).deadLetter(argThat(failed -> failed.size() == 1));
+        verify(deadLetterPublisher).retry(argThat(failed -> failed.size() == 1));
+    }
+
+    @Test
+    void testBatch_ParksFailuresThenAcknowledges() {
+        when(tradeService.processTrades(anyList())).thenReturn(CompletableFuture.completedFuture(List.of(
+            TradeResult.accepted(0, "T-1"),
+            TradeResult.failed(1, null, "Processing failed: lane broken"))));
+        when(deadLetterPublisher.deadLetter(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        when(deadLetterPublisher.retry(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        Consumer<?, ?> consumer = mock(Consumer.class);
+
+        listenerService.handleTradeInstructionBatch(List.of(record(20, trade("1")), record(21, "not json"),
+            record(22, trade("2"))), acknowledgment, consumer);
+
+        InOrder inOrder = inOrder(tradeService, deadLetterPublisher, acknowledgment);
+        inOrder.verify(tradeService).processTrades(argThat(trades -> trades.size() == 2));
+        // Only the unreadable record is dead-lettered and only the failed trade is retried
+        inOrder.verify(deadLetterPublisher).retry(argThat(failed -> failed.size() == 1
+            && failed.get(0).getRecord().offset() == 22));
+        inOrder.verify(acknowledgment).acknowledge();
+        verify(deadLetterPublisher).deadLetter(argThat(failed -> failed.size() == 1
+            && failed.get(0).getRecord().offset() == 21));
+    }
+
+    @Test
+    void testBatch_DoesNotAcknowledgeWhenParkingFails() {
+        when(tradeService.processTrades(anyList())).thenReturn(CompletableFuture.completedFuture(List.of(
+            TradeResult.failed(0, "T-1", "Publish failed: broker down"))));
+        when(deadLetterPublisher.deadLetter(anyList())).thenReturn(CompletableFuture.completedFuture(null));
+        when(deadLetterPublisher.retry(anyList())).thenReturn(
+            CompletableFuture.failedFuture(new IllegalStateException("broker still down")));
+
+        assertThrows(CompletionException.class, () -> listenerService.handleTradeInstructionBatch(
+            List.of(record(30, trade("1"))), acknowledgment, mock(Consumer.class)));
+
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    private static ConsumerRecord<String, byte[]> record(long offset, String value) {
+        return new ConsumerRecord<>("instructions.inbound", 0, offset, null, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String trade(String account) {
+        return "{\"account_number\":\"" + account + "\",\"security_id\":\"ABC123\",\"trade_type\":\"Buy\","
+            + "\"amount\":100,\"timestamp\":\"2025-08-04T21:15:33\"}";
+    }
+}
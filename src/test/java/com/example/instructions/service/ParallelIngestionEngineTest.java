@@ -0,0 +1,125 @@
+package com.example.instructions.service;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.TradeResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ParallelIngestionEngineTest {
+
+    @Mock
+    private TradeService tradeService;
+
+    @Test
+    void testIngest_ReportsResultsInInputOrder() {
+        ParallelIngestionEngine engine = new ParallelIngestionEngine(tradeService, 7, 3);
+        echoAccountNumbers();
+
+        List<TradeResult> results = ingest(engine, trades(100, 100));
+
+        assertEquals(100, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals("ACC" + i, results.get(i).getTradeId());
+        }
+    }
+
+    @Test
+    void testIngest_SubmitsWholeChunksInInputOrder() {
+        ParallelIngestionEngine engine = new ParallelIngestionEngine(tradeService, 10, 2);
+        List<Long> firstIndexes = new CopyOnWriteArrayList<>();
+        List<Integer> amounts = new CopyOnWriteArrayList<>();
+        when(tradeService.processTrades(anyList(), anyLong())).thenAnswer(invocation -> {
+            List<CanonicalTrade> trades = invocation.getArgument(0);
+            long firstIndex = invocation.getArgument(1);
+            firstIndexes.add(firstIndex);
+            List<TradeResult> results = new ArrayList<>();
+            for (CanonicalTrade trade : trades) {
+                amounts.add(trade.getAmount().intValue());
+                results.add(TradeResult.accepted(firstIndex + results.size(), trade.getAccountNumber()));
+            }
+            return CompletableFuture.completedFuture(results);
+        });
+
+        List<TradeResult> results = ingest(engine, trades(25, 5));
+
+        assertEquals(25, results.size());
+        assertEquals(List.of(0L, 10L, 20L), firstIndexes);
+        for (int i = 0; i < amounts.size(); i++) {
+            assertEquals(i, amounts.get(i));
+        }
+    }
+
+    @Test
+    void testIngest_DeliversReadResultsBeforeRethrowingParseFailure() {
+        ParallelIngestionEngine engine = new ParallelIngestionEngine(tradeService, 4, 2);
+        echoAccountNumbers();
+        Iterator<CanonicalTrade> source = trades(10, 10).iterator();
+        Iterator<CanonicalTrade> failing = new Iterator<>() {
+            private int read;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public CanonicalTrade next() {
+                if (read++ == 6) {
+                    throw new IllegalStateException("bad row");
+                }
+                return source.next();
+            }
+        };
+        List<TradeResult> results = new ArrayList<>();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> engine.ingest(failing, results::addAll));
+
+        assertEquals("bad row", e.getMessage());
+        assertEquals(6, results.size());
+    }
+
+    private static List<TradeResult> ingest(ParallelIngestionEngine engine, List<CanonicalTrade> trades) {
+        List<TradeResult> results = new ArrayList<>();
+        engine.ingest(trades.iterator(), results::addAll);
+        return results;
+    }
+
+    private void echoAccountNumbers() {
+        when(tradeService.processTrades(anyList(), anyLong())).thenAnswer(invocation -> {
+            List<CanonicalTrade> trades = invocation.getArgument(0);
+            long firstIndex = invocation.getArgument(1);
+            List<TradeResult> results = new ArrayList<>();
+            for (CanonicalTrade trade : trades) {
+                results.add(TradeResult.accepted(firstIndex + results.size(), trade.getAccountNumber()));
+            }
+            return CompletableFuture.completedFuture(results);
+        });
+    }
+
+    private static List<CanonicalTrade> trades(int count, int accounts) {
+        List<CanonicalTrade> trades = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            trades.add(new CanonicalTrade("ACC" + (i % accounts), "ABC123", "Buy",
+                BigDecimal.valueOf(i), LocalDateTime.of(2025, 8, 4, 21, 15, 33)));
+        }
+        return trades;
+    }
+}
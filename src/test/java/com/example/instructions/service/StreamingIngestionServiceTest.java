@@ -0,0 +1,66 @@
+package com.example.instructions.service;
+
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.TradeResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StreamingIngestionServiceTest {
+
+    @Mock
+    private TradeService tradeService;
+
+    @Test
+    void testIngestAll_WaitsForSubmittedChunksAndNamesLaterAcceptedRecords() {
+        List<String> processed = new CopyOnWriteArrayList<>();
+        when(tradeService.processTrades(anyList(), anyLong())).thenAnswer(invocation -> {
+            List<CanonicalTrade> trades = invocation.getArgument(0);
+            long firstIndex = invocation.getArgument(1);
+            List<TradeResult> results = new ArrayList<>();
+            for (CanonicalTrade trade : trades) {
+                processed.add(trade.getAccountNumber());
+                long index = firstIndex + results.size();
+                results.add(trade.getAccountNumber().equals("BAD")
+                    ? TradeResult.rejected(index, "Invalid account")
+                    : TradeResult.accepted(index, "T-" + trade.getAccountNumber()));
+            }
+            return CompletableFuture.completedFuture(results);
+        });
+        // Three chunks of two are in flight before the first one's results are checked
+        StreamingIngestionService service = new StreamingIngestionService(
+            new ParallelIngestionEngine(tradeService, 2, 3), new JacksonConfig().objectMapper());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> service.ingestAll(
+            trades("ACC0", "BAD", "ACC2", "ACC3", "ACC4", "ACC5", "ACC6", "ACC7").iterator()));
+
+        assertEquals("Record 1 failed: Invalid account; later records already accepted: "
+            + "2 (T-ACC2), 3 (T-ACC3), 4 (T-ACC4), 5 (T-ACC5)", e.getMessage());
+        // Nothing is read after the rejection is seen
+        assertEquals(List.of("ACC0", "BAD", "ACC2", "ACC3", "ACC4", "ACC5"), processed);
+    }
+
+    private static List<CanonicalTrade> trades(String... accounts) {
+        List<CanonicalTrade> trades = new ArrayList<>();
+        for (String account : accounts) {
+            trades.add(new CanonicalTrade(account, "ABC123", "Buy", BigDecimal.ONE,
+                LocalDateTime.of(2025, 8, 4, 21, 15, 33)));
+        }
+        return trades;
+    }
+}
@@ -1,26 +1,44 @@
 package com.example.instructions.service;
 
+import com.example.instructions.metrics.TradeMetrics;
 import com.example.instructions.model.CanonicalTrade;
 import com.example.instructions.model.PlatformTrade;
+import com.example.instructions.model.PublishResult;
+import com.example.instructions.model.TradeResult;
+import com.example.instructions.serde.TradeSerde;
+import com.example.instructions.store.IdempotencyIndex;
+import com.example.instructions.util.ShardedExecutor;
+import com.example.instructions.util.TradeIdGenerator;
 import com.example.instructions.util.TradeTransformer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class TradeServiceTest {
 
+    private static final byte[] PAYLOAD = "{}".getBytes();
+    private static final PublishResult PUBLISHED = new PublishResult("instructions.outbound", 0, 42);
+
     @Mock
     private TradeTransformer transformer;
 
@@ -30,11 +48,17 @@ class TradeServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private ObjectWriter platformTradeWriter;
+
     private TradeService tradeService;
 
     @BeforeEach
     void setUp() {
-        tradeService = new TradeService(transformer, kafkaPublisher, objectMapper);
+        when(objectMapper.writerFor(PlatformTrade.class)).thenReturn(platformTradeWriter);
+        tradeService = TradeService.builder(transformer, kafkaPublisher, new TradeSerde(objectMapper))
+            .partitionKey(TradeService.PartitionKey.NONE)
+            .build();
     }
 
     @Test
@@ -56,7 +80,8 @@ class TradeServiceTest {
 
         when(transformer.normalize(inputTrade)).thenReturn(normalizedTrade);
         when(transformer.toPlatformFormat(normalizedTrade)).thenReturn(platformTrade);
-        when(objectMapper.writeValueAsString(platformTrade)).thenReturn("{\"platform_id\":\"ACCT123\"}");
+        when(platformTradeWriter.writeValueAsBytes(platformTrade)).thenReturn("{\"platform_id\":\"ACCT123\"}".getBytes());
+        when(kafkaPublisher.publishTrade(any(byte[].class))).thenReturn(CompletableFuture.completedFuture(PUBLISHED));
 
         // When
         String tradeId = tradeService.processTrade(inputTrade);
@@ -65,7 +90,7 @@ class TradeServiceTest {
         assertNotNull(tradeId);
         verify(transformer).normalize(inputTrade);
         verify(transformer).toPlatformFormat(normalizedTrade);
-        verify(kafkaPublisher).publishTrade(anyString());
+        verify(kafkaPublisher).publishTrade(any(byte[].class));
         assertEquals(1, tradeService.getStoredTradeCount());
     }
 
@@ -79,6 +104,7 @@ class TradeServiceTest {
         
         when(transformer.normalize(any())).thenReturn(trade);
         when(transformer.toPlatformFormat(any())).thenReturn(mock(PlatformTrade.class));
+        when(kafkaPublisher.publishTrade(any())).thenReturn(CompletableFuture.completedFuture(PUBLISHED));
 
         // When
         String tradeId = tradeService.processTrade(trade);
@@ -99,6 +125,7 @@ class TradeServiceTest {
         
         when(transformer.normalize(any())).thenReturn(trade);
         when(transformer.toPlatformFormat(any())).thenReturn(mock(PlatformTrade.class));
+        when(kafkaPublisher.publishTrade(any())).thenReturn(CompletableFuture.completedFuture(PUBLISHED));
 
         tradeService.processTrade(trade);
         assertEquals(1, tradeService.getStoredTradeCount());
@@ -109,4 +136,278 @@ class TradeServiceTest {
         // Then
         assertEquals(0, tradeService.getStoredTradeCount());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testProcessTrades_RejectsInvalidTradeAndPublishesRest() throws Exception {
+        // Given
+        CanonicalTrade valid = new CanonicalTrade(
+            "1234567890", "ABC123", "Buy", 
+            BigDecimal.valueOf(100000), LocalDateTime.now()
+        );
+        CanonicalTrade invalid = new CanonicalTrade(
+            "1234567890", "INVALID", "Buy", 
+            BigDecimal.valueOf(100000), LocalDateTime.now()
+        );
+        PlatformTrade platformTrade = mock(PlatformTrade.class);
+
+        when(transformer.normalize(valid)).thenReturn(valid);
+        when(transformer.normalize(invalid)).thenThrow(new IllegalArgumentException("Invalid security ID format: INVALID"));
+        when(transformer.toPlatformFormat(valid)).thenReturn(platformTrade);
+        when(platformTradeWriter.writeValueAsBytes(platformTrade)).thenReturn(PAYLOAD);
+        when(kafkaPublisher.publishTrades(List.of(PAYLOAD, PAYLOAD)))
+            .thenReturn(List.of(CompletableFuture.completedFuture(PUBLISHED), CompletableFuture.completedFuture(PUBLISHED)));
+
+        // When
+        List<TradeResult> results = tradeService.processTrades(List.of(valid, invalid, valid), 10).join();
+
+        // Then
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isAccepted());
+        assertFalse(results.get(1).isAccepted());
+        assertEquals(11, results.get(1).getIndex());
+        assertEquals("Invalid security ID format: INVALID", results.get(1).getError());
+        assertTrue(results.get(2).isAccepted());
+        assertEquals(2, tradeService.getStoredTradeCount());
+    }
+
+    @Test
+    void testProcessTrades_ReportsPublishFailure() throws Exception {
+        // Given
+        CanonicalTrade trade = new CanonicalTrade(
+            "1234567890", "ABC123", "Buy", 
+            BigDecimal.valueOf(100000), LocalDateTime.now()
+        );
+        PlatformTrade platformTrade = mock(PlatformTrade.class);
+
+        when(transformer.normalize(trade)).thenReturn(trade);
+        when(transformer.toPlatformFormat(trade)).thenReturn(platformTrade);
+        when(platformTradeWriter.writeValueAsBytes(platformTrade)).thenReturn(PAYLOAD);
+        when(kafkaPublisher.publishTrades(List.of(PAYLOAD)))
+            .thenReturn(List.of(CompletableFuture.failedFuture(new IllegalStateException("broker down"))));
+
+        // When
+        List<TradeResult> results = tradeService.processTrades(List.of(trade)).join();
+
+        // Then
+        assertFalse(results.get(0).isAccepted());
+        assertNotNull(results.get(0).getTradeId());
+        assertEquals("Publish failed: broker down", results.get(0).getError());
+    }
+
+    @Test
+    void testProcessTrades_RecordsMetrics() throws Exception {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        tradeService = TradeService.builder(transformer, kafkaPublisher, new TradeSerde(objectMapper))
+            .metrics(new TradeMetrics(registry))
+            .partitionKey(TradeService.PartitionKey.NONE)
+            .build();
+        CanonicalTrade valid = new CanonicalTrade(
+            "1234567890", "ABC123", "Buy", 
+            BigDecimal.valueOf(100000), LocalDateTime.now()
+        );
+        CanonicalTrade invalid = new CanonicalTrade(
+            "1234567890", "INVALID", "Buy", 
+            BigDecimal.valueOf(100000), LocalDateTime.now()
+        );
+        PlatformTrade platformTrade = mock(PlatformTrade.class);
+
+        when(transformer.normalize(valid)).thenReturn(valid);
+        when(transformer.normalize(invalid)).thenThrow(new IllegalArgumentException("Invalid security ID format: INVALID"));
+        when(transformer.toPlatformFormat(valid)).thenReturn(platformTrade);
+        when(platformTradeWriter.writeValueAsBytes(platformTrade)).thenReturn(PAYLOAD);
+        when(kafkaPublisher.publishTrades(List.of(PAYLOAD)))
+            .thenReturn(List.of(CompletableFuture.completedFuture(PUBLISHED)));
+
+        // When
+        tradeService.processTrades(List.of(valid, invalid)).join();
+
+        // Then
+        assertEquals(1.0, registry.get("trade.pipeline.trades").tags("outcome", "accepted").counter().count());
+        assertEquals(1.0, registry.get("trade.pipeline.trades").tags("outcome", "rejected", "reason", "invalid")
+            .counter().count());
+        assertEquals(2, registry.get("trade.pipeline.stage").tag("stage", "normalize").timer().count());
+        assertEquals(1, registry.get("trade.pipeline.stage").tag("stage", "store").timer().count());
+    }
+
+    @Test
+    void testProcessTrades_ReturnsOriginalIdForDuplicate() throws Exception {
+        // Given
+        tradeService = TradeService.builder(transformer, kafkaPublisher, new TradeSerde(objectMapper))
+            .idempotencyIndex(new IdempotencyIndex(1000))
+            .partitionKey(TradeService.PartitionKey.NONE)
+            .build();
+        LocalDateTime timestamp = LocalDateTime.of(2025, 8, 4, 21, 15, 33);
+        CanonicalTrade trade = new CanonicalTrade(
+            "1234567890", "ABC123", "Buy", 
+            BigDecimal.valueOf(100000), timestamp
+        );
+        CanonicalTrade redelivered = new CanonicalTrade(
+            "1234567890", "ABC123", "Buy", 
+            new BigDecimal("100000.00"), timestamp
+        );
+        CanonicalTrade normalized = new CanonicalTrade(
+            "****7890", "ABC123", "B", 
+            BigDecimal.valueOf(100000), timestamp
+        );
+        PlatformTrade platformTrade = mock(PlatformTrade.class);
+
+        when(transformer.normalize(any())).thenReturn(normalized);
+        when(transformer.toPlatformFormat(normalized)).thenReturn(platformTrade);
+        when(platformTradeWriter.writeValueAsBytes(platformTrade)).thenReturn(PAYLOAD);
+        when(kafkaPublisher.publishTrades(List.of(PAYLOAD)))
+            .thenReturn(List.of(CompletableFuture.completedFuture(PUBLISHED)));
+        when(kafkaPublisher.publishTrades(List.of())).thenReturn(List.of());
+
+        // When
+        List<TradeResult> first = tradeService.processTrades(List.of(trade)).join();
+        List<TradeResult> second = tradeService.processTrades(List.of(redelivered)).join();
+
+        // Then
+        assertTrue(second.get(0).isAccepted());
+        assertEquals(Boolean.TRUE, second.get(0).getDuplicate());
+        assertEquals(first.get(0).getTradeId(), second.get(0).getTradeId());
+        assertEquals(1, tradeService.getStoredTradeCount());
+        verify(kafkaPublisher, times(1)).publishTrades(List.of(PAYLOAD));
+    }
+
+    @Test
+    void testProcessTrades_KeysRecordsByMaskedAccountOnLanes() throws Exception {
+        // Given
+        LocalDateTime timestamp = LocalDateTime.of(2025, 8, 4, 21, 15, 33);
+        List<CanonicalTrade> trades = List.of(
+            new CanonicalTrade("1111111111", "ABC123", "Buy", BigDecimal.ONE, timestamp),
+            new CanonicalTrade("2222222222", "ABC123", "Buy", BigDecimal.ONE, timestamp),
+            new CanonicalTrade("1111111111", "ABC123", "Sell", BigDecimal.TEN, timestamp),
+            new CanonicalTrade("3333333333", "ABC123", "Buy", BigDecimal.ONE, timestamp)
+        );
+        PlatformTrade platformTrade = mock(PlatformTrade.class);
+        List<String> keys = new CopyOnWriteArrayList<>();
+
+        when(transformer.normalize(any())).thenAnswer(invocation -> {
+            CanonicalTrade trade = invocation.getArgument(0);
+            return new CanonicalTrade("****" + trade.getAccountNumber().substring(6), trade.getSecurityId(),
+                trade.getTradeType(), trade.getAmount(), trade.getTimestamp());
+        });
+        when(transformer.toPlatformFormat(any())).thenReturn(platformTrade);
+        when(platformTradeWriter.writeValueAsBytes(platformTrade)).thenReturn(PAYLOAD);
+        when(kafkaPublisher.publishTrades(anyList(), anyList())).thenAnswer(invocation -> {
+            List<String> batchKeys = invocation.getArgument(0);
+            keys.addAll(batchKeys);
+            List<CompletableFuture<PublishResult>> sends = new ArrayList<>();
+            for (int i = 0; i < batchKeys.size(); i++) {
+                sends.add(CompletableFuture.completedFuture(PUBLISHED));
+            }
+            return sends;
+        });
+
+        try (ShardedExecutor lanes = new ShardedExecutor("test-lane", 2, 16)) {
+            tradeService = TradeService.builder(transformer, kafkaPublisher, new TradeSerde(objectMapper))
+                .lanes(lanes)
+                .idGenerator(TradeIdGenerator.random())
+                .build();
+
+            // When
+            List<TradeResult> results = tradeService.processTrades(trades, 5).join();
+
+            // Then
+            assertEquals(4, results.size());
+            for (int i = 0; i < results.size(); i++) {
+                assertTrue(results.get(i).isAccepted());
+                assertEquals(5 + i, results.get(i).getIndex());
+            }
+            assertEquals(List.of("****1111", "****1111", "****2222", "****3333"), keys.stream().sorted().toList());
+            verify(kafkaPublisher, never()).publishTrades(anyList());
+        }
+    }
+
+    @Test
+    void testProcessTrades_FailedLanePartKeepsResultsOfOtherParts() throws Exception {
+        // Given
+        LocalDateTime timestamp = LocalDateTime.of(2025, 8, 4, 21, 15, 33);
+        List<CanonicalTrade> trades = List.of(
+            new CanonicalTrade("1111111111", "ABC123", "Buy", BigDecimal.ONE, timestamp),
+            new CanonicalTrade("2222222222", "ABC123", "Buy", BigDecimal.ONE, timestamp),
+            new CanonicalTrade("3333333333", "ABC123", "Buy", BigDecimal.ONE, timestamp)
+        );
+        PlatformTrade platformTrade = mock(PlatformTrade.class);
+        List<String> published = new CopyOnWriteArrayList<>();
+
+        when(transformer.normalize(any())).thenAnswer(invocation -> {
+            CanonicalTrade trade = invocation.getArgument(0);
+            return new CanonicalTrade("****" + trade.getAccountNumber().substring(6), trade.getSecurityId(),
+                trade.getTradeType(), trade.getAmount(), trade.getTimestamp());
+        });
+        when(transformer.toPlatformFormat(any())).thenReturn(platformTrade);
+        when(platformTradeWriter.writeValueAsBytes(platformTrade)).thenReturn(PAYLOAD);
+        when(kafkaPublisher.publishTrades(anyList(), anyList())).thenAnswer(invocation -> {
+            List<String> batchKeys = invocation.getArgument(0);
+            if (batchKeys.contains("****2222")) {
+                throw new IllegalStateException("lane broken");
+            }
+            published.addAll(batchKeys);
+            List<CompletableFuture<PublishResult>> sends = new ArrayList<>();
+            for (int i = 0; i < batchKeys.size(); i++) {
+                sends.add(CompletableFuture.completedFuture(PUBLISHED));
+            }
+            return sends;
+        });
+
+        try (ShardedExecutor lanes = new ShardedExecutor("test-lane", 2, 16)) {
+            tradeService = TradeService.builder(transformer, kafkaPublisher, new TradeSerde(objectMapper))
+                .lanes(lanes)
+                .idGenerator(TradeIdGenerator.random())
+                .build();
+
+            // When
+            List<TradeResult> results = tradeService.processTrades(trades, 5).join();
+
+            // Then
+            assertEquals(3, results.size());
+            TradeResult failed = results.get(1);
+            assertEquals(6, failed.getIndex());
+            assertTrue(failed.isRetryable());
+            assertNull(failed.getTradeId());
+            // Only the trades of the failed part are left to retry
+            assertEquals(published.size(), results.stream().filter(TradeResult::isAccepted).count());
+        }
+    }
+
+    @Test
+    void testProcessTradesInTransaction_ReleasesTradesOnRollback() throws Exception {
+        // Given
+        tradeService = TradeService.builder(transformer, kafkaPublisher, new TradeSerde(objectMapper))
+            .idempotencyIndex(new IdempotencyIndex(1000))
+            .partitionKey(TradeService.PartitionKey.NONE)
+            .build();
+        CanonicalTrade trade = new CanonicalTrade(
+            "1234567890", "ABC123", "Buy",
+            BigDecimal.valueOf(100000), LocalDateTime.of(2025, 8, 4, 21, 15, 33)
+        );
+        PlatformTrade platformTrade = mock(PlatformTrade.class);
+
+        when(transformer.normalize(trade)).thenReturn(trade);
+        when(transformer.toPlatformFormat(trade)).thenReturn(platformTrade);
+        when(platformTradeWriter.writeValueAsBytes(platformTrade)).thenReturn(PAYLOAD);
+        when(kafkaPublisher.publishTrades(List.of(PAYLOAD)))
+            .thenReturn(List.of(CompletableFuture.completedFuture(PUBLISHED)));
+
+        // When the first delivery's transaction rolls back
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            List<TradeResult> first = tradeService.processTradesInTransaction(List.of(trade), 0, kafkaPublisher);
+            assertTrue(first.get(0).isAccepted());
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        List<TradeResult> redelivered = tradeService.processTrades(List.of(trade)).join();
+
+        // Then the redelivery is published again rather than reported as a duplicate
+        assertTrue(redelivered.get(0).isAccepted());
+        assertNotEquals(Boolean.TRUE, redelivered.get(0).getDuplicate());
+        verify(kafkaPublisher, times(2)).publishTrades(List.of(PAYLOAD));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.instructions.service;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "app.kafka.listener.mode=transactional",
+    "app.kafka.listener.concurrency=1",
+    "app.kafka.transactions.transaction-id-prefix=test-tx-",
+    "app.kafka.publisher.spill.directory=target/test-data/spill",
+    "app.jobs.directory=target/test-data/jobs"
+})
+@EmbeddedKafka(partitions = 1,
+               topics = {"instructions.inbound", "instructions.outbound", "instructions.inbound.failed-dlt"},
+               brokerProperties = {"transaction.state.log.replication.factor=1", "transaction.state.log.min.isr=1"})
+@DirtiesContext
+class TransactionalListenerServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    @Test
+    void testPoll_PublishesTradesParksInvalidAndCommitsOffsetsTogether() throws Exception {
+        Map<String, Object> producerProperties = KafkaTestUtils.producerProps(broker);
+        producerProperties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProperties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        try (KafkaProducer<String, byte[]> producer = new KafkaProducer<>(producerProperties)) {
+            producer.send(new ProducerRecord<>("instructions.inbound", trade("1234567890", "ABC123")));
+            producer.send(new ProducerRecord<>("instructions.inbound", trade("1234567890", "INVALID")));
+            producer.send(new ProducerRecord<>("instructions.inbound", trade("5555554321", "XYZ789")));
+            producer.flush();
+        }
+
+        List<ConsumerRecord<String, byte[]>> outbound = readCommitted("instructions.outbound", 2);
+        assertEquals(List.of("****7890", "****4321"), outbound.stream().map(ConsumerRecord::key).toList());
+        assertEquals(1, readCommitted("instructions.inbound.failed-dlt", 1).size());
+        assertEquals(3, awaitCommittedOffset(3));
+    }
+
+    private List<ConsumerRecord<String, byte[]>> readCommitted(String topic, int count) {
+        Map<String, Object> properties = KafkaTestUtils.consumerProps("verifier-" + topic, "false", broker);
+        properties.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (KafkaConsumer<String, byte[]> consumer = new KafkaConsumer<>(properties,
+                new StringDeserializer(), new ByteArrayDeserializer())) {
+            consumer.subscribe(List.of(topic));
+            List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+            long deadline = System.nanoTime() + TIMEOUT.toNanos();
+            while (records.size() < count && System.nanoTime() < deadline) {
+                ConsumerRecords<String, byte[]> polled = consumer.poll(Duration.ofMillis(200));
+                polled.forEach(records::add);
+            }
+            return records;
+        }
+    }
+
+    private long awaitCommittedOffset(long expected) throws Exception {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        long committed = -1;
+        while (committed < expected && System.nanoTime() < deadline) {
+            OffsetAndMetadata offset = KafkaTestUtils.getCurrentOffset(broker.getBrokersAsString(), groupId,
+                "instructions.inbound", 0);
+            committed = offset == null ? -1 : offset.offset();
+            if (committed < expected) {
+                Thread.sleep(100);
+            }
+        }
+        return committed;
+    }
+
+    private static byte[] trade(String account, String security) {
+        return ("{\"account_number\":\"" + account + "\",\"security_id\":\"" + security + "\","
+            + "\"trade_type\":\"Buy\",\"amount\":100,\"timestamp\":\"2025-08-04T21:15:33\"}")
+            .getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.instructions.service;
+
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.TradeResult;
+import com.example.instructions.model.TradeResultPage;
+import com.example.instructions.model.UploadJob;
+import com.example.instructions.util.TradeFileReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UploadJobServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Mock
+    private TradeService tradeService;
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final List<String> processedAccounts = new CopyOnWriteArrayList<>();
+    private final CountDownLatch held = new CountDownLatch(1);
+    private ParallelIngestionEngine engine;
+    private UploadJobService service;
+
+    @BeforeEach
+    void setUp() {
+        engine = new ParallelIngestionEngine(tradeService, 3, 2);
+        when(tradeService.processTrades(anyList(), anyLong())).thenAnswer(invocation -> {
+            List<CanonicalTrade> trades = invocation.getArgument(0);
+            long firstIndex = invocation.getArgument(1);
+            List<TradeResult> results = new ArrayList<>();
+            for (CanonicalTrade trade : trades) {
+                processedAccounts.add(trade.getAccountNumber());
+                if (trade.getAccountNumber().equals("HOLD")) {
+                    held.await();
+                }
+                long index = firstIndex + results.size();
+                if (trade.getAccountNumber().equals("BAD")) {
+                    results.add(TradeResult.rejected(index, "Invalid account"));
+                } else if (trade.getAccountNumber().equals("UNSENT")) {
+                    results.add(TradeResult.failed(index, "T-UNSENT", "Publish failed: broker down"));
+                } else {
+                    results.add(TradeResult.accepted(index, "T-" + trade.getAccountNumber()));
+                }
+            }
+            return CompletableFuture.completedFuture(results);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void testSubmit_ProcessesFileAndPagesThroughResults() throws Exception {
+        service = newService();
+
+        UploadJob submitted = service.submit(
+            upload("trades.ndjson", "ACC0", "ACC1", "BAD", "ACC3", "UNSENT", "ACC5", "ACC6"), TradeFileReader.Format.NDJSON);
+        assertTrue(service.awaitFinished(submitted.getJobId(), TIMEOUT));
+
+        UploadJob job = service.getJob(submitted.getJobId());
+        assertEquals(UploadJob.Status.COMPLETED, job.getStatus());
+        assertEquals(7, job.getRowsParsed());
+        assertEquals(7, job.getRowsProcessed());
+        assertEquals(5, job.getAccepted());
+        assertEquals(1, job.getRejected());
+        assertEquals(1, job.getFailed());
+        assertEquals(5, job.getPublishedAcked());
+
+        List<TradeResult> results = new ArrayList<>();
+        String cursor = null;
+        do {
+            TradeResultPage page = service.getResults(submitted.getJobId(), cursor, 3);
+            results.addAll(page.getResults());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(7, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        assertEquals("T-ACC6", results.get(6).getTradeId());
+        assertEquals("Invalid account", results.get(2).getError());
+    }
+
+    @Test
+    void testResume_ContinuesFromCheckpoint() throws Exception {
+        // State left behind by a restart after four records were checkpointed and a fifth was written
+        Path jobDirectory = Files.createDirectories(directory.resolve("job-1"));
+        Files.write(jobDirectory.resolve("upload"), ndjson("ACC0", "ACC1", "ACC2", "ACC3", "ACC4", "ACC5", "ACC6"));
+        ByteArrayOutputStream results = new ByteArrayOutputStream();
+        for (int i = 0; i < 4; i++) {
+            results.write(objectMapper.writeValueAsBytes(TradeResult.accepted(i, "T-ACC" + i)));
+            results.write('\n');
+        }
+        int checkpointed = results.size();
+        results.write(objectMapper.writeValueAsBytes(TradeResult.accepted(4, "T-ACC4")));
+        results.write('\n');
+        Files.write(jobDirectory.resolve("results.ndjson"), results.toByteArray());
+
+        UploadJob checkpoint = new UploadJob("job-1", "trades.ndjson", "NDJSON", Instant.now());
+        checkpoint.setStatus(UploadJob.Status.RUNNING);
+        checkpoint.setRowsParsed(6);
+        checkpoint.setRowsProcessed(4);
+        checkpoint.setAccepted(4);
+        checkpoint.setPublishedAcked(4);
+        checkpoint.setResultsOffset(checkpointed);
+        Files.write(jobDirectory.resolve("job.json"), objectMapper.writeValueAsBytes(checkpoint));
+
+        service = newService();
+        assertEquals(UploadJob.Status.QUEUED, service.getJob("job-1").getStatus());
+        service.resumeInterruptedJobs();
+        assertTrue(service.awaitFinished("job-1", TIMEOUT));
+
+        assertEquals(List.of("ACC4", "ACC5", "ACC6"), processedAccounts.stream().sorted().toList());
+        UploadJob job = service.getJob("job-1");
+        assertEquals(UploadJob.Status.COMPLETED, job.getStatus());
+        assertEquals(7, job.getRowsProcessed());
+        assertEquals(7, job.getAccepted());
+
+        TradeResultPage page = service.getResults("job-1", null, 100);
+        assertEquals(7, page.getResults().size());
+        for (int i = 0; i < 7; i++) {
+            assertEquals(i, page.getResults().get(i).getIndex());
+            assertEquals("T-ACC" + i, page.getResults().get(i).getTradeId());
+        }
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testSubmit_RejectsJobsBeyondMaxQueued() throws Exception {
+        service = new UploadJobService(engine, new TradeFileReader(objectMapper), objectMapper,
+            Executors.defaultThreadFactory(), directory.toString(), 1, 1, Duration.ZERO, Duration.ofHours(1));
+
+        UploadJob running = service.submit(upload("running.ndjson", "HOLD"), TradeFileReader.Format.NDJSON);
+        while (!processedAccounts.contains("HOLD")) {
+            Thread.sleep(10);
+        }
+        UploadJob queued = service.submit(upload("queued.ndjson", "ACC0"), TradeFileReader.Format.NDJSON);
+
+        assertThrows(RejectedExecutionException.class, () -> service.submit(
+            upload("rejected.ndjson", "ACC1"), TradeFileReader.Format.NDJSON));
+
+        held.countDown();
+        assertTrue(service.awaitFinished(running.getJobId(), TIMEOUT));
+        assertTrue(service.awaitFinished(queued.getJobId(), TIMEOUT));
+        assertEquals(List.of("ACC0", "HOLD"), processedAccounts.stream().sorted().toList());
+    }
+
+    @Test
+    void testGetResults_RejectsInvalidCursor() throws Exception {
+        service = newService();
+        UploadJob submitted = service.submit(upload("trades.ndjson", "ACC0"), TradeFileReader.Format.NDJSON);
+        assertTrue(service.awaitFinished(submitted.getJobId(), TIMEOUT));
+
+        assertThrows(IllegalArgumentException.class, () -> service.getResults(submitted.getJobId(), "999999", 10));
+        assertThrows(IllegalArgumentException.class, () -> service.getResults(submitted.getJobId(), "abc", 10));
+        assertNull(service.getResults("unknown", null, 10));
+    }
+
+    private UploadJobService newService() throws Exception {
+        return new UploadJobService(engine, new TradeFileReader(objectMapper), objectMapper,
+            Executors.defaultThreadFactory(), directory.toString(), 1, 4, Duration.ZERO, Duration.ofHours(1));
+    }
+
+    private static MockMultipartFile upload(String filename, String... accounts) {
+        return new MockMultipartFile("file", filename, "application/x-ndjson", ndjson(accounts));
+    }
+
+    private static byte[] ndjson(String... accounts) {
+        StringBuilder content = new StringBuilder();
+        for (String account : accounts) {
+            content.append("{\"account_number\":\"").append(account).append("\",\"security_id\":\"ABC123\",")
+                .append("\"trade_type\":\"Buy\",\"amount\":100,\"timestamp\":\"2025-08-04T21:15:33\"}\n");
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
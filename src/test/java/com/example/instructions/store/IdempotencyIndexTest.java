@@ -0,0 +1,88 @@
+package com.example.instructions.store;
+
+import com.example.instructions.util.TradeFingerprint;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyIndexTest {
+
+    @Test
+    void testClaim_ReturnsOriginalIdForDuplicate() {
+        IdempotencyIndex index = new IdempotencyIndex(100);
+
+        assertNull(index.claim(TradeFingerprint.ofKey("order-1"), "t1"));
+        assertNull(index.claim(TradeFingerprint.ofKey("order-2"), "t2"));
+
+        assertEquals("t1", index.claim(TradeFingerprint.ofKey("order-1"), "t3"));
+        assertEquals(1, index.getDuplicateCount());
+    }
+
+    @Test
+    void testRelease_AllowsClaimAgain() {
+        IdempotencyIndex index = new IdempotencyIndex(100);
+        index.claim(TradeFingerprint.ofKey("order-1"), "t1");
+
+        index.release(TradeFingerprint.ofKey("order-1"), "t1");
+
+        assertNull(index.claim(TradeFingerprint.ofKey("order-1"), "t2"));
+        assertEquals("t2", index.claim(TradeFingerprint.ofKey("order-1"), "t3"));
+    }
+
+    @Test
+    void testWindow_ForgetsFingerprintsAfterTwoGenerations() {
+        IdempotencyIndex index = new IdempotencyIndex(10);
+        index.claim(TradeFingerprint.ofKey("first"), "t0");
+
+        // Still remembered while its generation is the previous one
+        for (int i = 1; i < 15; i++) {
+            assertNull(index.claim(TradeFingerprint.ofKey("key-" + i), "t" + i));
+        }
+        assertEquals("t0", index.claim(TradeFingerprint.ofKey("first"), "again"));
+
+        for (int i = 15; i < 30; i++) {
+            index.claim(TradeFingerprint.ofKey("key-" + i), "t" + i);
+        }
+        assertNull(index.claim(TradeFingerprint.ofKey("first"), "later"));
+    }
+
+    @Test
+    void testClaim_ConcurrentClaimsHaveOneWinner() throws Exception {
+        IdempotencyIndex index = new IdempotencyIndex(10_000);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        Set<String> winners = ConcurrentHashMap.newKeySet();
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            String candidate = "thread-" + t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    String original = index.claim(TradeFingerprint.ofKey("key-" + i), candidate + "-" + i);
+                    winners.add(original != null ? original : candidate + "-" + i);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Every thread agrees on a single owner per key
+        assertEquals(1000, winners.size());
+        assertEquals(1000L * (threads - 1), index.getDuplicateCount());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.instructions.store;
+
+import com.example.instructions.model.CanonicalTrade;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryTradeStoreTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void testGet_CountsHitsAndMisses() {
+        InMemoryTradeStore store = new InMemoryTradeStore(10, Long.MAX_VALUE, null, clock);
+        store.put("t1", trade());
+
+        assertNotNull(store.get("t1"));
+        assertNull(store.get("t2"));
+
+        TradeStoreStats stats = store.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    void testPut_EvictsOldestBeyondMaxEntries() {
+        InMemoryTradeStore store = new InMemoryTradeStore(2, Long.MAX_VALUE, null, clock);
+        store.put("t1", trade());
+        store.put("t2", trade());
+        store.put("t3", trade());
+
+        assertEquals(2, store.size());
+        assertNull(store.get("t1"));
+        assertNotNull(store.get("t3"));
+        assertEquals(1, store.getStats().getEvictions());
+    }
+
+    @Test
+    void testPut_EvictsBeyondMaxBytes() {
+        InMemoryTradeStore store = new InMemoryTradeStore(100, 1000, null, clock);
+        for (int i = 0; i < 10; i++) {
+            store.put("t" + i, trade());
+        }
+
+        assertTrue(store.getStats().getEstimatedBytes() <= 1000);
+        assertTrue(store.size() < 10);
+        assertNotNull(store.get("t9"));
+    }
+
+    @Test
+    void testGet_ExpiresAfterTtl() {
+        InMemoryTradeStore store = new InMemoryTradeStore(10, Long.MAX_VALUE, Duration.ofMinutes(5), clock);
+        store.put("t1", trade());
+
+        clock.advance(Duration.ofMinutes(4));
+        assertNotNull(store.get("t1"));
+        assertEquals(1, store.size());
+
+        clock.advance(Duration.ofMinutes(1));
+        assertNull(store.get("t1"));
+        assertEquals(0, store.size());
+        assertEquals(1, store.getStats().getExpirations());
+    }
+
+    @Test
+    void testClear() {
+        InMemoryTradeStore store = new InMemoryTradeStore();
+        store.put("t1", trade());
+
+        store.clear();
+
+        assertEquals(0, store.size());
+        assertEquals(0, store.getStats().getEstimatedBytes());
+    }
+
+    private static CanonicalTrade trade() {
+        return new CanonicalTrade("****7890", "ABC123", "B",
+            BigDecimal.valueOf(100000), LocalDateTime.of(2025, 8, 4, 21, 15, 33));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-08-04T21:15:33Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.instructions.store;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.StoredTrade;
+import com.example.instructions.model.TradePage;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedTradeStoreTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 8, 4, 12, 0, 0);
+
+    @Test
+    void testQuery_PagesBySecurityInTimestampOrder() {
+        IndexedTradeStore store = new IndexedTradeStore(new InMemoryTradeStore());
+        store.put("t3", trade("****7890", "AAPL", NOON.plusMinutes(3)));
+        store.put("t1", trade("****7890", "AAPL", NOON.plusMinutes(1)));
+        store.put("t2", trade("****1111", "MSFT", NOON.plusMinutes(2)));
+        store.put("t4", trade("****1111", "AAPL", NOON.plusMinutes(4)));
+
+        TradePage first = store.query("AAPL", null, null, null, null, 2);
+        assertEquals(List.of("t1", "t3"), ids(first));
+        assertNotNull(first.getNextCursor());
+
+        TradePage second = store.query("AAPL", null, null, null, first.getNextCursor(), 2);
+        assertEquals(List.of("t4"), ids(second));
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testQuery_IsNotCountedInStoreStats() {
+        IndexedTradeStore store = new IndexedTradeStore(new InMemoryTradeStore());
+        store.put("t1", trade("****7890", "AAPL", NOON));
+        store.put("t2", trade("****7890", "AAPL", NOON.plusMinutes(1)));
+
+        assertEquals(2, store.query("AAPL", null, null, null, null, 10).getTrades().size());
+
+        assertEquals(0, store.getStats().getHits());
+        assertEquals(0, store.getStats().getMisses());
+    }
+
+    @Test
+    void testQuery_FiltersByAccountAndTimestampRange() {
+        IndexedTradeStore store = new IndexedTradeStore(new InMemoryTradeStore());
+        store.put("t1", trade("****7890", "AAPL", NOON));
+        store.put("t2", trade("****7890", "MSFT", NOON.plusMinutes(5)));
+        store.put("t3", trade("****7890", "AAPL", NOON.plusMinutes(10)));
+        store.put("t4", trade("****1111", "AAPL", NOON.plusMinutes(5)));
+
+        assertEquals(List.of("t2", "t4"), ids(store.query(null, null, NOON.plusMinutes(1), NOON.plusMinutes(10), null, 10)));
+        assertEquals(List.of("t1", "t2"), ids(store.query(null, "****7890", null, NOON.plusMinutes(10), null, 10)));
+        assertEquals(List.of("t1", "t3"), ids(store.query("AAPL", "****7890", null, null, null, 10)));
+        assertTrue(store.query("IBM", null, null, null, null, 10).getTrades().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> store.query(null, null, null, null, "not a cursor", 10));
+    }
+
+    @Test
+    void testPut_EvictionRemovesTradeFromIndexes() {
+        IndexedTradeStore store = new IndexedTradeStore(
+            new InMemoryTradeStore(2, Long.MAX_VALUE, null, Clock.systemUTC()));
+        store.put("t1", trade("****7890", "AAPL", NOON));
+        store.put("t2", trade("****7890", "AAPL", NOON.plusMinutes(1)));
+        store.put("t3", trade("****7890", "AAPL", NOON.plusMinutes(2)));
+
+        assertEquals(List.of("t2", "t3"), ids(store.query("AAPL", null, null, null, null, 10)));
+        assertEquals(List.of("t2", "t3"), ids(store.query(null, null, null, null, null, 10)));
+    }
+
+    private static List<String> ids(TradePage page) {
+        return page.getTrades().stream().map(StoredTrade::getTradeId).collect(Collectors.toList());
+    }
+
+    private static CanonicalTrade trade(String account, String security, LocalDateTime timestamp) {
+        return new CanonicalTrade(account, security, "B", new BigDecimal("100"), timestamp);
+    }
+}
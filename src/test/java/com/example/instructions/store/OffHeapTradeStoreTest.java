@@ -0,0 +1,127 @@
+package com.example.instructions.store;
+
+import com.example.instructions.model.CanonicalTrade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapTradeStoreTest {
+
+    private InMemoryTradeStore overflow;
+    private OffHeapTradeStore store;
+
+    @BeforeEach
+    void setUp() {
+        overflow = new InMemoryTradeStore();
+        store = new OffHeapTradeStore(4, null, Clock.systemUTC(), overflow);
+    }
+
+    @Test
+    void testPutAndGet_RoundTripsCompactRecord() {
+        String tradeId = UUID.randomUUID().toString();
+        CanonicalTrade trade = new CanonicalTrade("****7890", "ABC123", "S",
+            new BigDecimal("1234.56"), LocalDateTime.of(2025, 8, 4, 21, 15, 33));
+
+        store.put(tradeId, trade);
+        CanonicalTrade decoded = store.get(tradeId);
+
+        assertEquals("****7890", decoded.getAccountNumber());
+        assertEquals("ABC123", decoded.getSecurityId());
+        assertEquals("S", decoded.getTradeType());
+        assertEquals(new BigDecimal("1234.56"), decoded.getAmount());
+        assertEquals(LocalDateTime.of(2025, 8, 4, 21, 15, 33), decoded.getTimestamp());
+        assertEquals(0, overflow.size());
+    }
+
+    @Test
+    void testPut_ShortMaskedAccount() {
+        String tradeId = UUID.randomUUID().toString();
+        store.put(tradeId, new CanonicalTrade("****", "ABC123", "B",
+            BigDecimal.TEN, LocalDateTime.of(2025, 8, 4, 21, 15, 33)));
+
+        assertEquals("****", store.get(tradeId).getAccountNumber());
+    }
+
+    @Test
+    void testPut_NonCompactTradeGoesToOverflow() {
+        String tradeId = UUID.randomUUID().toString();
+        CanonicalTrade trade = new CanonicalTrade("****7890", "ABC123", "SHORT",
+            BigDecimal.TEN, LocalDateTime.of(2025, 8, 4, 21, 15, 33));
+
+        store.put(tradeId, trade);
+
+        assertEquals(1, overflow.size());
+        assertEquals("SHORT", store.get(tradeId).getTradeType());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testPut_OverwritesOldestWhenFull() {
+        List<String> tradeIds = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            String tradeId = UUID.randomUUID().toString();
+            tradeIds.add(tradeId);
+            store.put(tradeId, new CanonicalTrade("****7890", "ABC123", "B",
+                BigDecimal.valueOf(i), LocalDateTime.of(2025, 8, 4, 21, 15, 33)));
+        }
+
+        assertEquals(4, store.size());
+        assertNull(store.get(tradeIds.get(0)));
+        assertNull(store.get(tradeIds.get(1)));
+        for (int i = 2; i < 6; i++) {
+            assertEquals(BigDecimal.valueOf(i), store.get(tradeIds.get(i)).getAmount());
+        }
+        assertEquals(2, store.getStats().getEvictions());
+    }
+
+    @Test
+    void testPut_KeepsIndexConsistentUnderChurn() {
+        OffHeapTradeStore churned = new OffHeapTradeStore(100, null, Clock.systemUTC(), overflow);
+        List<String> tradeIds = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String tradeId = UUID.randomUUID().toString();
+            tradeIds.add(tradeId);
+            churned.put(tradeId, new CanonicalTrade("****7890", "ABC123", "B",
+                BigDecimal.valueOf(i), LocalDateTime.of(2025, 8, 4, 21, 15, 33)));
+        }
+
+        assertEquals(100, churned.size());
+        for (int i = 0; i < 1000; i++) {
+            CanonicalTrade trade = churned.get(tradeIds.get(i));
+            if (i < 900) {
+                assertNull(trade);
+            } else {
+                assertEquals(BigDecimal.valueOf(i), trade.getAmount());
+            }
+        }
+    }
+
+    @Test
+    void testGetStats_CountsIndexInEstimatedBytes() {
+        OffHeapTradeStore empty = new OffHeapTradeStore(700, null, Clock.systemUTC(), overflow);
+
+        // 1000 buckets of four bytes for 700 records
+        assertEquals(4000, empty.getStats().getEstimatedBytes());
+        assertEquals(1000, OffHeapTradeStore.capacityFor(62_000));
+    }
+
+    @Test
+    void testClear() {
+        String tradeId = UUID.randomUUID().toString();
+        store.put(tradeId, new CanonicalTrade("****7890", "ABC123", "B",
+            BigDecimal.TEN, LocalDateTime.of(2025, 8, 4, 21, 15, 33)));
+
+        store.clear();
+
+        assertEquals(0, store.size());
+        assertNull(store.get(tradeId));
+    }
+}
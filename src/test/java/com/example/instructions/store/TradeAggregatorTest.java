@@ -0,0 +1,95 @@
+package com.example.instructions.store;
+
+import com.example.instructions.model.CanonicalTrade;
+import com.example.instructions.model.PositionSnapshot;
+import com.example.instructions.model.VolumeBucket;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeAggregatorTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2025, 8, 4, 12, 0, 0);
+
+    @Test
+    void testRecord_NetsBuysAgainstSellsPerAccountAndSecurity() {
+        TradeAggregator aggregator = new TradeAggregator();
+
+        aggregator.record(trade("****7890", "AAPL", "B", "100.50", NOON));
+        aggregator.record(trade("****7890", "MSFT", "S", "40.25", NOON));
+        aggregator.record(trade("****1111", "AAPL", "S", "0.25", NOON));
+
+        PositionSnapshot account = aggregator.getAccountPosition("****7890");
+        assertEquals(1, account.getBuyCount());
+        assertEquals(1, account.getSellCount());
+        assertEquals(0, new BigDecimal("60.25").compareTo(account.getNetAmount()));
+
+        PositionSnapshot security = aggregator.getSecurityPosition("AAPL");
+        assertEquals(2, security.getTradeCount());
+        assertEquals(0, new BigDecimal("100.25").compareTo(security.getNetAmount()));
+
+        assertNull(aggregator.getSecurityPosition("IBM"));
+        assertEquals(2, aggregator.getAccountPositions().size());
+    }
+
+    @Test
+    void testGetVolumes_BucketsBySideAndDropsTradesOutsideRetention() {
+        TradeAggregator aggregator = new TradeAggregator(Duration.ofMinutes(1), Duration.ofMinutes(10));
+
+        aggregator.record(trade("****7890", "AAPL", "B", "10", NOON));
+        aggregator.record(trade("****7890", "AAPL", "S", "4", NOON.plusSeconds(30)));
+        aggregator.record(trade("****7890", "AAPL", "B", "5", NOON.plusMinutes(2)));
+        // Ten minutes later reuses the ring slot of NOON
+        aggregator.record(trade("****7890", "AAPL", "B", "1", NOON.plusMinutes(10)));
+        aggregator.record(trade("****7890", "AAPL", "B", "1", NOON));
+
+        List<VolumeBucket> volumes = aggregator.getVolumes(NOON, NOON.plusMinutes(11));
+
+        assertEquals(2, volumes.size());
+        assertEquals(NOON.plusMinutes(2), volumes.get(0).getStart());
+        assertEquals(NOON.plusMinutes(10), volumes.get(1).getStart());
+        assertEquals(1, aggregator.getOutsideRetentionCount());
+        // Positions still count every trade
+        assertEquals(5, aggregator.getSecurityPosition("AAPL").getTradeCount());
+    }
+
+    @Test
+    void testRecord_SkipsTradesThatCannotBeAggregated() {
+        TradeAggregator aggregator = new TradeAggregator();
+
+        aggregator.record(trade("****7890", "AAPL", "B", "1e15", NOON));
+        aggregator.record(new CanonicalTrade("****7890", "AAPL", "B", null, NOON));
+        aggregator.record(trade("****7890", "AAPL", "B", "10", NOON));
+
+        assertEquals(2, aggregator.getSkippedCount());
+        assertEquals(1, aggregator.getSecurityPosition("AAPL").getTradeCount());
+        assertEquals(0, new BigDecimal("10").compareTo(aggregator.getSecurityPosition("AAPL").getNetAmount()));
+    }
+
+    @Test
+    void testRecord_SkipsTradesWithUnknownSide() {
+        TradeAggregator aggregator = new TradeAggregator();
+
+        aggregator.record(trade("****7890", "AAPL", "B", "10", NOON));
+        // The transformer passes unknown trade types through in upper case
+        aggregator.record(trade("****7890", "AAPL", "SHORT", "4", NOON));
+        aggregator.record(trade("****7890", "AAPL", "X", "4", NOON));
+
+        assertEquals(2, aggregator.getSkippedCount());
+        PositionSnapshot security = aggregator.getSecurityPosition("AAPL");
+        assertEquals(1, security.getTradeCount());
+        assertEquals(0, security.getSellCount());
+        assertEquals(0, new BigDecimal("10").compareTo(security.getNetAmount()));
+        assertEquals(0, aggregator.getVolumes(NOON, NOON.plusMinutes(1)).get(0).getSellCount());
+    }
+
+    private static CanonicalTrade trade(String account, String security, String side, String amount,
+                                        LocalDateTime timestamp) {
+        return new CanonicalTrade(account, security, side, new BigDecimal(amount), timestamp);
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.instructions.store;
+
+import com.example.instructions.model.CanonicalTrade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAppendAndRead() throws Exception {
+        try (TradeJournal journal = open(1024 * 1024)) {
+            journal.append("t1", trade("1234.50")).join();
+
+            CanonicalTrade read = journal.read("t1");
+
+            assertEquals("****7890", read.getAccountNumber());
+            assertEquals("ABC123", read.getSecurityId());
+            assertEquals("B", read.getTradeType());
+            assertEquals(new BigDecimal("1234.50"), read.getAmount());
+            assertEquals(LocalDateTime.of(2025, 8, 4, 21, 15, 33), read.getTimestamp());
+            assertNull(journal.read("t2"));
+        }
+    }
+
+    @Test
+    void testReplay_RebuildsIndexAcrossSegments() throws Exception {
+        try (TradeJournal journal = open(256)) {
+            for (int i = 0; i < 20; i++) {
+                journal.append("t" + i, trade(String.valueOf(i))).join();
+            }
+        }
+        assertTrue(segmentCount() > 1);
+
+        try (TradeJournal journal = open(256)) {
+            assertEquals(20, journal.size());
+            assertEquals(new BigDecimal("7"), journal.read("t7").getAmount());
+            assertEquals(new BigDecimal("19"), journal.read("t19").getAmount());
+        }
+    }
+
+    @Test
+    void testReplay_TruncatesTornTail() throws Exception {
+        try (TradeJournal journal = open(1024 * 1024)) {
+            journal.append("t1", trade("1")).join();
+            journal.append("t2", trade("2")).join();
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (TradeJournal journal = open(1024 * 1024)) {
+            assertEquals(1, journal.size());
+            assertNotNull(journal.read("t1"));
+            assertNull(journal.read("t2"));
+
+            journal.append("t3", trade("3")).join();
+            assertNotNull(journal.read("t3"));
+        }
+    }
+
+    @Test
+    void testRoll_DropsIndexOfDeletedSegments() throws Exception {
+        try (TradeJournal journal = open(256, 2)) {
+            for (int i = 0; i < 20; i++) {
+                journal.append("t" + i, trade(String.valueOf(i))).join();
+            }
+
+            assertEquals(2, segmentCount());
+            assertTrue(journal.size() < 20);
+            assertNull(journal.read("t0"));
+            assertEquals(new BigDecimal("19"), journal.read("t19").getAmount());
+        }
+    }
+
+    @Test
+    void testReplay_IgnoresFilesThatAreNotSegments() throws Exception {
+        try (TradeJournal journal = open(1024 * 1024)) {
+            journal.append("t1", trade("1")).join();
+        }
+        Files.write(directory.resolve("trades-copy.journal"), new byte[] {1, 2, 3});
+
+        try (TradeJournal journal = open(1024 * 1024)) {
+            assertEquals(1, journal.size());
+            assertNotNull(journal.read("t1"));
+        }
+    }
+
+    @Test
+    void testRead_ReturnsLatestRecordOfARepeatedId() throws Exception {
+        try (TradeJournal journal = open(1024 * 1024)) {
+            journal.append("t1", trade("1")).join();
+            journal.append("t1", trade("2")).join();
+            // "Aa" and "BB" share a hash code, so only the ID on disk tells them apart
+            journal.append("Aa", trade("3")).join();
+            journal.append("BB", trade("4")).join();
+
+            assertEquals(new BigDecimal("2"), journal.read("t1").getAmount());
+            assertEquals(new BigDecimal("3"), journal.read("Aa").getAmount());
+            assertEquals(new BigDecimal("4"), journal.read("BB").getAmount());
+            assertNull(journal.read("C#"));
+        }
+    }
+
+    @Test
+    void testAppend_RejectedAfterClose() throws Exception {
+        TradeJournal journal = open(1024 * 1024);
+        journal.close();
+
+        CompletionException e = assertThrows(CompletionException.class,
+            () -> journal.append("t1", trade("1")).join());
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    private TradeJournal open(long segmentBytes) throws IOException {
+        return open(segmentBytes, 0);
+    }
+
+    private TradeJournal open(long segmentBytes, int maxSegments) throws IOException {
+        return new TradeJournal(directory, segmentBytes, maxSegments, TradeJournal.FsyncPolicy.ALWAYS,
+            Duration.ofMillis(10), 64);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static CanonicalTrade trade(String amount) {
+        return new CanonicalTrade("****7890", "ABC123", "B",
+            new BigDecimal(amount), LocalDateTime.of(2025, 8, 4, 21, 15, 33));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.instructions.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void testAcquire_RejectsCallersBeyondTheLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, Duration.ZERO);
+
+        limiter.acquire();
+        limiter.acquire();
+
+        ConcurrencyLimiter.LimitExceededException e =
+            assertThrows(ConcurrencyLimiter.LimitExceededException.class, limiter::acquire);
+        assertEquals("More than 2 concurrent requests", e.getMessage());
+
+        limiter.release();
+        limiter.acquire();
+    }
+
+    @Test
+    void testExecute_ReleasesPermitWhenActionFails() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, Duration.ZERO);
+
+        assertThrows(IllegalStateException.class, () -> limiter.execute(() -> {
+            throw new IllegalStateException("broker down");
+        }));
+
+        assertEquals("published", limiter.execute(() -> "published"));
+    }
+
+    @Test
+    void testExecute_WaitsForAPermitUpToTheTimeout() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, Duration.ofSeconds(5));
+        limiter.acquire();
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            limiter.release();
+        });
+        releaser.start();
+
+        assertEquals("published", limiter.execute(() -> "published"));
+        releaser.join();
+    }
+}
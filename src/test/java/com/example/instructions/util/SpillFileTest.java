@@ -0,0 +1,100 @@
+package com.example.instructions.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testDrain_ReturnsPayloadsInOrderWithAttempts() throws Exception {
+        try (SpillFile spill = new SpillFile(directory.resolve("outbound.spill"))) {
+            spill.append(bytes("first"), 1);
+            spill.append(bytes("second"), 3);
+            assertEquals(2, spill.getPendingCount());
+
+            List<String> drained = new ArrayList<>();
+            int count = spill.drain((payload, attempts) ->
+                drained.add(new String(payload, StandardCharsets.UTF_8) + ":" + attempts));
+
+            assertEquals(2, count);
+            assertEquals(List.of("first:1", "second:3"), drained);
+            assertEquals(0, spill.getPendingCount());
+            assertEquals(0, spill.drain((payload, attempts) -> fail("nothing left to drain")));
+        }
+    }
+
+    @Test
+    void testDrain_ReturnsRecordKeys() throws Exception {
+        try (SpillFile spill = new SpillFile(directory.resolve("outbound.spill"))) {
+            spill.append("****7890", bytes("keyed"), 2);
+            spill.append(bytes("unkeyed"), 1);
+
+            List<String> drained = new ArrayList<>();
+            spill.drain((String key, byte[] payload, int attempts) -> {
+                drained.add(key + ":" + new String(payload, StandardCharsets.UTF_8) + ":" + attempts);
+                return CompletableFuture.completedFuture(null);
+            });
+
+            assertEquals(List.of("****7890:keyed:2", "null:unkeyed:1"), drained);
+        }
+    }
+
+    @Test
+    void testReopen_KeepsPendingPayloadsAndIgnoresTornTail() throws Exception {
+        Path path = directory.resolve("outbound.spill");
+        try (SpillFile spill = new SpillFile(path)) {
+            spill.append(bytes("kept"), 1);
+            spill.append(bytes("torn"), 1);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 2);
+        }
+
+        try (SpillFile spill = new SpillFile(path)) {
+            assertEquals(1, spill.getPendingCount());
+
+            List<String> drained = new ArrayList<>();
+            spill.drain((payload, attempts) -> drained.add(new String(payload, StandardCharsets.UTF_8)));
+
+            assertEquals(List.of("kept"), drained);
+        }
+    }
+
+    @Test
+    void testDrain_KeepsFileUntilEveryRedeliveryCompletes() throws Exception {
+        try (SpillFile spill = new SpillFile(directory.resolve("outbound.spill"))) {
+            spill.append(bytes("first"), 1);
+            spill.append(bytes("second"), 1);
+
+            CompletableFuture<Void> unacked = new CompletableFuture<>();
+            unacked.completeExceptionally(new IllegalStateException("broker down"));
+            assertEquals(2, spill.drain((String key, byte[] payload, int attempts) ->
+                payload[0] == 's' ? unacked : CompletableFuture.completedFuture(null)));
+            assertEquals(2, spill.getPendingCount());
+
+            List<String> drained = new ArrayList<>();
+            spill.drain((payload, attempts) -> drained.add(new String(payload, StandardCharsets.UTF_8)));
+
+            assertEquals(List.of("first", "second"), drained);
+            assertEquals(0, spill.getPendingCount());
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
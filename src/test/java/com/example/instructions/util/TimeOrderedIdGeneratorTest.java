@@ -0,0 +1,89 @@
+package com.example.instructions.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedIdGeneratorTest {
+
+    private static final long NOW = 1_754_341_533_000L;
+
+    @Test
+    void testNextUuid_IsVersion7WithTimestampAndNode() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(0xBEEF, () -> NOW);
+
+        UUID id = generator.nextUuid();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(NOW, TimeOrderedIdGenerator.timestampOf(id));
+        assertEquals(0xBEEF, (int) (id.getLeastSignificantBits() >>> 46) & 0xFFFF);
+    }
+
+    @Test
+    void testNextId_IncreasesWhenClockStallsOrStepsBack() {
+        AtomicLong clock = new AtomicLong(NOW);
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(1, clock::get);
+
+        String previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                clock.addAndGet(-1_000);
+            }
+            String id = generator.nextId();
+            assertTrue(id.compareTo(previous) > 0, id + " after " + previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void testNextId_UniqueAndOrderedPerThreadUnderContention() throws Exception {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    List<String> ids = new ArrayList<>();
+                    for (int i = 0; i < 20_000; i++) {
+                        ids.add(generator.nextId());
+                    }
+                    return ids;
+                }));
+            }
+
+            Set<String> all = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                List<String> ids = future.get();
+                for (int i = 1; i < ids.size(); i++) {
+                    assertTrue(ids.get(i).compareTo(ids.get(i - 1)) > 0);
+                }
+                all.addAll(ids);
+            }
+            assertEquals(80_000, all.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testBinaryForm_RoundTripsNewAndExistingIds() {
+        String timeOrdered = new TimeOrderedIdGenerator().nextId();
+        String random = UUID.randomUUID().toString();
+
+        assertEquals(16, TradeIdGenerator.toBytes(timeOrdered).length);
+        assertEquals(timeOrdered, TradeIdGenerator.fromBytes(TradeIdGenerator.toBytes(timeOrdered)));
+        assertEquals(random, TradeIdGenerator.fromBytes(TradeIdGenerator.toBytes(random)));
+        assertThrows(IllegalArgumentException.class, () -> TradeIdGenerator.toBytes("not-an-id"));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.instructions.util;
+
+import com.example.instructions.config.JacksonConfig;
+import com.example.instructions.model.CanonicalTrade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradeFileReaderTest {
+
+    private TradeFileReader reader;
+
+    @BeforeEach
+    void setUp() {
+        reader = new TradeFileReader(new JacksonConfig().objectMapper());
+    }
+
+    @Test
+    void testFromFilename() {
+        assertEquals(TradeFileReader.Format.CSV, TradeFileReader.Format.fromFilename("trades.CSV"));
+        assertEquals(TradeFileReader.Format.JSON, TradeFileReader.Format.fromFilename("trades.json"));
+        assertEquals(TradeFileReader.Format.NDJSON, TradeFileReader.Format.fromFilename("trades.ndjson"));
+        assertNull(TradeFileReader.Format.fromFilename("trades.xml"));
+    }
+
+    @Test
+    void testRead_Csv() throws Exception {
+        String csv = "account_number,security_id,trade_type,amount,timestamp\n" +
+            "1234567890,ABC123,Buy,100000,2025-08-04T21:15:33\n" +
+            "9876543210,XYZ789,Sell,50000,2025-08-04T21:16:00\n";
+
+        List<CanonicalTrade> trades = readAll(csv, TradeFileReader.Format.CSV);
+
+        assertEquals(2, trades.size());
+        assertEquals("1234567890", trades.get(0).getAccountNumber());
+        assertEquals(new BigDecimal("50000"), trades.get(1).getAmount());
+        assertEquals(LocalDateTime.of(2025, 8, 4, 21, 16, 0), trades.get(1).getTimestamp());
+    }
+
+    @Test
+    void testRead_CsvReorderedQuotedColumns() throws Exception {
+        String csv = "\uFEFFtimestamp,amount,\"trade_type\",security_id,account_number\r\n" +
+            "2025-08-04T21:15:33,1234.5600,Buy,\"ABC,123\",\"12\"\"34\"\r\n" +
+            "\r\n" +
+            "2025-08-04T21:16:00,-0.5,Sell,XYZ789,9876543210";
+
+        List<CanonicalTrade> trades = readAll(csv, TradeFileReader.Format.CSV);
+
+        assertEquals(2, trades.size());
+        assertEquals("12\"34", trades.get(0).getAccountNumber());
+        assertEquals("ABC,123", trades.get(0).getSecurityId());
+        assertEquals(new BigDecimal("1234.5600"), trades.get(0).getAmount());
+        assertEquals(new BigDecimal("-0.5"), trades.get(1).getAmount());
+        assertEquals(LocalDateTime.of(2025, 8, 4, 21, 15, 33), trades.get(0).getTimestamp());
+    }
+
+    @Test
+    void testRead_CsvLargeAmountAndMissingColumn() throws Exception {
+        String csv = "account_number,amount,timestamp\n" +
+            "1234567890,12345678901234567890.125,2025-08-04T21:15:33\n" +
+            "1234567890,1e3,\n";
+
+        List<CanonicalTrade> trades = readAll(csv, TradeFileReader.Format.CSV);
+
+        assertEquals(new BigDecimal("12345678901234567890.125"), trades.get(0).getAmount());
+        assertNull(trades.get(0).getSecurityId());
+        assertEquals(new BigDecimal("1e3"), trades.get(1).getAmount());
+        assertNull(trades.get(1).getTimestamp());
+    }
+
+    @Test
+    void testRead_CsvInvalidRecord() throws Exception {
+        String csv = "account_number,security_id,trade_type,amount,timestamp\n" +
+            "1234567890,ABC123,Buy,100000,2025-08-04T21:15:33\n" +
+            "1234567890,ABC123,Buy,100000,2025-13-04T21:15:33\n";
+
+        try (TradeIterator iterator = reader.read(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), TradeFileReader.Format.CSV)) {
+            assertNotNull(iterator.next());
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, iterator::next);
+            assertTrue(e.getMessage().contains("line 3"));
+        }
+    }
+
+    @Test
+    void testRead_CsvUnknownHeaderBindsGenerically() throws Exception {
+        String csv = "account_number,security_id,trade_type,amount,timestamp,comment\n" +
+            "1234567890,ABC123,Buy,100000,2025-08-04T21:15:33,first\n";
+
+        // The generic binding rejects the column CanonicalTrade does not have
+        Exception e = assertThrows(Exception.class, () -> readAll(csv, TradeFileReader.Format.CSV));
+        assertTrue(e.getMessage().contains("comment"));
+    }
+
+    @Test
+    void testRead_CsvAcrossBufferRefills() throws Exception {
+        StringBuilder csv = new StringBuilder("account_number,security_id,trade_type,amount,timestamp\n");
+        for (int i = 0; i < 10_000; i++) {
+            csv.append(i).append(",SEC").append(i).append(",Buy,").append(i).append(".25,2025-08-04T21:15:33\n");
+        }
+
+        List<CanonicalTrade> trades = readAll(csv.toString(), TradeFileReader.Format.CSV);
+
+        assertEquals(10_000, trades.size());
+        assertEquals("SEC9999", trades.get(9_999).getSecurityId());
+        assertEquals(new BigDecimal("9999.25"), trades.get(9_999).getAmount());
+    }
+
+    @Test
+    void testRead_JsonArray() throws Exception {
+        String json = "[{\"account_number\":\"1234567890\",\"security_id\":\"ABC123\",\"trade_type\":\"Buy\"," +
+            "\"amount\":100000,\"timestamp\":\"2025-08-04T21:15:33\"}," +
+            "{\"account_number\":\"9876543210\",\"security_id\":\"XYZ789\",\"trade_type\":\"Sell\"," +
+            "\"amount\":50000,\"timestamp\":\"2025-08-04T21:16:00\"}]";
+
+        List<CanonicalTrade> trades = readAll(json, TradeFileReader.Format.JSON);
+
+        assertEquals(2, trades.size());
+        assertEquals("XYZ789", trades.get(1).getSecurityId());
+    }
+
+    @Test
+    void testRead_Ndjson() throws Exception {
+        String ndjson = "{\"account_number\":\"1234567890\",\"security_id\":\"ABC123\",\"trade_type\":\"Buy\"," +
+            "\"amount\":100000,\"timestamp\":\"2025-08-04T21:15:33\"}\n" +
+            "{\"account_number\":\"9876543210\",\"security_id\":\"XYZ789\",\"trade_type\":\"Sell\"," +
+            "\"amount\":50000,\"timestamp\":\"2025-08-04T21:16:00\"}\n";
+
+        List<CanonicalTrade> trades = readAll(ndjson, TradeFileReader.Format.NDJSON);
+
+        assertEquals(2, trades.size());
+        assertEquals("Sell", trades.get(1).getTradeType());
+    }
+
+    private List<CanonicalTrade> readAll(String content, TradeFileReader.Format format) throws Exception {
+        InputStream in = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        List<CanonicalTrade> trades = new ArrayList<>();
+        try (TradeIterator iterator = reader.read(in, format)) {
+            iterator.forEachRemaining(trades::add);
+        }
+        return trades;
+    }
+}
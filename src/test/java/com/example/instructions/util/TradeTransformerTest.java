@@ -45,6 +45,12 @@ class TradeTransformerTest {
         assertEquals("ABC123", normalized.getSecurityId());
     }
 
+    @Test
+    void testNormalizeSecurityId_MatchesStoredSecurityIds() {
+        assertEquals("AAPL12", transformer.normalizeSecurityId(" aapl12 "));
+        assertThrows(IllegalArgumentException.class, () -> transformer.normalizeSecurityId("aapl"));
+    }
+
     @Test
     void testNormalize_NormalizesTradeType() {
         CanonicalTrade trade = new CanonicalTrade(
@@ -84,4 +90,89 @@ class TradeTransformerTest {
 
         assertThrows(IllegalArgumentException.class, () -> transformer.normalize(trade));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testNormalize_TrimsAndUppercasesSecurityId() {
+        CanonicalTrade trade = new CanonicalTrade(
+            "1234567890", "  abC123 ", "Buy", 
+            BigDecimal.valueOf(100000), LocalDateTime.now()
+        );
+
+        assertEquals("ABC123", transformer.normalize(trade).getSecurityId());
+    }
+
+    @Test
+    void testNormalize_ShortOrMaskedAccountNumber() {
+        CanonicalTrade shortAccount = new CanonicalTrade(
+            "1234", "ABC123", "Buy", 
+            BigDecimal.valueOf(100000), LocalDateTime.now()
+        );
+        CanonicalTrade masked = new CanonicalTrade(
+            "****7890", "ABC123", "Buy", 
+            BigDecimal.valueOf(100000), LocalDateTime.now()
+        );
+
+        assertEquals("****", transformer.normalize(shortAccount).getAccountNumber());
+        assertEquals("****7890", transformer.normalize(masked).getAccountNumber());
+    }
+
+    @Test
+    void testNormalize_TradeTypeVariants() {
+        assertEquals("S", normalizeTradeType(" SELL "));
+        assertEquals("B", normalizeTradeType("b"));
+        assertEquals("S", normalizeTradeType("S"));
+        assertEquals("SHORT", normalizeTradeType("short"));
+        assertEquals(" BUY NOW", normalizeTradeType(" buy now"));
+    }
+
+    @Test
+    void testNormalize_InvalidSecurityIdCharacters_ThrowsException() {
+        CanonicalTrade trade = new CanonicalTrade(
+            "1234567890", "ABC-12", "Buy", 
+            BigDecimal.valueOf(100000), LocalDateTime.now()
+        );
+
+        assertThrows(IllegalArgumentException.class, () -> transformer.normalize(trade));
+    }
+
+    @Test
+    void testNormalize_MissingRequiredFields_ThrowsException() {
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal amount = BigDecimal.valueOf(100000);
+
+        assertThrows(IllegalArgumentException.class, () -> transformer.normalize(
+            new CanonicalTrade(null, "ABC123", "Buy", amount, now)));
+        assertThrows(IllegalArgumentException.class, () -> transformer.normalize(
+            new CanonicalTrade(" ", "ABC123", "Buy", amount, now)));
+        assertThrows(IllegalArgumentException.class, () -> transformer.normalize(
+            new CanonicalTrade("1234567890", "ABC123", "Buy", null, now)));
+        assertThrows(IllegalArgumentException.class, () -> transformer.normalize(
+            new CanonicalTrade("1234567890", "ABC123", "Buy", amount, null)));
+    }
+
+    @Test
+    void testToPlatformFormat_FormatsConsecutiveTimestamps() {
+        LocalDateTime first = LocalDateTime.of(2025, 1, 2, 3, 4, 5, 600_000_000);
+        LocalDateTime second = LocalDateTime.of(2025, 12, 31, 23, 59, 59);
+
+        assertEquals("2025-01-02T03:04:05Z", formatTimestamp(first));
+        assertEquals("2025-01-02T03:04:05Z", formatTimestamp(first));
+        assertEquals("2025-12-31T23:59:59Z", formatTimestamp(second));
+    }
+
+    private String normalizeTradeType(String tradeType) {
+        CanonicalTrade trade = new CanonicalTrade(
+            "1234567890", "ABC123", tradeType, 
+            BigDecimal.valueOf(100000), LocalDateTime.now()
+        );
+        return transformer.normalize(trade).getTradeType();
+    }
+
+    private String formatTimestamp(LocalDateTime timestamp) {
+        CanonicalTrade canonical = new CanonicalTrade(
+            "****7890", "ABC123", "B", 
+            BigDecimal.valueOf(100000), timestamp
+        );
+        return transformer.toPlatformFormat(canonical).getTrade().getTimestamp();
+    }
+}